@@ -0,0 +1,88 @@
+package dev.cwhead.GravesXAddon.benchmarks;
+
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Builds synthetic graveyards for the benchmarks without a running server.
+ * Graveyards are laid out in a row along the X axis, each one a square grid of
+ * grave sites spaced two blocks apart.
+ */
+public final class BenchmarkGraveyards {
+
+    public static final String WORLD_NAME = "world";
+    public static final int GRAVEYARD_SPACING = 1024;
+    public static final int SITE_SPACING = 2;
+    public static final int SITE_Y = 64;
+
+    private BenchmarkGraveyards() {
+    }
+
+    /**
+     * Creates a {@link World} that only answers its name and UID, which is all the
+     * graveyard cache needs from a world.
+     *
+     * @param name the name of the world.
+     * @return the world stub.
+     */
+    public static World createWorld(String name) {
+        UUID uid = UUID.nameUUIDFromBytes(name.getBytes());
+        return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[]{World.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                    return name;
+                case "getUID":
+                    return uid;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "BenchmarkWorld{name=" + name + "}";
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    /**
+     * Creates the grave sites of the specified number of graveyards.
+     *
+     * @param world the world the graveyards are in.
+     * @param graveyardCount the number of graveyards.
+     * @param sitesPerGraveyard the number of grave sites in each graveyard.
+     * @return the grave sites of each graveyard, keyed by graveyard name.
+     */
+    public static Map<String, List<GraveSite>> createGraveyards(World world, int graveyardCount, int sitesPerGraveyard) {
+        Map<String, List<GraveSite>> graveyards = new LinkedHashMap<>();
+        int rowLength = (int) Math.ceil(Math.sqrt(sitesPerGraveyard));
+        for (int graveyard = 0; graveyard < graveyardCount; graveyard++) {
+            List<GraveSite> graveSites = new ArrayList<>(sitesPerGraveyard);
+            for (int site = 0; site < sitesPerGraveyard; site++) {
+                int x = graveyard * GRAVEYARD_SPACING + (site % rowLength) * SITE_SPACING;
+                int z = (site / rowLength) * SITE_SPACING;
+                graveSites.add(new GraveSite(String.valueOf(site + 1), new Location(world, x, SITE_Y, z), false));
+            }
+            graveyards.put(graveyardName(graveyard), graveSites);
+        }
+        return graveyards;
+    }
+
+    /**
+     * Gets the name of the graveyard at the specified position in the row.
+     *
+     * @param graveyard the position of the graveyard.
+     * @return the graveyard name.
+     */
+    public static String graveyardName(int graveyard) {
+        return "graveyard-" + graveyard;
+    }
+}
@@ -0,0 +1,88 @@
+package dev.cwhead.GravesXAddon.benchmarks;
+
+import dev.cwhead.GravesXAddon.managers.GraveyardCache;
+import dev.cwhead.GravesXAddon.selection.SelectionStrategy;
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import dev.cwhead.GravesXAddon.util.GraveSiteReservation;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks choosing a free grave site with each selection strategy. Every invocation
+ * reserves a grave site and releases it again, so the occupancy stays constant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraveSiteSelectionBenchmark {
+
+    private static final int PROBES = 1024;
+    private static final String GRAVEYARD_NAME = BenchmarkGraveyards.graveyardName(0);
+
+    @Param({"random", "nearest", "fill-in-order", "round-robin", "least-recently-used"})
+    public String strategy;
+
+    @Param({"100", "10000"})
+    public int sitesPerGraveyard;
+
+    @Param({"0.5", "0.99"})
+    public double occupancy;
+
+    private GraveyardCache cache;
+    private SelectionStrategy selectionStrategy;
+    private Location[] deathLocations;
+    private int probe;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        World world = BenchmarkGraveyards.createWorld(BenchmarkGraveyards.WORLD_NAME);
+        Map<String, List<GraveSite>> graveyards = BenchmarkGraveyards.createGraveyards(world, 1, sitesPerGraveyard);
+        List<GraveSite> graveSites = graveyards.get(GRAVEYARD_NAME);
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (GraveSite graveSite : graveSites) {
+            graveSite.setOccupied(random.nextDouble() < occupancy);
+        }
+        cache = GraveyardCache.of(Collections.emptyMap(), graveyards, Collections.singleton(world));
+        selectionStrategy = SelectionStrategy.fromConfigName(strategy);
+
+        deathLocations = new Location[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            Location siteLocation = graveSites.get(random.nextInt(sitesPerGraveyard)).getLocation();
+            deathLocations[i] = new Location(world, siteLocation.getX() + 1.5, siteLocation.getY(), siteLocation.getZ() + 0.5);
+        }
+    }
+
+    @Benchmark
+    public GraveSiteReservation reserveAndRelease() {
+        probe = (probe + 1) & (PROBES - 1);
+        GraveSiteReservation reservation = cache.reserveGraveSite(GRAVEYARD_NAME, selectionStrategy, deathLocations[probe], ThreadLocalRandom.current(), 10_000L);
+        if (reservation != null) {
+            reservation.release();
+            cache.updateGraveSite(GRAVEYARD_NAME, reservation.getGraveSite());
+        }
+        return reservation;
+    }
+}
@@ -0,0 +1,106 @@
+package dev.cwhead.GravesXAddon.benchmarks;
+
+import dev.cwhead.GravesXAddon.managers.GraveyardCache;
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the lookups every grave event runs against the graveyard cache:
+ * resolving the graveyard at a death location and resolving a grave site by its location.
+ * Choosing a free grave site is measured by {@link GraveSiteSelectionBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraveyardLookupBenchmark {
+
+    private static final int PROBES = 1024;
+
+    @Param({"1", "10", "100"})
+    public int graveyardCount;
+
+    @Param({"10", "100", "1000"})
+    public int sitesPerGraveyard;
+
+    @Param({"0.5"})
+    public double occupancy;
+
+    private GraveyardCache cache;
+    private Location[] insideLocations;
+    private Location[] outsideLocations;
+    private Location[] siteLocations;
+    private String[] siteGraveyards;
+    private int probe;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        World world = BenchmarkGraveyards.createWorld(BenchmarkGraveyards.WORLD_NAME);
+        Map<String, List<GraveSite>> graveyards = BenchmarkGraveyards.createGraveyards(world, graveyardCount, sitesPerGraveyard);
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (List<GraveSite> graveSites : graveyards.values()) {
+            for (GraveSite graveSite : graveSites) {
+                graveSite.setOccupied(random.nextDouble() < occupancy);
+            }
+        }
+        cache = GraveyardCache.of(Collections.emptyMap(), graveyards, Collections.singleton(world));
+
+        insideLocations = new Location[PROBES];
+        outsideLocations = new Location[PROBES];
+        siteLocations = new Location[PROBES];
+        siteGraveyards = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            int graveyard = random.nextInt(graveyardCount);
+            GraveSite graveSite = graveyards.get(BenchmarkGraveyards.graveyardName(graveyard)).get(random.nextInt(sitesPerGraveyard));
+            Location siteLocation = graveSite.getLocation();
+
+            insideLocations[i] = new Location(world, siteLocation.getX() + 1.5, siteLocation.getY(), siteLocation.getZ() + 0.5);
+            outsideLocations[i] = new Location(world, -100_000 - random.nextInt(100_000), BenchmarkGraveyards.SITE_Y, random.nextInt(100_000));
+            siteLocations[i] = new Location(world, siteLocation.getBlockX() + 0.5, siteLocation.getBlockY(), siteLocation.getBlockZ() + 0.5);
+            siteGraveyards[i] = BenchmarkGraveyards.graveyardName(graveyard);
+        }
+    }
+
+    private int nextProbe() {
+        probe = (probe + 1) & (PROBES - 1);
+        return probe;
+    }
+
+    @Benchmark
+    public String graveyardNameInsideGraveyard() {
+        return cache.getGraveyardNameAtLocation(insideLocations[nextProbe()]);
+    }
+
+    @Benchmark
+    public String graveyardNameOutsideGraveyards() {
+        return cache.getGraveyardNameAtLocation(outsideLocations[nextProbe()]);
+    }
+
+    @Benchmark
+    public GraveSite graveSiteByLocation() {
+        int i = nextProbe();
+        return cache.getGraveSiteByLocation(siteGraveyards[i], siteLocations[i]);
+    }
+}
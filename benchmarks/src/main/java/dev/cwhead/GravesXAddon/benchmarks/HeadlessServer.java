@@ -0,0 +1,497 @@
+package dev.cwhead.GravesXAddon.benchmarks;
+
+import dev.cwhead.GravesXAddon.Graveyards;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.Listener;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.RegisteredListener;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * A server without a game, just enough to enable the addon and pass it events, for running
+ * the real listeners and cache manager without a running server.
+ * <p>
+ * The server, its plugin manager, scheduler, worlds and players are proxies. Events are passed
+ * to the listeners the Bukkit plugin loader registers for the addon. Synchronous tasks run on the
+ * thread that created the server when {@link #tick()} advances the clock, and asynchronous tasks
+ * run on a thread pool as on a Bukkit server. Worlds count the items dropped in them, and
+ * players count the messages they are sent.
+ * <p>
+ * Bukkit only accepts one server per JVM, so the server is shared by every run and {@link #reset()} between runs.
+ */
+final class HeadlessServer {
+
+    private static HeadlessServer instance;
+
+    private final Logger logger = Logger.getLogger("HeadlessServer");
+    private final Thread mainThread = Thread.currentThread();
+    private final ExecutorService asyncExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "HeadlessServer async");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<Future<?>> asyncTasks = new ArrayList<>();
+    private final List<ScheduledTask> scheduledTasks = new ArrayList<>();
+    private final Map<Class<? extends Event>, List<RegisteredListener>> listeners = new LinkedHashMap<>();
+    private final Map<String, World> worlds = new LinkedHashMap<>();
+    private final AtomicInteger droppedItems = new AtomicInteger();
+    private final AtomicInteger messages = new AtomicInteger();
+    private final Server server;
+    private final JavaPluginLoader pluginLoader;
+    private Plugin plugin;
+    private long currentTick;
+
+    private HeadlessServer() {
+        PluginManager pluginManager = proxy(PluginManager.class, "HeadlessPluginManager", (method, args) -> {
+            switch (method) {
+                case "registerEvents":
+                    registerEvents((Listener) args[0], (Plugin) args[1]);
+                    return null;
+                case "callEvent":
+                    callEvent((Event) args[0]);
+                    return null;
+                case "getPlugins":
+                    return new Plugin[0];
+                default:
+                    return null;
+            }
+        });
+        BukkitScheduler scheduler = proxy(BukkitScheduler.class, "HeadlessScheduler", (method, args) -> {
+            switch (method) {
+                case "runTask":
+                    return schedule((Runnable) args[1], 1L, -1L, false);
+                case "runTaskLater":
+                    return schedule((Runnable) args[1], (Long) args[2], -1L, false);
+                case "runTaskTimer":
+                    return schedule((Runnable) args[1], (Long) args[2], (Long) args[3], false);
+                case "runTaskAsynchronously":
+                    return schedule((Runnable) args[1], 0L, -1L, true);
+                case "runTaskTimerAsynchronously":
+                    return schedule((Runnable) args[1], (Long) args[2], (Long) args[3], true);
+                default:
+                    throw new UnsupportedOperationException("BukkitScheduler." + method);
+            }
+        });
+        this.server = proxy(Server.class, "HeadlessServer", (method, args) -> {
+            switch (method) {
+                case "getLogger":
+                    return logger;
+                case "getName":
+                    return "HeadlessServer";
+                case "getVersion":
+                case "getBukkitVersion":
+                    return "headless";
+                case "getPluginManager":
+                    return pluginManager;
+                case "getScheduler":
+                    return scheduler;
+                case "isPrimaryThread":
+                    return Thread.currentThread() == mainThread;
+                case "getWorlds":
+                    return new ArrayList<>(worlds.values());
+                case "getWorld":
+                    return args[0] instanceof String ? worlds.get(args[0]) : null;
+                case "getPluginCommand":
+                    return createCommand((String) args[0]);
+                default:
+                    return null;
+            }
+        });
+        this.pluginLoader = new JavaPluginLoader(server);
+    }
+
+    /**
+     * Gets the headless server, installing it as the Bukkit server on first use.
+     * Synchronous tasks run on the thread calling this method first.
+     *
+     * @return the headless server.
+     */
+    static synchronized HeadlessServer get() {
+        if (instance == null) {
+            instance = new HeadlessServer();
+            Bukkit.setServer(instance.server);
+        }
+        return instance;
+    }
+
+    /**
+     * Creates the addon, configures it and enables it, then waits until it has loaded its graveyards.
+     *
+     * @param dataFolder the data folder of the addon.
+     * @param factory creates the addon with the arguments of the constructor of {@link org.bukkit.plugin.java.JavaPlugin}.
+     * @param configure changes the configuration before the addon reads it.
+     * @return the enabled addon.
+     */
+    Graveyards enablePlugin(File dataFolder, PluginFactory factory, Consumer<FileConfiguration> configure) {
+        PluginDescriptionFile description = new PluginDescriptionFile("Graveyards", "headless", Graveyards.class.getName());
+        Graveyards graveyards = factory.create(pluginLoader, description, dataFolder, new File(dataFolder, "Graveyards.jar"));
+        plugin = graveyards;
+        configure.accept(graveyards.getConfig());
+        graveyards.onEnable();
+        awaitAsyncTasks();
+        tick();
+        return graveyards;
+    }
+
+    /**
+     * Disables the addon and waits until its background tasks have finished.
+     *
+     * @param graveyards the enabled addon.
+     */
+    void disablePlugin(Graveyards graveyards) {
+        graveyards.onDisable();
+        awaitAsyncTasks();
+    }
+
+    /**
+     * Forgets the addon, its listeners, its scheduled tasks, the worlds and the counters.
+     * Waits for running asynchronous tasks first.
+     */
+    void reset() {
+        awaitAsyncTasks();
+        synchronized (scheduledTasks) {
+            scheduledTasks.clear();
+        }
+        listeners.clear();
+        worlds.clear();
+        droppedItems.set(0);
+        messages.set(0);
+        plugin = null;
+    }
+
+    /**
+     * Adds a world that knows its name and UID and counts the items dropped in it.
+     *
+     * @param name the name of the world.
+     * @return the world.
+     */
+    World addWorld(String name) {
+        UUID uid = UUID.nameUUIDFromBytes(name.getBytes());
+        World world = proxy(World.class, "HeadlessWorld{name=" + name + "}", (method, args) -> {
+            switch (method) {
+                case "getName":
+                    return name;
+                case "getUID":
+                    return uid;
+                case "dropItem":
+                case "dropItemNaturally":
+                    droppedItems.incrementAndGet();
+                    return null;
+                case "getPlayers":
+                    return Collections.emptyList();
+                default:
+                    return null;
+            }
+        });
+        worlds.put(name, world);
+        return world;
+    }
+
+    /**
+     * Creates a player with an empty inventory that can be teleported and counts the messages it is sent.
+     *
+     * @param name the name of the player.
+     * @param location the location of the player.
+     * @return the player.
+     */
+    Player createPlayer(String name, Location location) {
+        UUID uuid = UUID.nameUUIDFromBytes(("OfflinePlayer:" + name).getBytes());
+        PlayerInventory inventory = proxy(PlayerInventory.class, "HeadlessInventory{player=" + name + "}", (method, args) -> null);
+        Location[] current = {location.clone()};
+        return proxy(Player.class, "HeadlessPlayer{name=" + name + "}", (method, args) -> {
+            switch (method) {
+                case "getName":
+                case "getDisplayName":
+                    return name;
+                case "getUniqueId":
+                    return uuid;
+                case "getType":
+                    return EntityType.PLAYER;
+                case "getLocation":
+                    return args.length == 0 ? current[0].clone() : null;
+                case "getWorld":
+                    return current[0].getWorld();
+                case "teleport":
+                    if (args[0] instanceof Location) {
+                        current[0] = ((Location) args[0]).clone();
+                        return true;
+                    }
+                    return false;
+                case "getInventory":
+                    return inventory;
+                case "isValid":
+                case "isOnline":
+                    return true;
+                case "sendMessage":
+                    messages.incrementAndGet();
+                    return null;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * Passes an event to every registered listener of its type, on the current thread.
+     *
+     * @param event the event.
+     */
+    void callEvent(Event event) {
+        for (Map.Entry<Class<? extends Event>, List<RegisteredListener>> entry : listeners.entrySet()) {
+            if (!entry.getKey().isAssignableFrom(event.getClass())) {
+                continue;
+            }
+            for (RegisteredListener listener : entry.getValue()) {
+                try {
+                    listener.callEvent(event);
+                } catch (EventException e) {
+                    throw new IllegalStateException("Could not pass " + event.getClass().getSimpleName() + " to the addon", e.getCause());
+                }
+            }
+        }
+    }
+
+    /**
+     * Advances the clock by one tick, running the synchronous tasks due on the current thread
+     * and starting the asynchronous tasks due on the thread pool.
+     */
+    void tick() {
+        List<ScheduledTask> due = new ArrayList<>();
+        synchronized (scheduledTasks) {
+            currentTick++;
+            Iterator<ScheduledTask> iterator = scheduledTasks.iterator();
+            while (iterator.hasNext()) {
+                ScheduledTask task = iterator.next();
+                if (task.cancelled) {
+                    iterator.remove();
+                } else if (task.nextTick <= currentTick) {
+                    due.add(task);
+                    if (task.period > 0) {
+                        task.nextTick = currentTick + task.period;
+                    } else {
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+        for (ScheduledTask task : due) {
+            if (task.async) {
+                runAsync(task.runnable);
+            } else {
+                task.runnable.run();
+            }
+        }
+    }
+
+    /**
+     * Waits until every asynchronous task started so far, and every task they started, has finished.
+     */
+    void awaitAsyncTasks() {
+        while (true) {
+            List<Future<?>> running;
+            synchronized (asyncTasks) {
+                if (asyncTasks.isEmpty()) {
+                    return;
+                }
+                running = new ArrayList<>(asyncTasks);
+                asyncTasks.clear();
+            }
+            for (Future<?> future : running) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("An asynchronous task of the addon failed", e.getCause());
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of items dropped in every world since the last reset.
+     *
+     * @return the number of dropped items.
+     */
+    int getDroppedItems() {
+        return droppedItems.get();
+    }
+
+    /**
+     * Gets the number of messages sent to every player since the last reset.
+     *
+     * @return the number of messages.
+     */
+    int getMessages() {
+        return messages.get();
+    }
+
+    private void registerEvents(Listener listener, Plugin owner) {
+        Map<Class<? extends Event>, Set<RegisteredListener>> registered = pluginLoader.createRegisteredListeners(listener, owner);
+        for (Map.Entry<Class<? extends Event>, Set<RegisteredListener>> entry : registered.entrySet()) {
+            listeners.computeIfAbsent(entry.getKey(), type -> new ArrayList<>()).addAll(entry.getValue());
+        }
+    }
+
+    private BukkitTask schedule(Runnable runnable, long delayTicks, long periodTicks, boolean async) {
+        ScheduledTask task = new ScheduledTask(runnable, async, periodTicks);
+        if (async && delayTicks <= 0) {
+            runAsync(runnable);
+            task.cancelled = true;
+        } else {
+            synchronized (scheduledTasks) {
+                task.nextTick = currentTick + Math.max(1L, delayTicks);
+                scheduledTasks.add(task);
+            }
+        }
+        return proxy(BukkitTask.class, "HeadlessTask", (method, args) -> {
+            switch (method) {
+                case "cancel":
+                    task.cancelled = true;
+                    return null;
+                case "isCancelled":
+                    return task.cancelled;
+                case "isSync":
+                    return !async;
+                case "getOwner":
+                    return plugin;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private void runAsync(Runnable runnable) {
+        synchronized (asyncTasks) {
+            asyncTasks.add(asyncExecutor.submit(runnable));
+        }
+    }
+
+    private PluginCommand createCommand(String name) {
+        if (plugin == null || name.indexOf(':') >= 0) {
+            return null;
+        }
+        try {
+            Constructor<PluginCommand> constructor = PluginCommand.class.getDeclaredConstructor(String.class, Plugin.class);
+            constructor.setAccessible(true);
+            return constructor.newInstance(name, plugin);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create command " + name, e);
+        }
+    }
+
+    /**
+     * Creates a proxy of an interface. Methods the handler does not answer return null, false or 0.
+     *
+     * @param type the interface.
+     * @param name the string representation of the proxy.
+     * @param handler answers the methods by name.
+     * @return the proxy.
+     */
+    private static <T> T proxy(Class<T> type, String name, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Object[] arguments = args != null ? args : new Object[0];
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == arguments[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return name;
+                }
+            }
+            Object result = handler.invoke(method.getName(), arguments);
+            if (result == null && method.getReturnType().isPrimitive()) {
+                return defaultValue(method.getReturnType());
+            }
+            return result;
+        }));
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == char.class) {
+            return '\0';
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == float.class) {
+            return 0F;
+        } else if (type == double.class) {
+            return 0D;
+        }
+        return null;
+    }
+
+    /**
+     * Creates the addon outside of a plugin class loader.
+     */
+    interface PluginFactory {
+        Graveyards create(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file);
+    }
+
+    /**
+     * Answers the methods of a proxy by name.
+     */
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws Throwable;
+    }
+
+    /**
+     * A task waiting for its tick.
+     */
+    private static final class ScheduledTask {
+        private final Runnable runnable;
+        private final boolean async;
+        private final long period;
+        private volatile boolean cancelled;
+        private long nextTick;
+
+        private ScheduledTask(Runnable runnable, boolean async, long period) {
+            this.runnable = runnable;
+            this.async = async;
+            this.period = period;
+        }
+    }
+}
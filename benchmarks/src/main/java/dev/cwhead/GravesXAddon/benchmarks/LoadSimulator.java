@@ -0,0 +1,434 @@
+package dev.cwhead.GravesXAddon.benchmarks;
+
+import com.ranull.graves.Graves;
+import com.ranull.graves.event.GraveAutoLootEvent;
+import com.ranull.graves.event.GraveCreateEvent;
+import com.ranull.graves.type.Grave;
+import dev.cwhead.GravesX.GravesXAPI;
+import dev.cwhead.GravesXAddon.Graveyards;
+import dev.cwhead.GravesXAddon.managers.CacheManager;
+import dev.cwhead.GravesXAddon.managers.ProfileManager;
+import dev.cwhead.GravesXAddon.selection.SelectionStrategy;
+import dev.cwhead.GravesXAddon.type.Graveyard;
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import dev.cwhead.GravesXAddon.util.LatencyHistogram;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.damage.DamageSource;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Replays synthetic death and loot storms against the addon without a running server, and
+ * reports the time and allocations of every simulated tick together with the timings the
+ * addon's profiler recorded.
+ * <p>
+ * The addon is enabled on a {@link HeadlessServer} with YAML storage, so the real listeners,
+ * cache manager and storage handle the load. It is hooked into a simulated GravesX API
+ * instead of the GravesX plugin. A death fires an {@link EntityDeathEvent} for a player
+ * standing in a graveyard, the simulated GravesX API creates the grave by firing a
+ * {@link GraveCreateEvent} like GravesX does, and a loot fires a {@link GraveAutoLootEvent}
+ * for a random grave. The background occupancy writer runs on its own schedule on the
+ * server's thread pool, and its cost is reported from the profiler, since it never runs on
+ * the server thread, together with the occupancy changes and bytes it appended to the
+ * journal and the graveyard files its compactions rewrote.
+ * <p>
+ * Run it from the shaded benchmark jar:
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar dev.cwhead.GravesXAddon.benchmarks.LoadSimulator [scenario|all] [strategy] [batched]
+ * </pre>
+ */
+public final class LoadSimulator {
+
+    private static final int PLAYER_COUNT = 256;
+
+    private final Scenario scenario;
+    private final SelectionStrategy strategy;
+    private final boolean batched;
+    private final Random random = new Random(42);
+    private final List<Grave> graves = new ArrayList<>();
+    private final DamageSource damageSource = (DamageSource) Proxy.newProxyInstance(DamageSource.class.getClassLoader(),
+            new Class<?>[]{DamageSource.class}, (proxy, method, args) -> method.getReturnType() == boolean.class ? false : null);
+    private HeadlessServer server;
+    private Graveyards plugin;
+    private World world;
+    private Player[] players;
+    private int deaths;
+    private int loots;
+    private int createdGraves;
+
+    private LoadSimulator(Scenario scenario, SelectionStrategy strategy, boolean batched) {
+        this.scenario = scenario;
+        this.strategy = strategy;
+        this.batched = batched;
+    }
+
+    /**
+     * Runs the scenarios named in the arguments.
+     *
+     * @param args the scenario to run, or "all", followed by the selection strategy, such as "nearest",
+     *             and "batched" to enable death batching.
+     * @throws IOException if the temporary data folder cannot be created.
+     */
+    public static void main(String[] args) throws IOException {
+        String scenarioName = args.length > 0 ? args[0] : "all";
+        SelectionStrategy strategy = args.length > 1 ? SelectionStrategy.fromConfigName(args[1]) : SelectionStrategy.RANDOM;
+        if (strategy == null) {
+            System.err.println("Unknown selection strategy " + args[1]);
+            return;
+        }
+        boolean batched = args.length > 2 && "batched".equalsIgnoreCase(args[2]);
+
+        List<Scenario> scenarios = new ArrayList<>();
+        for (Scenario scenario : Scenario.values()) {
+            if ("all".equalsIgnoreCase(scenarioName) || scenario.getName().equalsIgnoreCase(scenarioName)) {
+                scenarios.add(scenario);
+            }
+        }
+        if (scenarios.isEmpty()) {
+            System.err.println("Unknown scenario " + scenarioName + ". Use all, " + Arrays.toString(Scenario.values()).toLowerCase(Locale.ROOT).replace('_', '-'));
+            return;
+        }
+
+        for (Scenario scenario : scenarios) {
+            new LoadSimulator(scenario, strategy, batched).run();
+        }
+    }
+
+    /**
+     * Enables the addon, sets up the graveyards of the scenario, replays its ticks,
+     * disables the addon and prints the report.
+     */
+    private void run() throws IOException {
+        File dataFolder = Files.createTempDirectory("graveyards-simulation").toFile();
+        server = HeadlessServer.get();
+        try {
+            world = server.addWorld(BenchmarkGraveyards.WORLD_NAME);
+            plugin = server.enablePlugin(dataFolder, (loader, description, folder, file) ->
+                    new SimulatedGraveyards(loader, description, folder, file, new SimulatedGravesXAPI()), config -> {
+                config.set("storage", "yaml");
+                config.set("selection.default", strategy.getConfigName());
+                config.set("death-batching.enabled", batched);
+                config.set("reconciliation.enabled", false);
+                config.set("hot-reload.enabled", false);
+            });
+
+            long setupStart = System.nanoTime();
+            setUp();
+            long setupNanos = System.nanoTime() - setupStart;
+            plugin.getProfileManager().reset();
+
+            long[] tickNanos = new long[scenario.ticks];
+            long[] tickBytes = new long[scenario.ticks];
+            for (int tick = 0; tick < scenario.ticks; tick++) {
+                long allocatedBefore = getAllocatedBytes();
+                long tickStart = System.nanoTime();
+                runTick(tick);
+                server.tick();
+                tickNanos[tick] = System.nanoTime() - tickStart;
+                tickBytes[tick] = getAllocatedBytes() - allocatedBefore;
+            }
+            // Let the last batch create its graves and the running flush finish before the writes are counted
+            server.tick();
+            server.awaitAsyncTasks();
+            CacheManager cacheManager = plugin.getCacheManager();
+            long[] written = {cacheManager.getFlushedChangeCount(), cacheManager.getWrittenBytes(), cacheManager.getCompactedCount()};
+            server.disablePlugin(plugin);
+
+            report(setupNanos, tickNanos, tickBytes, written);
+        } finally {
+            server.reset();
+            deleteRecursively(dataFolder);
+        }
+    }
+
+    /**
+     * Creates the graveyards of the scenario through the cache manager, occupies part of their
+     * grave sites with graves and creates the players.
+     */
+    private void setUp() {
+        CacheManager cacheManager = plugin.getCacheManager();
+        int span = (int) (Math.ceil(Math.sqrt(scenario.sitesPerGraveyard)) - 1) * BenchmarkGraveyards.SITE_SPACING;
+        Map<String, List<GraveSite>> layout = BenchmarkGraveyards.createGraveyards(world, scenario.graveyardCount, scenario.sitesPerGraveyard);
+        int graveyard = 0;
+        for (Map.Entry<String, List<GraveSite>> entry : layout.entrySet()) {
+            String graveyardName = entry.getKey();
+            int x = graveyard++ * BenchmarkGraveyards.GRAVEYARD_SPACING;
+            cacheManager.createGraveyard(new Graveyard(graveyardName,
+                    new Location(world, x, BenchmarkGraveyards.SITE_Y, 0),
+                    new Location(world, x + span, BenchmarkGraveyards.SITE_Y, span)));
+
+            List<Location> locations = new ArrayList<>(entry.getValue().size());
+            for (GraveSite graveSite : entry.getValue()) {
+                locations.add(graveSite.getLocation());
+            }
+            for (GraveSite graveSite : cacheManager.addGraveSites(graveyardName, locations)) {
+                if (random.nextDouble() < scenario.initialOccupancy) {
+                    UUID graveUUID = UUID.randomUUID();
+                    cacheManager.updateGraveSiteOccupancy(graveyardName, graveSite, true, graveUUID);
+                    graves.add(createGrave(graveUUID, graveSite.getLocation()));
+                }
+            }
+        }
+
+        players = new Player[PLAYER_COUNT];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = server.createPlayer("Player" + i, new Location(world, 0, BenchmarkGraveyards.SITE_Y, 0));
+        }
+    }
+
+    /**
+     * Runs the deaths and loots of a tick.
+     */
+    private void runTick(int tick) {
+        for (int i = scenario.deathsAt(tick); i > 0; i--) {
+            die();
+        }
+        for (int i = scenario.lootsAt(tick); i > 0 && !graves.isEmpty(); i--) {
+            loot();
+        }
+    }
+
+    /**
+     * A player dies somewhere in a random graveyard.
+     */
+    private void die() {
+        int graveyard = random.nextInt(scenario.graveyardCount);
+        int span = (int) Math.ceil(Math.sqrt(scenario.sitesPerGraveyard)) * BenchmarkGraveyards.SITE_SPACING;
+        Location deathLocation = new Location(world,
+                graveyard * BenchmarkGraveyards.GRAVEYARD_SPACING + random.nextInt(span),
+                BenchmarkGraveyards.SITE_Y, random.nextInt(span));
+
+        Player player = players[deaths++ % players.length];
+        player.teleport(deathLocation);
+        List<ItemStack> drops = new ArrayList<>(Collections.singletonList(new ItemStack(Material.BONE)));
+        server.callEvent(new EntityDeathEvent(player, damageSource, drops));
+    }
+
+    /**
+     * A random grave is auto-looted by a player.
+     */
+    private void loot() {
+        loots++;
+        int grave = random.nextInt(graves.size());
+        int last = graves.size() - 1;
+        Grave looted = graves.get(grave);
+        graves.set(grave, graves.get(last));
+        graves.remove(last);
+        server.callEvent(new GraveAutoLootEvent(players[loots % players.length], looted.getLocationDeath(), looted));
+    }
+
+    private static Grave createGrave(UUID graveUUID, Location location) {
+        Grave grave = new Grave(graveUUID);
+        grave.setLocationDeath(location);
+        return grave;
+    }
+
+    private void report(long setupNanos, long[] tickNanos, long[] tickBytes, long[] written) {
+        int busiestTick = 0;
+        long totalBytes = 0;
+        long maxBytes = 0;
+        for (int tick = 0; tick < tickNanos.length; tick++) {
+            if (tickNanos[tick] > tickNanos[busiestTick]) {
+                busiestTick = tick;
+            }
+            totalBytes += tickBytes[tick];
+            maxBytes = Math.max(maxBytes, tickBytes[tick]);
+        }
+        long[] sorted = tickNanos.clone();
+        Arrays.sort(sorted);
+
+        System.out.println(scenario.getName() + " (" + strategy.getConfigName() + (batched ? ", batched" : "") + ", "
+                + scenario.graveyardCount + " graveyards x " + scenario.sitesPerGraveyard + " grave sites, "
+                + (int) (scenario.initialOccupancy * 100) + "% occupied)");
+        System.out.printf(Locale.ROOT, "  setup:       %.1f ms%n", setupNanos / 1e6);
+        System.out.println("  ticks:       " + tickNanos.length + ", deaths: " + deaths + ", graves: " + createdGraves
+                + ", no free grave site: " + server.getDroppedItems() + ", loots: " + loots);
+        System.out.printf(Locale.ROOT, "  tick time:   p50 %s, p99 %s, max %s (tick %d)%n",
+                formatNanos(percentile(sorted, 0.50)), formatNanos(percentile(sorted, 0.99)), formatNanos(sorted[sorted.length - 1]), busiestTick);
+        if (totalBytes >= 0) {
+            System.out.printf(Locale.ROOT, "  allocated:   %.1f KB per tick on average, %.1f KB max%n",
+                    totalBytes / 1024.0 / tickNanos.length, maxBytes / 1024.0);
+        }
+        System.out.println("  profiler:");
+        for (Map.Entry<String, LatencyHistogram> entry : plugin.getProfileManager().getHistograms().entrySet()) {
+            LatencyHistogram.Summary summary = entry.getValue().summarize(ProfileManager.WINDOW_COUNT);
+            System.out.printf(Locale.ROOT, "    %-20s %7d calls, p50 %s, p99 %s, max %s%n",
+                    entry.getKey(), summary.getCount(), formatNanos(summary.getP50()), formatNanos(summary.getP99()), formatNanos(summary.getMax()));
+        }
+        System.out.printf(Locale.ROOT, "  persistence: %d occupancy changes in %d journal bytes, %d graveyard files rewritten by compaction%n",
+                written[0], written[1], written[2]);
+    }
+
+    /**
+     * Gets the bytes allocated by the current thread so far.
+     *
+     * @return the allocated bytes, or -1 if the JVM does not track them.
+     */
+    private static long getAllocatedBytes() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1L;
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+    }
+
+    private static String formatNanos(long nanos) {
+        return nanos >= 1_000_000L ? String.format(Locale.ROOT, "%.2fms", nanos / 1e6) : String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * The addon hooked into a simulated GravesX API instead of the GravesX plugin.
+     */
+    private static final class SimulatedGraveyards extends Graveyards {
+
+        private final GravesXAPI gravesXAPI;
+
+        private SimulatedGraveyards(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file, GravesXAPI gravesXAPI) {
+            super(loader, description, dataFolder, file);
+            this.gravesXAPI = gravesXAPI;
+        }
+
+        @Override
+        protected GravesXAPI hookGravesX() {
+            return gravesXAPI;
+        }
+    }
+
+    /**
+     * Creates graves the way GravesX reports them to the addon: a grave is created at the
+     * requested location and announced with a {@link GraveCreateEvent} on the current thread.
+     * There is no GravesX plugin behind it, so the addon's debug messages are dropped.
+     */
+    private final class SimulatedGravesXAPI extends GravesXAPI {
+
+        private SimulatedGravesXAPI() {
+            super(null);
+        }
+
+        @Override
+        public Graves getGravesX() {
+            return null;
+        }
+
+        @Override
+        public void createGrave(Entity victim, Entity killer, EntityType killerEntityType, Location location, Map<EquipmentSlot, ItemStack> equipmentMap,
+                                List<ItemStack> itemStackList, int experience, long timeAliveRemaining, EntityDamageEvent.DamageCause damageCause,
+                                boolean graveProtection, long graveProtectionTime) {
+            Grave grave = LoadSimulator.createGrave(UUID.randomUUID(), location);
+            server.callEvent(new GraveCreateEvent(victim, grave));
+            graves.add(grave);
+            createdGraves++;
+        }
+    }
+
+    /**
+     * The synthetic load scenarios.
+     */
+    private enum Scenario {
+
+        /**
+         * 200 players die in the same tick, followed by quiet ticks.
+         */
+        DEATH_STORM(4, 500, 0.25, 100) {
+            @Override
+            int deathsAt(int tick) {
+                return tick == 10 ? 200 : 0;
+            }
+        },
+
+        /**
+         * A steady stream of deaths and loots for one minute, keeping the graveyards half full.
+         */
+        LOOT_CHURN(10, 1000, 0.5, 1200) {
+            @Override
+            int deathsAt(int tick) {
+                return 5;
+            }
+
+            @Override
+            int lootsAt(int tick) {
+                return 5;
+            }
+        },
+
+        /**
+         * Deaths and loots in a single nearly full graveyard of 50,000 grave sites.
+         */
+        LARGE_GRAVEYARD(1, 50_000, 0.9, 600) {
+            @Override
+            int deathsAt(int tick) {
+                return 2;
+            }
+
+            @Override
+            int lootsAt(int tick) {
+                return 2;
+            }
+        };
+
+        private final int graveyardCount;
+        private final int sitesPerGraveyard;
+        private final double initialOccupancy;
+        private final int ticks;
+
+        Scenario(int graveyardCount, int sitesPerGraveyard, double initialOccupancy, int ticks) {
+            this.graveyardCount = graveyardCount;
+            this.sitesPerGraveyard = sitesPerGraveyard;
+            this.initialOccupancy = initialOccupancy;
+            this.ticks = ticks;
+        }
+
+        String getName() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+
+        /**
+         * Gets the number of players dying in a tick.
+         */
+        abstract int deathsAt(int tick);
+
+        /**
+         * Gets the number of graves looted in a tick.
+         */
+        int lootsAt(int tick) {
+            return 0;
+        }
+    }
+}
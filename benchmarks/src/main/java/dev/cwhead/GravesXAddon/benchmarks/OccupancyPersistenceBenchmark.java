@@ -0,0 +1,117 @@
+package dev.cwhead.GravesXAddon.benchmarks;
+
+import dev.cwhead.GravesXAddon.managers.GraveyardCache;
+import dev.cwhead.GravesXAddon.storage.OccupancyJournal;
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Benchmarks the occupancy update path: the main-thread cost of
+ * {@code CacheManager.updateGraveSiteOccupancy} (resolving the grave site and recording
+ * the change in the journal) and the background group commit of the journal.
+ * <p>
+ * A {@code CacheManager} needs an enabled plugin, so {@link #updateGraveSiteOccupancy()} mirrors
+ * the storage-facing part of its body on a cache version and journal instead: the grave site
+ * lookup, the occupancy change, the allocator update and the journal record. Profiling, JFR
+ * events and the grave UUID bookkeeping are not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OccupancyPersistenceBenchmark {
+
+    private static final int PROBES = 1024;
+
+    @Param({"1", "10", "100"})
+    public int graveyardCount;
+
+    @Param({"10", "100", "1000"})
+    public int sitesPerGraveyard;
+
+    private File directory;
+    private GraveyardCache cache;
+    private OccupancyJournal journal;
+    private Location[] siteLocations;
+    private String[] siteGraveyards;
+    private int probe;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("graveyards-benchmark").toFile();
+        World world = BenchmarkGraveyards.createWorld(BenchmarkGraveyards.WORLD_NAME);
+        Map<String, List<GraveSite>> graveyards = BenchmarkGraveyards.createGraveyards(world, graveyardCount, sitesPerGraveyard);
+        cache = GraveyardCache.of(Collections.emptyMap(), graveyards, Collections.singleton(world));
+        journal = new OccupancyJournal(new File(directory, "occupancy.journal"), directory, Logger.getLogger("benchmark"));
+
+        SplittableRandom random = new SplittableRandom(42);
+        siteLocations = new Location[PROBES];
+        siteGraveyards = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            int graveyard = random.nextInt(graveyardCount);
+            GraveSite graveSite = graveyards.get(BenchmarkGraveyards.graveyardName(graveyard)).get(random.nextInt(sitesPerGraveyard));
+            siteLocations[i] = graveSite.getLocation();
+            siteGraveyards[i] = BenchmarkGraveyards.graveyardName(graveyard);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public GraveSite updateGraveSiteOccupancy() {
+        probe = (probe + 1) & (PROBES - 1);
+        GraveSite graveSite = cache.getGraveSiteByLocation(siteGraveyards[probe], siteLocations[probe]);
+        boolean occupied = !graveSite.isOccupied();
+        graveSite.setOccupied(occupied);
+        cache.updateGraveSite(siteGraveyards[probe], graveSite);
+        journal.record(siteGraveyards[probe], graveSite, occupied);
+        return graveSite;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int recordAndFlushBatch() {
+        for (int i = 0; i < PROBES; i++) {
+            GraveSite graveSite = cache.getGraveSiteByLocation(siteGraveyards[i], siteLocations[i]);
+            journal.record(siteGraveyards[i], graveSite, (i & 1) == 0);
+        }
+        int written = journal.flush();
+        new File(directory, "occupancy.journal").delete();
+        return written;
+    }
+}
@@ -0,0 +1,193 @@
+package dev.cwhead.GravesXAddon;
+
+import com.ranull.graves.Graves;
+import dev.cwhead.GravesX.GravesXAPI;
+import dev.cwhead.GravesXAddon.commands.GraveyardCommand;
+import dev.cwhead.GravesXAddon.commands.GraveyardInfoCommand;
+import dev.cwhead.GravesXAddon.events.EntityDeathListener;
+import dev.cwhead.GravesXAddon.events.WorldListener;
+import dev.cwhead.GravesXAddon.managers.CacheManager;
+import dev.cwhead.GravesXAddon.managers.OccupancyReconciler;
+import dev.cwhead.GravesXAddon.managers.ProfileManager;
+import dev.cwhead.GravesXAddon.scheduler.TaskScheduler;
+import dev.cwhead.GravesXAddon.tabcomplete.GraveyardInfoTabCompleter;
+import dev.cwhead.GravesXAddon.tabcomplete.GraveyardTabCompleter;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
+
+/**
+ * The main class for the GravesX Addon: Graveyards.
+ * This plugin integrates with the GravesX plugin to manage graveyards and related functionalities.
+ */
+public class Graveyards extends JavaPlugin {
+
+    private static Graveyards instance;
+    private GravesXAPI gravesXAPI;
+    private Graves graves;
+    private CacheManager cacheManager;
+    private ProfileManager profileManager;
+    private OccupancyReconciler occupancyReconciler;
+    private EntityDeathListener entityDeathListener;
+    private TaskScheduler taskScheduler;
+
+    /**
+     * Constructs the plugin. Called by the server's plugin loader.
+     */
+    public Graveyards() {
+    }
+
+    /**
+     * Constructs the plugin outside of the server's plugin class loader, like the constructor
+     * of {@link JavaPlugin} it calls. Only used by subclasses that run the addon without a server.
+     *
+     * @param loader the plugin loader of the server.
+     * @param description the description of the plugin.
+     * @param dataFolder the data folder of the plugin.
+     * @param file the file the plugin was loaded from.
+     */
+    protected Graveyards(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+        super(loader, description, dataFolder, file);
+    }
+
+    /**
+     * Called when the plugin is enabled.
+     * This method checks for the GravesX plugin, sets up commands,
+     * initializes the cache manager, and registers event listeners.
+     */
+    @Override
+    public void onEnable() {
+        gravesXAPI = hookGravesX();
+        if (gravesXAPI != null) {
+            instance = this;
+            saveDefaultConfig();
+            this.taskScheduler = TaskScheduler.create(this);
+            this.profileManager = new ProfileManager();
+            this.cacheManager = new CacheManager(this);  // Set the instance
+            getCommand("graveyards").setExecutor(new GraveyardCommand(this));
+            getCommand("graveyardinfo").setExecutor(new GraveyardInfoCommand(this));
+            getCommand("graveyardinfo").setTabCompleter(new GraveyardInfoTabCompleter(this));
+            getCommand("graveyards").setTabCompleter(new GraveyardTabCompleter(this));
+
+            getLogger().info("Hooked into GravesX. Deaths in graveyards will be handled by this plugin.");
+            entityDeathListener = new EntityDeathListener(this);
+            getServer().getPluginManager().registerEvents(entityDeathListener, this);
+            getServer().getPluginManager().registerEvents(new WorldListener(this), this);
+
+            getCacheManager().loadAllGraveyards();
+            if (getConfig().getBoolean("reconciliation.enabled", true)) {
+                occupancyReconciler = new OccupancyReconciler(this, getConfig().getLong("reconciliation.interval-seconds", 300L) * 20L,
+                        getConfig().getInt("reconciliation.sites-per-tick", 200));
+                occupancyReconciler.start();
+            }
+            getLogger().info("Loaded GravesX Addon: Graveyards");
+        } else {
+            getLogger().severe("Plugin GravesX is either missing or not enabled. Disabling Plugin.");
+        }
+    }
+
+    /**
+     * Looks up the GravesX plugin and creates the API the addon creates graves with.
+     *
+     * @return the GravesXAPI instance, or null if GravesX is missing or not enabled.
+     */
+    protected GravesXAPI hookGravesX() {
+        Plugin gravesX = getServer().getPluginManager().getPlugin("GravesX");
+        if (gravesX == null || !gravesX.isEnabled()) {
+            return null;
+        }
+        graves = (Graves) gravesX;
+        return new GravesXAPI(graves);
+    }
+
+    /**
+     * Called when the plugin is disabled.
+     * This method persists pending grave site occupancy changes and performs
+     * any necessary cleanup when the plugin is unloaded.
+     */
+    @Override
+    public void onDisable() {
+        if (entityDeathListener != null) {
+            entityDeathListener.shutdown();
+        }
+        if (occupancyReconciler != null) {
+            occupancyReconciler.stop();
+        }
+        if (cacheManager != null) {
+            cacheManager.shutdown();
+        }
+        getLogger().info("Graveyards Addon Disabled.");
+    }
+
+    /**
+     * Retrieves the GravesXAPI instance for interacting with the GravesX plugin.
+     *
+     * @return The GravesXAPI instance.
+     */
+    public GravesXAPI getGravesXAPI() {
+        return gravesXAPI;
+    }
+
+    /**
+     * Retrieves the Graves plugin instance that this addon is hooked into.
+     *
+     * @return The Graves plugin instance.
+     */
+    public Graves getGravesX() {
+        return gravesXAPI.getGravesX();
+    }
+
+    /**
+     * Sends a debug message through GravesX, which logs it if its debug level is at least the specified level.
+     * Does nothing if the addon runs without the GravesX plugin.
+     *
+     * @param message the debug message.
+     * @param level the debug level of the message.
+     */
+    public void debugMessage(String message, int level) {
+        Graves gravesX = getGravesX();
+        if (gravesX != null) {
+            gravesX.debugMessage(message, level);
+        }
+    }
+
+    /**
+     * Retrieves the singleton instance of the Graveyards plugin.
+     *
+     * @return The instance of the Graveyards plugin.
+     */
+    public static Graveyards getInstance() {
+        return instance;
+    }
+
+    /**
+     * Retrieves the CacheManager instance used for managing graveyard data.
+     *
+     * @return The CacheManager instance.
+     */
+    public CacheManager getCacheManager() {
+        return cacheManager;
+    }
+
+    /**
+     * Retrieves the TaskScheduler used to run tasks on the threads the server expects,
+     * which differ between Bukkit and Folia.
+     *
+     * @return The TaskScheduler instance.
+     */
+    public TaskScheduler getTaskScheduler() {
+        return taskScheduler;
+    }
+
+    /**
+     * Retrieves the ProfileManager instance collecting live timings of the addon.
+     *
+     * @return The ProfileManager instance.
+     */
+    public ProfileManager getProfileManager() {
+        return profileManager;
+    }
+}
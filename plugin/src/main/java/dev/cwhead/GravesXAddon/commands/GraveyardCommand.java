@@ -0,0 +1,328 @@
+package dev.cwhead.GravesXAddon.commands;
+
+import dev.cwhead.GravesXAddon.Graveyards;
+import dev.cwhead.GravesXAddon.managers.ProfileManager;
+import dev.cwhead.GravesXAddon.tasks.GraveyardFillTask;
+import dev.cwhead.GravesXAddon.type.Graveyard;
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import dev.cwhead.GravesXAddon.util.LatencyHistogram;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Command executor for managing graveyards in the GravesX addon.
+ * This command allows players to set positions, create graveyards,
+ * add or remove grave sites, and delete graveyards.
+ */
+public class GraveyardCommand implements CommandExecutor {
+
+    private static final int DEFAULT_FILL_SPACING = 2;
+    private static final int MAX_FILL_SPACING = 64;
+
+    private Location pos1;
+    private Location pos2;
+    private final Graveyards plugin;
+    private final Set<String> fillingGraveyards = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs a GraveyardCommand for the specified plugin instance.
+     *
+     * @param plugin the main plugin class instance used to access plugin resources.
+     */
+    public GraveyardCommand(Graveyards plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Executes the command for managing graveyards.
+     * Supports subcommands for setting positions, creating graveyards,
+     * adding and removing grave sites, filling graveyards with grave sites, deleting graveyards,
+     * and showing live timings.
+     *
+     * @param sender the entity that issued the command (should be a player).
+     * @param command the command that was executed.
+     * @param label the alias used for the command.
+     * @param args the arguments provided with the command.
+     * @return true if the command was executed successfully, false otherwise.
+     */
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (!(sender instanceof Player)) {
+            sender.sendMessage("This command can only be used by players.");
+            return true;
+        }
+
+        Player player = (Player) sender;
+
+        if (args.length == 0) {
+            player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Usage: /graveyards <pos1|pos2|create|addSite|fill|profile>");
+            return true;
+        }
+
+        switch (args[0].toLowerCase()) {
+            case "pos1":
+                pos1 = player.getLocation().subtract(0, -1, 0);
+                player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Position 1 set to x:" + ChatColor.GOLD  + pos1.getBlockX() + ChatColor.RED + " y:" + ChatColor.GOLD  + pos1.getBlockY() + ChatColor.RED + " z:" + ChatColor.GOLD  + pos1.getBlockZ());
+                break;
+
+            case "pos2":
+                pos2 = player.getLocation().subtract(0, -1, 0);
+                player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Position 2 set to x:" + ChatColor.GOLD + pos2.getBlockX() + ChatColor.RED + " y:" + ChatColor.GOLD  + pos2.getBlockY() + ChatColor.RED + " z:" + ChatColor.GOLD  + pos2.getBlockZ());
+                break;
+
+            case "create":
+                if (args.length < 2) {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Usage: /graveyards create <name>");
+                    return true;
+                }
+                if (pos1 == null || pos2 == null) {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Please set both positions (pos1 and pos2) before creating a graveyard.");
+                    return true;
+                }
+
+                String name = args[1];
+
+                if (plugin.getCacheManager().graveyardExistsOrStored(name)) {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "A graveyard with the name " + ChatColor.GOLD  + name + ChatColor.RED  + " already exists.");
+                    return true;
+                }
+
+                Graveyard graveyard = new Graveyard(name, pos1, pos2);
+                if (plugin.getCacheManager().createGraveyard(graveyard)) {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Graveyard " + ChatColor.GOLD  + name + ChatColor.RED  + " created and saved successfully!");
+                } else {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Failed to save graveyard " + ChatColor.GOLD  + name + ChatColor.RED  + ". Please check the server logs.");
+                }
+
+                pos1 = null;
+                pos2 = null;
+
+                break;
+
+            case "addsite":
+                if (args.length < 2) {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Usage: /graveyards addSite <graveyard-name>");
+                    return true;
+                }
+
+                String graveyardName = args[1];
+
+                if (!checkGraveyardLoaded(player, graveyardName)) {
+                    return true;
+                }
+
+                Location playerLocation = player.getLocation();
+                Location gravesiteLocation = playerLocation.clone().subtract(0, 1, 0); // Position 1 block above the ground
+
+                if (gravesiteLocation.getBlock().getType() == Material.AIR) {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Please stand on solid ground to add a grave site.");
+                    return true;
+                }
+
+                GraveSite newGraveSite = plugin.getCacheManager().addGraveSite(graveyardName, playerLocation.clone().add(0, 1, 0));
+
+                if (newGraveSite != null) {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Added grave site " + ChatColor.GOLD + newGraveSite.getId() + ChatColor.RED + " to graveyard " + ChatColor.GOLD + graveyardName + ChatColor.RED + ".");
+                } else {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Failed to save grave site. Check the server logs for details.");
+                }
+
+                break;
+
+            case "fill":
+                if (args.length < 2) {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Usage: /graveyards fill <graveyard-name> [spacing]");
+                    return true;
+                }
+
+                fillGraveyard(player, args[1], args.length >= 3 ? args[2] : null);
+                break;
+
+            case "delete":
+                if (args.length < 2) {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Usage: /graveyards delete <graveyard-name>");
+                    return true;
+                }
+
+                String graveyardToDelete = args[1];
+
+                if (!checkGraveyardLoaded(player, graveyardToDelete)) {
+                    return true;
+                }
+
+                if (plugin.getCacheManager().deleteGraveyard(graveyardToDelete)) {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Graveyard " + ChatColor.GOLD + graveyardToDelete + ChatColor.RED + " deleted successfully!");
+                } else {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Failed to delete graveyard " + ChatColor.GOLD + graveyardToDelete + ChatColor.RED + ". Please check the server logs.");
+                }
+                break;
+
+            case "removesite":
+                if (args.length < 3) {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Usage: /graveyards removeSite <graveyard-name> <site-number>");
+                    return true;
+                }
+
+                String graveyardNameToRemoveFrom = args[1];
+
+                if (!checkGraveyardLoaded(player, graveyardNameToRemoveFrom)) {
+                    return true;
+                }
+
+                int siteNumber;
+                try {
+                    siteNumber = Integer.parseInt(args[2]);
+                } catch (NumberFormatException e) {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Site number must be an integer.");
+                    return true;
+                }
+
+                String siteIdToRemove = String.valueOf(siteNumber);
+                if (plugin.getCacheManager().removeGraveSite(graveyardNameToRemoveFrom, siteIdToRemove)) {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Removed grave site " + ChatColor.GOLD + siteNumber + ChatColor.RED + " from graveyard " + ChatColor.GOLD + graveyardNameToRemoveFrom + ChatColor.RED + ".");
+                } else if (plugin.getCacheManager().getGraveSites(graveyardNameToRemoveFrom).stream().anyMatch(graveSite -> siteIdToRemove.equals(graveSite.getId()))) {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Failed to save changes to graveyard. Check the server logs.");
+                } else {
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "No grave site found with number " + ChatColor.GOLD + siteNumber + ChatColor.RED + " in graveyard " + ChatColor.GOLD + graveyardNameToRemoveFrom + ChatColor.RED + ".");
+                }
+                break;
+
+            case "profile":
+                if (args.length >= 2 && "reset".equalsIgnoreCase(args[1])) {
+                    plugin.getProfileManager().reset();
+                    player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Profiler timings have been reset.");
+                } else {
+                    sendProfile(player);
+                }
+                break;
+
+            default:
+                player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Unknown subcommand. Use /graveyards <pos1|pos2|create|addSite|fill|profile>");
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a graveyard is in the cache, telling the player otherwise whether it does not
+     * exist or is stored but still being loaded, as on startup.
+     *
+     * @param player the player who issued the command.
+     * @param graveyardName the name of the graveyard.
+     * @return true if the graveyard is cached, false otherwise.
+     */
+    private boolean checkGraveyardLoaded(Player player, String graveyardName) {
+        if (plugin.getCacheManager().graveyardExists(graveyardName)) {
+            return true;
+        }
+        if (plugin.getCacheManager().graveyardExistsOrStored(graveyardName)) {
+            player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Graveyard " + ChatColor.GOLD + graveyardName + ChatColor.RED + " is still loading. Please try again in a moment.");
+        } else {
+            player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Graveyard " + ChatColor.GOLD + graveyardName + ChatColor.RED + " does not exist.");
+        }
+        return false;
+    }
+
+    /**
+     * Starts generating grave sites over the area of a graveyard. The area is scanned in
+     * time-sliced runs by a {@link GraveyardFillTask}, and only one fill per graveyard runs at a time.
+     *
+     * @param player the player who issued the command.
+     * @param graveyardName the name of the graveyard to fill.
+     * @param spacingArgument the distance between grave sites as typed, or null for the default.
+     */
+    private void fillGraveyard(Player player, String graveyardName, String spacingArgument) {
+        Graveyard graveyard = plugin.getCacheManager().getGraveyard(graveyardName);
+        if (graveyard == null) {
+            checkGraveyardLoaded(player, graveyardName);
+            return;
+        }
+
+        int spacing = DEFAULT_FILL_SPACING;
+        if (spacingArgument != null) {
+            try {
+                spacing = Integer.parseInt(spacingArgument);
+            } catch (NumberFormatException e) {
+                spacing = -1;
+            }
+            if (spacing < 1 || spacing > MAX_FILL_SPACING) {
+                player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Spacing must be a whole number from " + ChatColor.GOLD + "1" + ChatColor.RED + " to " + ChatColor.GOLD + MAX_FILL_SPACING + ChatColor.RED + ".");
+                return;
+            }
+        }
+
+        if (graveyard.getPos1() == null || graveyard.getPos2() == null || graveyard.getWorldName() == null) {
+            player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Graveyard " + ChatColor.GOLD + graveyardName + ChatColor.RED + " has no area to fill.");
+            return;
+        }
+        World world = Bukkit.getWorld(graveyard.getWorldName());
+        if (world == null) {
+            player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "The world of graveyard " + ChatColor.GOLD + graveyardName + ChatColor.RED + " is not loaded.");
+            return;
+        }
+        if (!fillingGraveyards.add(graveyardName)) {
+            player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Graveyard " + ChatColor.GOLD + graveyardName + ChatColor.RED + " is already being filled.");
+            return;
+        }
+
+        GraveyardFillTask task = new GraveyardFillTask(plugin, player, graveyard, world, spacing, () -> fillingGraveyards.remove(graveyardName));
+        player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Filling graveyard " + ChatColor.GOLD + graveyardName + ChatColor.RED + ", scanning " + ChatColor.GOLD + task.getColumnCount() + ChatColor.RED + " columns...");
+        task.start();
+    }
+
+    /**
+     * Sends the live timings of the addon's event handlers, cache loads and occupancy saves to a player.
+     * Each line shows the sample count, median, 99th percentile and maximum over the last minute
+     * and over the last five minutes.
+     *
+     * @param player the player to send the timings to.
+     */
+    private void sendProfile(Player player) {
+        Map<String, LatencyHistogram> histograms = plugin.getProfileManager().getHistograms();
+        if (histograms.isEmpty()) {
+            player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "No timings have been recorded yet.");
+            return;
+        }
+
+        int oneMinuteWindows = (int) (60_000L / ProfileManager.WINDOW_MILLIS);
+        player.sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Graveyards timings " + ChatColor.GRAY + "(count / p50 / p99 / max)");
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            player.sendMessage(ChatColor.GOLD + entry.getKey() + ChatColor.RED + " 1m: " + formatSummary(entry.getValue().summarize(oneMinuteWindows))
+                    + ChatColor.RED + " 5m: " + formatSummary(entry.getValue().summarize(ProfileManager.WINDOW_COUNT)));
+        }
+    }
+
+    /**
+     * Formats the statistics of a histogram summary for chat.
+     *
+     * @param summary the summary to format.
+     * @return the formatted statistics.
+     */
+    private String formatSummary(LatencyHistogram.Summary summary) {
+        return ChatColor.GOLD + String.valueOf(summary.getCount()) + ChatColor.GRAY + " / "
+                + ChatColor.GOLD + formatNanos(summary.getP50()) + ChatColor.GRAY + " / "
+                + ChatColor.GOLD + formatNanos(summary.getP99()) + ChatColor.GRAY + " / "
+                + ChatColor.GOLD + formatNanos(summary.getMax());
+    }
+
+    /**
+     * Formats a latency in nanoseconds as microseconds, switching to milliseconds for larger values.
+     *
+     * @param nanos the latency, in nanoseconds.
+     * @return the formatted latency.
+     */
+    private String formatNanos(long nanos) {
+        return nanos >= 1_000_000L ? String.format("%.1fms", nanos / 1e6) : String.format("%.1fµs", nanos / 1e3);
+    }
+}
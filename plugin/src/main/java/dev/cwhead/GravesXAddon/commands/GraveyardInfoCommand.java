@@ -0,0 +1,143 @@
+package dev.cwhead.GravesXAddon.commands;
+
+import dev.cwhead.GravesXAddon.Graveyards;
+import dev.cwhead.GravesXAddon.managers.GraveyardCache;
+import dev.cwhead.GravesXAddon.managers.GraveyardSummary;
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command executor for retrieving information about grave sites within a specified graveyard.
+ * This command provides players with a summary of the graveyard and a page of its grave sites,
+ * showing their locations and occupancy.
+ */
+public class GraveyardInfoCommand implements CommandExecutor {
+
+    private static final int PAGE_SIZE = 10;
+
+    private final Graveyards plugin;
+
+    /**
+     * Constructs a GraveyardInfoCommand for the specified plugin instance.
+     *
+     * @param plugin the main plugin class instance used to access plugin resources.
+     */
+    public GraveyardInfoCommand(Graveyards plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Executes the command to retrieve grave site information for a specified graveyard.
+     * The page is built asynchronously from the current cache version and sent to the player
+     * on the player's thread, so large graveyards never stall the main thread.
+     * Pages are addressed by the key of the last grave site shown rather than by number,
+     * so grave sites added or removed between two pages never shift entries across pages.
+     *
+     * @param sender the entity that issued the command (should be a player).
+     * @param command the command that was executed.
+     * @param label the alias used for the command.
+     * @param args the arguments provided with the command.
+     * @return true if the command was executed successfully, false otherwise.
+     */
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (sender instanceof Player) {
+            Player player = (Player) sender;
+
+            // Check if the correct number of arguments is provided
+            if (args.length < 1 || args.length > 2) {
+                player.sendMessage("Usage: /graveyardinfo <graveyard-name> [after-id]");
+                return true;
+            }
+
+            String graveyardName = args[0];
+            String afterId = args.length == 2 ? args[1] : null;
+            GraveyardCache cache = plugin.getCacheManager().getSnapshot();
+            plugin.getTaskScheduler().runAsync(() -> {
+                String[] lines = buildPage(cache, graveyardName, afterId);
+                plugin.getTaskScheduler().runForEntity(player, () -> {
+                    if (player.isOnline()) {
+                        player.sendMessage(lines);
+                    }
+                });
+            });
+        } else {
+            sender.sendMessage("This command can only be run by a player.");
+        }
+        return true;
+    }
+
+    /**
+     * Builds the summary and a single page of grave sites of a graveyard.
+     * The aggregates come from the {@link GraveyardSummary} of the cache version, which is
+     * built once per version, so only the entries of the page itself are formatted.
+     *
+     * @param cache the cache version to read from.
+     * @param graveyardName the name of the graveyard.
+     * @param afterId the key of the last grave site of the previous page, or null for the first page.
+     * @return the chat lines to send.
+     */
+    private String[] buildPage(GraveyardCache cache, String graveyardName, String afterId) {
+        GraveyardSummary summary = cache.getSummary(graveyardName);
+        List<String> lines = new ArrayList<>(PAGE_SIZE + 4);
+
+        // Check if any grave sites exist for the specified graveyard
+        if (summary == null || summary.size() == 0) {
+            lines.add(ChatColor.GRAY + "☠ " + ChatColor.RED + "No grave sites found for " + ChatColor.GOLD + graveyardName);
+            return lines.toArray(new String[0]);
+        }
+
+        int from = summary.indexAfter(afterId);
+        if (from >= summary.size()) {
+            lines.add(ChatColor.GRAY + "☠ " + ChatColor.RED + "There are no grave sites after " + ChatColor.GOLD + "#" + afterId
+                    + ChatColor.RED + " in " + ChatColor.GOLD + graveyardName + ChatColor.RED + ".");
+            return lines.toArray(new String[0]);
+        }
+        List<GraveSite> page = summary.getPage(from, PAGE_SIZE);
+        int to = from + page.size();
+
+        int occupied = summary.getOccupied();
+        lines.add(ChatColor.GRAY + "☠ " + ChatColor.RED + "Grave sites for " + ChatColor.GOLD + graveyardName
+                + ChatColor.RED + " (" + ChatColor.GOLD + (from + 1) + ChatColor.RED + "-" + ChatColor.GOLD + to
+                + ChatColor.RED + " of " + ChatColor.GOLD + summary.size() + ChatColor.RED + ")");
+        lines.add(ChatColor.RED + "Total: " + ChatColor.GOLD + summary.size()
+                + ChatColor.RED + ", Occupied: " + ChatColor.GOLD + occupied
+                + ChatColor.RED + ", Free: " + ChatColor.GOLD + (summary.size() - occupied));
+
+        StringBuilder worlds = new StringBuilder().append(ChatColor.RED).append("Worlds: ");
+        boolean first = true;
+        for (Map.Entry<String, Integer> entry : summary.getWorldCounts().entrySet()) {
+            if (!first) {
+                worlds.append(ChatColor.RED).append(", ");
+            }
+            worlds.append(ChatColor.GOLD).append(entry.getKey()).append(ChatColor.RED).append(" (")
+                    .append(ChatColor.GOLD).append(entry.getValue()).append(ChatColor.RED).append(")");
+            first = false;
+        }
+        lines.add(worlds.toString());
+
+        for (GraveSite graveSite : page) {
+            lines.add(ChatColor.RED + "#" + ChatColor.GOLD + (graveSite.getId() != null ? graveSite.getId() : "?") +
+                    ChatColor.RED + " World: " + ChatColor.GOLD + (graveSite.getWorldName() != null ? graveSite.getWorldName() : "Unknown") +
+                    ChatColor.RED + ", X: " + ChatColor.GOLD + graveSite.getBlockX() +
+                    ChatColor.RED + ", Y: " + ChatColor.GOLD + graveSite.getBlockY() +
+                    ChatColor.RED + ", Z: " + ChatColor.GOLD + graveSite.getBlockZ() +
+                    ChatColor.RED + ", Occupied: " + ChatColor.GOLD + graveSite.isOccupied());
+        }
+
+        String lastId = page.get(page.size() - 1).getId();
+        if (to < summary.size() && lastId != null) {
+            lines.add(ChatColor.GRAY + "Use " + ChatColor.GOLD + "/graveyardinfo " + graveyardName + " " + lastId
+                    + ChatColor.GRAY + " for the next page.");
+        }
+        return lines.toArray(new String[0]);
+    }
+}
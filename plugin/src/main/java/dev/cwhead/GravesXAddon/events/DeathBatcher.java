@@ -0,0 +1,128 @@
+package dev.cwhead.GravesXAddon.events;
+
+import dev.cwhead.GravesXAddon.Graveyards;
+import dev.cwhead.GravesXAddon.jfr.GraveSiteSelectEvent;
+import dev.cwhead.GravesXAddon.util.GraveSiteReservation;
+import org.bukkit.Location;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects the deaths in graveyards during a tick and handles them together at the start of
+ * the next tick, so a mass death such as an explosion or the end of a minigame round costs one
+ * pass per graveyard instead of one per player.
+ * <p>
+ * The grave sites of all deaths in a graveyard are reserved while holding the graveyard's
+ * allocator once. Deaths that find no free grave site fall back to overflow graveyards one by
+ * one, and the graves are then created as {@link EntityDeathListener} creates a single grave.
+ * Deaths may be added from any thread; the batch is handled on the main thread, or on Folia's
+ * global region.
+ */
+final class DeathBatcher {
+
+    private final Graveyards plugin;
+    private final EntityDeathListener listener;
+    private final Queue<PendingDeath> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    DeathBatcher(Graveyards plugin, EntityDeathListener listener) {
+        this.plugin = plugin;
+        this.listener = listener;
+    }
+
+    /**
+     * Adds a death to the current batch, scheduling the batch if it is the first death of the tick.
+     *
+     * @param death the death of a player in a graveyard.
+     */
+    void add(PendingDeath death) {
+        pending.add(death);
+        if (scheduled.compareAndSet(false, true)) {
+            plugin.getTaskScheduler().runGlobal(this::flush);
+        }
+    }
+
+    /**
+     * Reserves the grave sites for every collected death, graveyard by graveyard, and creates their graves.
+     */
+    void flush() {
+        long start = System.nanoTime();
+        // Cleared first, so a death added while the batch is handled schedules the next batch
+        scheduled.set(false);
+
+        Map<String, List<PendingDeath>> graveyardDeaths = new LinkedHashMap<>();
+        int count = 0;
+        PendingDeath death;
+        while ((death = pending.poll()) != null) {
+            graveyardDeaths.computeIfAbsent(death.getGraveyardName(), k -> new ArrayList<>()).add(death);
+            count++;
+        }
+        if (count == 0) {
+            return;
+        }
+
+        for (Map.Entry<String, List<PendingDeath>> entry : graveyardDeaths.entrySet()) {
+            String graveyardName = entry.getKey();
+            List<PendingDeath> deaths = entry.getValue();
+            List<Location> deathLocations = new ArrayList<>(deaths.size());
+            for (PendingDeath graveyardDeath : deaths) {
+                deathLocations.add(graveyardDeath.getDeathLocation());
+            }
+
+            GraveSiteSelectEvent selectEvent = new GraveSiteSelectEvent();
+            selectEvent.begin();
+            List<GraveSiteReservation> reservations = plugin.getCacheManager().reserveGraveSites(graveyardName, deathLocations, ThreadLocalRandom.current());
+            boolean found = true;
+            for (int i = 0; i < deaths.size(); i++) {
+                GraveSiteReservation reservation = reservations.get(i);
+                if (reservation != null) {
+                    deaths.get(i).setReservation(graveyardName, reservation);
+                } else if (!listener.reserveOverflowGraveSite(deaths.get(i))) {
+                    found = false;
+                }
+            }
+            selectEvent.found = found;
+            selectEvent.commit(graveyardName, deaths.get(0).getSiteCount());
+
+            for (PendingDeath graveyardDeath : deaths) {
+                if (graveyardDeath.getReservation() != null) {
+                    listener.createGrave(graveyardDeath);
+                } else {
+                    listener.dropWithoutGrave(graveyardDeath);
+                }
+            }
+        }
+
+        plugin.debugMessage("Handled " + count + " deaths in " + graveyardDeaths.size() + " graveyards in one batch", 2);
+        plugin.getProfileManager().record("deathBatch", start);
+    }
+
+    /**
+     * Drops the drops of every collected death where its player died, on the current thread.
+     * Called when the plugin is disabled, since the batch can no longer be scheduled and its
+     * graves could no longer be created. The inventories of these players were already cleared,
+     * so their drops would otherwise be lost.
+     */
+    void dropPending() {
+        int count = 0;
+        PendingDeath death;
+        while ((death = pending.poll()) != null) {
+            Location deathLocation = death.getDeathLocation();
+            for (ItemStack item : death.getDrops()) {
+                deathLocation.getWorld().dropItemNaturally(deathLocation, item);
+            }
+            count++;
+        }
+        if (count > 0) {
+            plugin.getLogger().info("Dropped the items of " + count + " deaths whose graves were not created before shutdown.");
+        }
+    }
+}
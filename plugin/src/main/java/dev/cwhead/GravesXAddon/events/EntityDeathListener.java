@@ -0,0 +1,370 @@
+package dev.cwhead.GravesXAddon.events;
+
+import com.ranull.graves.event.*;
+import com.ranull.graves.type.Grave;
+import dev.cwhead.GravesXAddon.Graveyards;
+import dev.cwhead.GravesXAddon.jfr.GraveCreateCallEvent;
+import dev.cwhead.GravesXAddon.jfr.GraveSiteSelectEvent;
+import dev.cwhead.GravesXAddon.jfr.GraveyardResolveEvent;
+import dev.cwhead.GravesXAddon.managers.GraveyardCache;
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import dev.cwhead.GravesXAddon.util.GraveSiteReservation;
+import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+
+/**
+ * Listens for entity death events and handles the creation, looting,
+ * and management of graves in the game.
+ */
+public class EntityDeathListener implements Listener {
+
+    private final Graveyards plugin;
+    private final DeathBatcher deathBatcher;
+    // The deaths whose graves GravesX is creating, by player UUID, until GravesX reports the grave
+    private final Map<UUID, PendingDeath> pendingGraves = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an EntityDeathListener for the given Graveyards plugin instance.
+     * Deaths are collected into batches per tick if {@code death-batching.enabled} is set.
+     *
+     * @param plugin The Graveyards plugin instance.
+     */
+    public EntityDeathListener(Graveyards plugin) {
+        this.plugin = plugin;
+        this.deathBatcher = plugin.getConfig().getBoolean("death-batching.enabled", false) ? new DeathBatcher(plugin, this) : null;
+    }
+
+    /**
+     * Handles the event when a grave is created.
+     * If the grave is one this addon is creating on a reserved grave site, sets the addon flag
+     * to true and commits the reservation of the grave site, which may belong to an overflow
+     * graveyard. Only the reservation made for this grave is committed, never a later
+     * reservation of the same grave site. The grave site records the UUID of the grave, which
+     * later releases it when the grave is looted or destroyed.
+     * <p>
+     * The grave is recognized by the player it is created for, who was recorded with the
+     * reservation while GravesX creates the grave, rather than by where the grave is or where
+     * its player is. GravesX may place the grave on another block than the grave site, and the
+     * player may have respawned elsewhere by the time a batched grave is created.
+     *
+     * @param event The GraveCreateEvent.
+     */
+    @EventHandler (priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onGraveCreate(GraveCreateEvent event) {
+        long start = System.nanoTime();
+        PendingDeath death = event.getEntity() != null ? pendingGraves.remove(event.getEntity().getUniqueId()) : null;
+
+        if (death != null) {
+            event.setAddon(true);
+            String graveSiteGraveyardName = death.getGraveSiteGraveyardName();
+            GraveSiteReservation reservation = death.getReservation();
+            Location graveSiteLocation = reservation.getGraveSite().getLocation();
+            plugin.debugMessage("Grave created at " + graveSiteLocation + " in graveyard " + graveSiteGraveyardName, 2);
+
+            UUID graveUUID = event.getGrave() != null ? event.getGrave().getUUID() : null;
+            if (plugin.getCacheManager().commitGraveSite(graveSiteGraveyardName, reservation, graveUUID)) {
+                plugin.debugMessage("Committed grave site reservation at " + graveSiteLocation + " in graveyard " + graveSiteGraveyardName, 2);
+            }
+        }
+
+        plugin.getProfileManager().record("onGraveCreate", start);
+    }
+
+    /**
+     * Handles the event when a grave is auto-looted.
+     * Frees the grave site the grave was on.
+     *
+     * @param event The GraveAutoLootEvent.
+     */
+    @EventHandler (priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onGraveAutoLooted(GraveAutoLootEvent event) {
+        long start = System.nanoTime();
+        releaseGraveSite(event.getGrave(), event.getLocation(), "auto-looted");
+        plugin.getProfileManager().record("onGraveAutoLooted", start);
+    }
+
+    /**
+     * Handles the event when a grave is looted.
+     * Frees the grave site the grave was on.
+     *
+     * @param event The GraveLootedEvent.
+     */
+    @EventHandler (priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onGraveLooted(GraveLootedEvent event) {
+        long start = System.nanoTime();
+        releaseGraveSite(event.getGrave(), event.getLocation(), "looted");
+        plugin.getProfileManager().record("onGraveLooted", start);
+    }
+
+    /**
+     * Handles the event when a grave is looted by walking over it.
+     * Frees the grave site the grave was on.
+     *
+     * @param event The GraveWalkOverEvent.
+     */
+    @EventHandler (priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onGraveWalkedOver(GraveWalkOverEvent event) {
+        long start = System.nanoTime();
+        releaseGraveSite(event.getGrave(), event.getLocation(), "looted");
+        plugin.getProfileManager().record("onGraveWalkedOver", start);
+    }
+
+    /**
+     * Handles the event when a grave is destroyed by a projectile.
+     * Frees the grave site the grave was on.
+     *
+     * @param event The GraveProjectileHitEvent.
+     */
+    @EventHandler (priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onGraveProjectile(GraveProjectileHitEvent event) {
+        long start = System.nanoTime();
+        releaseGraveSite(event.getGrave(), event.getLocation(), "projectile destroyed");
+        plugin.getProfileManager().record("onGraveProjectile", start);
+    }
+
+    /**
+     * Handles the event when a grave explodes.
+     * Frees the grave site the grave was on.
+     *
+     * @param event The GraveExplodeEvent.
+     */
+    @EventHandler (priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onGraveExploded(GraveExplodeEvent event) {
+        long start = System.nanoTime();
+        releaseGraveSite(event.getGrave(), event.getLocation(), "exploded");
+        plugin.getProfileManager().record("onGraveExploded", start);
+    }
+
+    /**
+     * Frees the grave site of a grave that was looted or destroyed.
+     * The grave site is found by the grave UUID it recorded when the grave was created. Graves
+     * created before grave sites recorded their grave are matched by the location of the grave instead.
+     *
+     * @param grave the grave that was looted or destroyed, or null if the event has none.
+     * @param location the location of the grave block.
+     * @param action what happened to the grave, for the debug message.
+     */
+    private void releaseGraveSite(Grave grave, Location location, String action) {
+        if (grave != null && grave.getUUID() != null && plugin.getCacheManager().releaseGrave(grave.getUUID())) {
+            plugin.debugMessage("Grave " + grave.getUUID() + " " + action + ", freed its grave site", 2);
+            return;
+        }
+
+        String graveyardName = getGraveyardNameAtLocation(location);
+        if (graveyardName != null) {
+            GraveSite graveSite = plugin.getCacheManager().getGraveSiteByLocation(graveyardName, location);
+
+            // A grave site that knows its grave is only freed through that grave
+            if (graveSite != null && graveSite.isOccupied() && graveSite.getGraveUUID() == null) {
+                plugin.getCacheManager().updateGraveSiteOccupancy(graveyardName, graveSite, false);
+                plugin.debugMessage("Grave " + action + " at " + location + " in graveyard " + graveyardName, 2);
+            }
+        }
+    }
+
+    /**
+     * Handles the event when an entity dies.
+     * Creates a grave for the player if they die in a graveyard. If the graveyard is full and
+     * overflow is enabled, the grave is sent to the nearest graveyard with a free grave site.
+     * A grave site is reserved before the grave is created; the reservation is committed
+     * by {@link #onGraveCreate(GraveCreateEvent)} and released if creating the grave fails.
+     * A reservation that is neither committed nor released expires on its own.
+     * <p>
+     * With death batching enabled, the death is only captured here, and the grave site is
+     * reserved together with those of the other deaths of the tick at the start of the next tick.
+     *
+     * @param event The EntityDeathEvent.
+     */
+    @EventHandler (priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onEntityDeath(EntityDeathEvent event) {
+        long start = System.nanoTime();
+        if (event.getEntity() instanceof Player) {
+            Player player = (Player) event.getEntity();
+            Location deathLocation = player.getLocation();
+            GraveyardCache cache = plugin.getCacheManager().getSnapshot();
+
+            GraveyardResolveEvent resolveEvent = new GraveyardResolveEvent();
+            resolveEvent.begin();
+            String graveyardName = cache.getGraveyardNameAtLocation(deathLocation);
+            int siteCount = graveyardName != null ? cache.getGraveSites(graveyardName).size() : 0;
+            resolveEvent.commit(graveyardName, siteCount);
+
+            if (graveyardName != null) {
+                PendingDeath death = new PendingDeath(player, deathLocation, graveyardName, siteCount, event.getDrops());
+                if (deathBatcher != null) {
+                    // The drops are kept with the death and dropped later if no grave site is found
+                    player.getInventory().clear();
+                    deathBatcher.add(death);
+                } else {
+                    GraveSiteSelectEvent selectEvent = new GraveSiteSelectEvent();
+                    selectEvent.begin();
+                    GraveSiteReservation reservation = plugin.getCacheManager().reserveGraveSite(graveyardName, deathLocation, ThreadLocalRandom.current());
+                    if (reservation != null) {
+                        death.setReservation(graveyardName, reservation);
+                    } else {
+                        reserveOverflowGraveSite(death);
+                    }
+                    selectEvent.found = death.getReservation() != null;
+                    selectEvent.commit(graveyardName, siteCount);
+
+                    if (death.getReservation() != null) {
+                        player.getInventory().clear();
+                        createGrave(death);
+                    } else {
+                        dropWithoutGrave(death);
+                    }
+                }
+                event.getDrops().clear();
+            }
+        }
+
+        plugin.getProfileManager().record("onEntityDeath", start);
+    }
+
+    /**
+     * Drops the items of the collected deaths that are still waiting for their batch where
+     * their players died, as no task can be scheduled to create their graves anymore.
+     * Called when the plugin is disabled.
+     */
+    public void shutdown() {
+        if (deathBatcher != null) {
+            deathBatcher.dropPending();
+        }
+    }
+
+    /**
+     * Reserves a grave site in the nearest graveyard with room, for a player who died in a full graveyard.
+     * Does nothing if overflow is disabled.
+     *
+     * @param death the death of the player.
+     * @return true if a grave site was reserved, false otherwise.
+     */
+    boolean reserveOverflowGraveSite(PendingDeath death) {
+        String graveyardName = death.getGraveyardName();
+        plugin.debugMessage("No available grave sites for player " + death.getPlayerName() + " in graveyard " + graveyardName, 2);
+
+        Set<String> triedGraveyards = new HashSet<>();
+        triedGraveyards.add(graveyardName);
+        String overflowGraveyardName;
+        while ((overflowGraveyardName = plugin.getCacheManager().findOverflowGraveyard(death.getDeathLocation(), triedGraveyards)) != null) {
+            triedGraveyards.add(overflowGraveyardName);
+            GraveSiteReservation reservation = plugin.getCacheManager().reserveGraveSite(overflowGraveyardName, death.getDeathLocation(), ThreadLocalRandom.current());
+            if (reservation != null) {
+                death.setReservation(overflowGraveyardName, reservation);
+                plugin.debugMessage("Sending grave of player " + death.getPlayerName() + " from full graveyard " + graveyardName + " to graveyard " + overflowGraveyardName, 2);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates the grave of a player on the reserved grave site.
+     * The grave is created on the thread owning the grave site, which on Folia may belong
+     * to another region than the one the player died in. The player is only handed to GravesX
+     * there; everything the grave is made of was captured when the player died, and the player
+     * is told about the grave on the thread owning them. If creating the grave fails, the
+     * reservation is released and the drops are dropped where the player died. If GravesX
+     * returns without reporting the grave, such as when another plugin cancelled it, the
+     * reservation is released right away instead of waiting for it to expire. A grave site
+     * that is not bound to a loaded world is released, and the drops are dropped without a grave.
+     *
+     * @param death the death of the player, with a reserved grave site.
+     */
+    void createGrave(PendingDeath death) {
+        Player player = death.getPlayer();
+        String playerName = death.getPlayerName();
+        Location deathLocation = death.getDeathLocation();
+        GraveSiteReservation reservation = death.getReservation();
+        GraveSite graveSite = reservation.getGraveSite();
+        String graveSiteGraveyardName = death.getGraveSiteGraveyardName();
+        if (!graveSite.isBound()) {
+            // The world of the grave site was unloaded, or the cache version holding it is not bound yet
+            plugin.getCacheManager().releaseGraveSite(graveSiteGraveyardName, reservation);
+            dropWithoutGrave(death);
+            return;
+        }
+        boolean graveProtection = true;
+        long graveProtectionTime = -1;
+        long timeAliveRemaining = -1;
+
+        UUID playerUUID = player.getUniqueId();
+
+        plugin.getTaskScheduler().runAtLocation(graveSite.getLocation(), () -> {
+            GraveCreateCallEvent createCallEvent = new GraveCreateCallEvent();
+            createCallEvent.begin();
+            pendingGraves.put(playerUUID, death);
+            try {
+                plugin.getGravesXAPI().createGrave(player, death.getKiller(), death.getKillerEntityType(), graveSite.getLocation(), death.getEquipmentMap(),
+                        death.getDrops(), death.getExperience(), timeAliveRemaining, death.getDamageCause(), graveProtection, graveProtectionTime);
+            } catch (RuntimeException e) {
+                pendingGraves.remove(playerUUID, death);
+                plugin.getCacheManager().releaseGraveSite(graveSiteGraveyardName, reservation);
+                plugin.getLogger().log(Level.SEVERE, "Could not create grave for player " + playerName + " in graveyard " + graveSiteGraveyardName, e);
+                plugin.getTaskScheduler().runAtLocation(deathLocation, () -> {
+                    for (ItemStack item : death.getDrops()) {
+                        deathLocation.getWorld().dropItemNaturally(deathLocation, item);
+                    }
+                });
+                return;
+            } finally {
+                createCallEvent.commit(death.getGraveyardName(), death.getSiteCount());
+            }
+            if (pendingGraves.remove(playerUUID, death)) {
+                plugin.getCacheManager().releaseGraveSite(graveSiteGraveyardName, reservation);
+                plugin.debugMessage("GravesX did not report a grave for player " + playerName + ", released grave site "
+                        + graveSite.getId() + " in graveyard " + graveSiteGraveyardName, 2);
+                return;
+            }
+            sendMessage(player, ChatColor.GRAY + "☠ " + ChatColor.RED + "Your grave has been created in the graveyard " + ChatColor.GOLD + graveSiteGraveyardName);
+            plugin.debugMessage("Grave created for player " + playerName + " in graveyard " + graveSiteGraveyardName + " at location " + graveSite.getLocation(), 2);
+        });
+    }
+
+    /**
+     * Tells a player that no grave site was free and drops their drops where they died.
+     *
+     * @param death the death of the player, without a reserved grave site.
+     */
+    void dropWithoutGrave(PendingDeath death) {
+        Location deathLocation = death.getDeathLocation();
+        sendMessage(death.getPlayer(), ChatColor.GRAY + "☠ " + ChatColor.RED + "No available grave sites found in the graveyard " + ChatColor.GOLD + death.getGraveyardName());
+        plugin.debugMessage("Grave not created for player " + death.getPlayerName() + " in graveyard " + death.getGraveyardName() + " at location " + deathLocation, 2);
+        plugin.getTaskScheduler().runAtLocation(deathLocation, () -> {
+            for (ItemStack item : death.getDrops()) {
+                deathLocation.getWorld().dropItemNaturally(deathLocation, item);
+            }
+        });
+    }
+
+    /**
+     * Sends a message to a player on the thread owning the player, which on Folia may not be the current one.
+     *
+     * @param player the player to message.
+     * @param message the message.
+     */
+    private void sendMessage(Player player, String message) {
+        plugin.getTaskScheduler().runForEntity(player, () -> player.sendMessage(message));
+    }
+
+    /**
+     * Retrieves the name of the graveyard at the specified location.
+     *
+     * @param location The location to check.
+     * @return The name of the graveyard, or null if no graveyard is found.
+     */
+    private String getGraveyardNameAtLocation(Location location) {
+        return plugin.getCacheManager().getGraveyardNameAtLocation(location);
+    }
+}
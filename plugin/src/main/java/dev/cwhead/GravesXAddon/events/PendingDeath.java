@@ -0,0 +1,157 @@
+package dev.cwhead.GravesXAddon.events;
+
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import dev.cwhead.GravesXAddon.util.GraveSiteReservation;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The death of a player in a graveyard, captured when the player died so the grave can be
+ * created later, together with the grave site reserved for it once one is chosen.
+ * <p>
+ * Everything needed from the player is read on the thread the player died on, as the grave
+ * may be created on another thread, which on Folia does not own the player.
+ */
+final class PendingDeath {
+
+    private final Player player;
+    private final String playerName;
+    private final Location deathLocation;
+    private final String graveyardName;
+    private final int siteCount;
+    private final Entity killer;
+    private final EntityType killerEntityType;
+    private final int experience;
+    private final Map<EquipmentSlot, ItemStack> equipmentMap = new EnumMap<>(EquipmentSlot.class);
+    private final List<ItemStack> drops;
+    private final EntityDamageEvent.DamageCause damageCause;
+    private String graveSiteGraveyardName;
+    private GraveSiteReservation reservation;
+
+    /**
+     * Captures the death of a player.
+     *
+     * @param player the player who died.
+     * @param deathLocation the location the player died at.
+     * @param graveyardName the name of the graveyard the player died in.
+     * @param siteCount the number of grave sites of that graveyard, reported to the JFR events.
+     * @param drops the drops of the player, which are copied, as the grave may be created after they were cleared.
+     */
+    PendingDeath(Player player, Location deathLocation, String graveyardName, int siteCount, Collection<ItemStack> drops) {
+        this.player = player;
+        this.playerName = player.getName();
+        this.deathLocation = deathLocation;
+        this.graveyardName = graveyardName;
+        this.siteCount = siteCount;
+        this.killer = player.getKiller();
+        this.killerEntityType = killer != null ? killer.getType() : null;
+        this.experience = player.getTotalExperience();
+        this.drops = new ArrayList<>(drops);
+        this.damageCause = player.getLastDamageCause() != null ?
+                player.getLastDamageCause().getCause() : EntityDamageEvent.DamageCause.CUSTOM;
+    }
+
+    Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Gets the name of the player, read when the player died.
+     *
+     * @return the player name.
+     */
+    String getPlayerName() {
+        return playerName;
+    }
+
+    Location getDeathLocation() {
+        return deathLocation;
+    }
+
+    /**
+     * Gets the name of the graveyard the player died in.
+     *
+     * @return the graveyard name.
+     */
+    String getGraveyardName() {
+        return graveyardName;
+    }
+
+    int getSiteCount() {
+        return siteCount;
+    }
+
+    Entity getKiller() {
+        return killer;
+    }
+
+    EntityType getKillerEntityType() {
+        return killerEntityType;
+    }
+
+    int getExperience() {
+        return experience;
+    }
+
+    Map<EquipmentSlot, ItemStack> getEquipmentMap() {
+        return equipmentMap;
+    }
+
+    List<ItemStack> getDrops() {
+        return drops;
+    }
+
+    EntityDamageEvent.DamageCause getDamageCause() {
+        return damageCause;
+    }
+
+    /**
+     * Gets the name of the graveyard containing the reserved grave site, which differs from
+     * the graveyard the player died in when the grave is sent to an overflow graveyard.
+     *
+     * @return the graveyard name, or null if no grave site is reserved.
+     */
+    String getGraveSiteGraveyardName() {
+        return graveSiteGraveyardName;
+    }
+
+    /**
+     * Gets the grave site reserved for the grave.
+     *
+     * @return the reserved {@link GraveSite}, or null if none is reserved.
+     */
+    GraveSite getGraveSite() {
+        return reservation != null ? reservation.getGraveSite() : null;
+    }
+
+    /**
+     * Gets the reservation of the grave site, which commits or releases it.
+     *
+     * @return the {@link GraveSiteReservation}, or null if no grave site is reserved.
+     */
+    GraveSiteReservation getReservation() {
+        return reservation;
+    }
+
+    /**
+     * Sets the grave site reserved for the grave.
+     *
+     * @param graveSiteGraveyardName the name of the graveyard containing the grave site.
+     * @param reservation the reservation of the grave site.
+     */
+    void setReservation(String graveSiteGraveyardName, GraveSiteReservation reservation) {
+        this.graveSiteGraveyardName = graveSiteGraveyardName;
+        this.reservation = reservation;
+    }
+}
@@ -0,0 +1,54 @@
+package dev.cwhead.GravesXAddon.events;
+
+import dev.cwhead.GravesXAddon.Graveyards;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/**
+ * Listens for worlds being loaded and unloaded and keeps the per-world
+ * partitions of the graveyard cache in step with them.
+ */
+public class WorldListener implements Listener {
+
+    private final Graveyards plugin;
+
+    /**
+     * Constructs a WorldListener for the given Graveyards plugin instance.
+     *
+     * @param plugin The Graveyards plugin instance.
+     */
+    public WorldListener(Graveyards plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Handles the event when a world is loaded.
+     * Binds the grave sites in the world and builds its cache partition.
+     *
+     * @param event The WorldLoadEvent.
+     */
+    @EventHandler (priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        long start = System.nanoTime();
+        plugin.getCacheManager().bindWorld(event.getWorld());
+
+        plugin.getProfileManager().record("onWorldLoad", start);
+    }
+
+    /**
+     * Handles the event when a world is unloaded.
+     * Drops the cache partition of the world and releases its grave sites from it.
+     *
+     * @param event The WorldUnloadEvent.
+     */
+    @EventHandler (priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        long start = System.nanoTime();
+        plugin.getCacheManager().unbindWorld(event.getWorld());
+
+        plugin.getProfileManager().record("onWorldUnload", start);
+    }
+}
@@ -0,0 +1,29 @@
+package dev.cwhead.GravesXAddon.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted when the graveyard cache has been loaded from disk.
+ */
+@Name("dev.cwhead.graveyards.CacheLoad")
+@Label("Graveyard Cache Load")
+@Description("Loading of every graveyard into the cache")
+@Category({"GravesX", "Graveyards"})
+public class CacheLoadEvent extends Event {
+
+    @Label("Graveyards")
+    @Description("Number of graveyards loaded")
+    public int graveyardCount;
+
+    @Label("Grave Sites")
+    @Description("Number of grave sites loaded")
+    public int siteCount;
+
+    @Label("Parsed Files")
+    @Description("Number of graveyard files parsed instead of read from the snapshot")
+    public int parsedFileCount;
+}
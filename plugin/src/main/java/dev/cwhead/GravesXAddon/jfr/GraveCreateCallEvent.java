@@ -0,0 +1,14 @@
+package dev.cwhead.GravesXAddon.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted around the call to GravesX that creates the grave on the selected grave site.
+ */
+@Name("dev.cwhead.graveyards.GraveCreateCall")
+@Label("Grave Create Call")
+@Description("Call to GravesXAPI.createGrave for a grave site")
+public class GraveCreateCallEvent extends GraveyardEvent {
+}
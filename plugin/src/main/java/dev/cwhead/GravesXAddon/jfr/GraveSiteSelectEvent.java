@@ -0,0 +1,18 @@
+package dev.cwhead.GravesXAddon.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted when an unoccupied grave site is selected for a death.
+ */
+@Name("dev.cwhead.graveyards.GraveSiteSelect")
+@Label("Grave Site Select")
+@Description("Selection of an unoccupied grave site in a graveyard")
+public class GraveSiteSelectEvent extends GraveyardEvent {
+
+    @Label("Site Found")
+    @Description("Whether an unoccupied grave site was found")
+    public boolean found;
+}
@@ -0,0 +1,39 @@
+package dev.cwhead.GravesXAddon.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base class of the Java Flight Recorder events emitted while a death is turned into a grave.
+ * Every stage carries the graveyard it ran against and that graveyard's number of grave sites.
+ * Like every JFR event, these cost next to nothing while no recording is running.
+ */
+@Category({"GravesX", "Graveyards"})
+public abstract class GraveyardEvent extends Event {
+
+    @Label("Graveyard")
+    @Description("Name of the graveyard")
+    public String graveyardName;
+
+    @Label("Grave Sites")
+    @Description("Number of grave sites in the graveyard")
+    public int siteCount;
+
+    /**
+     * Ends this event and commits it with the graveyard it ran against,
+     * if a running recording is interested in it.
+     *
+     * @param graveyardName the name of the graveyard, or null if there was none.
+     * @param siteCount the number of grave sites in the graveyard.
+     */
+    public void commit(String graveyardName, int siteCount) {
+        end();
+        if (shouldCommit()) {
+            this.graveyardName = graveyardName != null ? graveyardName : "";
+            this.siteCount = siteCount;
+            commit();
+        }
+    }
+}
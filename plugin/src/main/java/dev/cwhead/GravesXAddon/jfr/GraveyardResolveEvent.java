@@ -0,0 +1,15 @@
+package dev.cwhead.GravesXAddon.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted when the graveyard covering a death location is resolved.
+ * The graveyard name is empty if the death was outside every graveyard.
+ */
+@Name("dev.cwhead.graveyards.GraveyardResolve")
+@Label("Graveyard Resolve")
+@Description("Resolution of the graveyard covering a death location")
+public class GraveyardResolveEvent extends GraveyardEvent {
+}
@@ -0,0 +1,18 @@
+package dev.cwhead.GravesXAddon.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted when the occupancy change of a grave site is persisted.
+ */
+@Name("dev.cwhead.graveyards.OccupancyPersist")
+@Label("Occupancy Persist")
+@Description("Persistence of a grave site occupancy change")
+public class OccupancyPersistEvent extends GraveyardEvent {
+
+    @Label("Occupied")
+    @Description("The new occupancy status of the grave site")
+    public boolean occupied;
+}
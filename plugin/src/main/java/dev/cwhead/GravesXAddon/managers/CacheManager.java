@@ -0,0 +1,884 @@
+package dev.cwhead.GravesXAddon.managers;
+
+import dev.cwhead.GravesXAddon.Graveyards;
+import dev.cwhead.GravesXAddon.jfr.CacheLoadEvent;
+import dev.cwhead.GravesXAddon.jfr.OccupancyPersistEvent;
+import dev.cwhead.GravesXAddon.scheduler.TaskScheduler;
+import dev.cwhead.GravesXAddon.selection.SelectionStrategy;
+import dev.cwhead.GravesXAddon.storage.GraveyardFileWatcher;
+import dev.cwhead.GravesXAddon.storage.GraveyardStorage;
+import dev.cwhead.GravesXAddon.storage.SqliteStorage;
+import dev.cwhead.GravesXAddon.storage.StoredGraveyard;
+import dev.cwhead.GravesXAddon.storage.YamlStorage;
+import dev.cwhead.GravesXAddon.type.Graveyard;
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import dev.cwhead.GravesXAddon.util.GraveSiteReservation;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Manages the caching and loading of graveyard data from the configured {@link GraveyardStorage}.
+ * This includes handling grave sites and their occupancy status.
+ */
+public class CacheManager {
+
+    private static final long FLUSH_INTERVAL_TICKS = 20L;
+    private static final int COMPACT_INTERVAL_FLUSHES = 30;
+    private static final long RESERVATION_TIMEOUT_MILLIS = 10_000L;
+
+    private final AtomicReference<GraveyardCache> graveyardCache = new AtomicReference<>(GraveyardCache.empty());
+    // The occupied grave sites whose grave is known, by the UUID of the GravesX grave on them
+    private final Map<UUID, GraveRef> graves = new ConcurrentHashMap<>();
+    private final Graveyards plugin;
+    private final GraveyardStorage storage;
+    private final SelectionStrategy defaultStrategy;
+    private final Map<String, SelectionStrategy> strategies;
+    private final boolean overflowEnabled;
+    private final boolean overflowOtherWorlds;
+    // What the background occupancy writer wrote since the addon was enabled
+    private final AtomicLong flushedChangeCount = new AtomicLong();
+    private final AtomicLong compactedCount = new AtomicLong();
+    private final Object bindLock = new Object();
+    private TaskScheduler.Task occupancyTask;
+    private GraveyardFileWatcher fileWatcher;
+    private int flushesSinceCompact;
+
+    /**
+     * Constructs a CacheManager for the specified plugin instance, opening the storage
+     * selected in the configuration and starting the background occupancy writer.
+     *
+     * @param plugin the main plugin class instance used to access plugin resources.
+     */
+    public CacheManager(Graveyards plugin) {
+        this.plugin = plugin;
+        this.storage = createStorage(plugin);
+        this.defaultStrategy = parseStrategy(plugin, plugin.getConfig().getString("selection.default", "random"), SelectionStrategy.RANDOM);
+        this.strategies = loadStrategies(plugin, defaultStrategy);
+        this.overflowEnabled = plugin.getConfig().getBoolean("overflow.enabled", false);
+        this.overflowOtherWorlds = plugin.getConfig().getBoolean("overflow.other-worlds", true);
+        this.occupancyTask = plugin.getTaskScheduler().runAsyncTimer(this::flushOccupancy, FLUSH_INTERVAL_TICKS, FLUSH_INTERVAL_TICKS);
+
+        if (plugin.getConfig().getBoolean("hot-reload.enabled", false)) {
+            if (storage instanceof YamlStorage) {
+                YamlStorage yamlStorage = (YamlStorage) storage;
+                this.fileWatcher = new GraveyardFileWatcher(yamlStorage.getGraveyardFolder().toPath(),
+                        plugin.getConfig().getLong("hot-reload.debounce-millis", 500L),
+                        fileNames -> reloadGraveyardFiles(yamlStorage, fileNames), plugin.getLogger());
+                fileWatcher.start();
+            } else {
+                plugin.getLogger().warning("Hot reload only watches graveyard files and is not used with " + plugin.getConfig().getString("storage") + " storage.");
+            }
+        }
+    }
+
+    /**
+     * Creates the storage selected by the "storage" option of the configuration.
+     * The SQLite storage migrates existing graveyard files on its first load. The YAML storage
+     * it migrates from is only created while the Graveyards folder still exists, as creating it
+     * would bring back the folder a finished migration archived.
+     *
+     * @param plugin the main plugin class instance.
+     * @return the {@link GraveyardStorage}.
+     */
+    private static GraveyardStorage createStorage(Graveyards plugin) {
+        String type = plugin.getConfig().getString("storage", "yaml");
+        if ("sqlite".equalsIgnoreCase(type)) {
+            plugin.getLogger().info("Using SQLite graveyard storage.");
+            YamlStorage migrationSource = YamlStorage.hasGraveyardFolder(plugin.getDataFolder())
+                    ? new YamlStorage(plugin.getDataFolder(), plugin.getLogger()) : null;
+            return new SqliteStorage(plugin.getDataFolder(), plugin.getLogger(), migrationSource);
+        }
+        if (!"yaml".equalsIgnoreCase(type)) {
+            plugin.getLogger().warning("Unknown storage type " + type + ". Using YAML graveyard storage.");
+        }
+        return new YamlStorage(plugin.getDataFolder(), plugin.getLogger());
+    }
+
+    /**
+     * Reads the selection strategies configured for individual graveyards.
+     *
+     * @param plugin the main plugin class instance.
+     * @param defaultStrategy the strategy used for unknown strategy names.
+     * @return the strategies, keyed by graveyard name.
+     */
+    private static Map<String, SelectionStrategy> loadStrategies(Graveyards plugin, SelectionStrategy defaultStrategy) {
+        Map<String, SelectionStrategy> strategies = new HashMap<>();
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("selection.graveyards");
+        if (section != null) {
+            for (String graveyardName : section.getKeys(false)) {
+                strategies.put(graveyardName, parseStrategy(plugin, section.getString(graveyardName), defaultStrategy));
+            }
+        }
+        return strategies;
+    }
+
+    /**
+     * Parses a selection strategy from the configuration, warning about unknown names.
+     *
+     * @param plugin the main plugin class instance.
+     * @param name the configured name of the strategy.
+     * @param fallback the strategy used if the name is unknown.
+     * @return the {@link SelectionStrategy}.
+     */
+    private static SelectionStrategy parseStrategy(Graveyards plugin, String name, SelectionStrategy fallback) {
+        SelectionStrategy strategy = SelectionStrategy.fromConfigName(name);
+        if (strategy == null) {
+            plugin.getLogger().warning("Unknown grave site selection strategy " + name + ". Using " + fallback.getConfigName() + ".");
+            return fallback;
+        }
+        return strategy;
+    }
+
+    /**
+     * Loads all graveyards asynchronously from the storage into the cache.
+     * The new cache is built in full off the main thread and published with a single
+     * atomic swap, so event handlers never observe a partially loaded cache. Until then,
+     * the previous cache keeps being served.
+     * <p>
+     * Recorded occupancy changes are written to the storage before it is read. A grave site
+     * that is unchanged in the storage keeps its cached object, as with a hot reload, so
+     * reservations in progress and occupancy changes recorded while loading are kept.
+     */
+    public void loadAllGraveyards() {
+        plugin.getTaskScheduler().runAsync(() -> {
+            long start = System.nanoTime();
+            CacheLoadEvent loadEvent = new CacheLoadEvent();
+            loadEvent.begin();
+            plugin.getLogger().info("Loading Graveyards...");
+            GraveyardCache previousCache = graveyardCache.get();
+            storage.flush();
+            List<StoredGraveyard> storedGraveyards = storage.loadGraveyards();
+
+            Map<String, Graveyard> regions = new HashMap<>();
+            Map<String, List<GraveSite>> graveyards = new LinkedHashMap<>();
+            int siteCount = 0;
+            int parsedFileCount = 0;
+            for (StoredGraveyard storedGraveyard : storedGraveyards) {
+                String graveyardName = storedGraveyard.getGraveyard().getName();
+                regions.put(graveyardName, storedGraveyard.getGraveyard());
+                if (storedGraveyard.isParsed()) {
+                    parsedFileCount++;
+                }
+
+                // Bound to their world by the cache once the world is loaded
+                List<GraveSite> cachedGraveSites = previousCache.getGraveSites(graveyardName);
+                List<GraveSite> graveSites = mergeGraveSites(cachedGraveSites, storedGraveyard.getGraveSites());
+                graveyards.put(graveyardName, graveSites != null ? graveSites : cachedGraveSites);
+                siteCount += storedGraveyard.getGraveSites().size();
+                plugin.debugMessage("Loaded graveyard " + graveyardName + " with " + storedGraveyard.getGraveSites().size() + " grave sites", 2);
+            }
+
+            GraveyardCache loadedCache = GraveyardCache.of(regions, graveyards, Bukkit.getWorlds());
+            loadedCache.inheritAllocators(previousCache);
+            Map<UUID, GraveRef> loadedGraves = new HashMap<>();
+            graveyards.forEach((graveyardName, graveSites) -> indexGraves(loadedGraves, graveyardName, graveSites));
+            if (!graveyardCache.compareAndSet(previousCache, loadedCache)) {
+                // The cache was modified while loading, so the graveyards read may already be outdated
+                plugin.debugMessage("Graveyard cache changed while loading. Loading again.", 2);
+                loadAllGraveyards();
+                return;
+            }
+            bindGraveSites(null);
+            replaceGraves(loadedGraves);
+            plugin.getProfileManager().record("loadAllGraveyards", start);
+            loadEvent.end();
+            if (loadEvent.shouldCommit()) {
+                loadEvent.graveyardCount = graveyards.size();
+                loadEvent.siteCount = siteCount;
+                loadEvent.parsedFileCount = parsedFileCount;
+                loadEvent.commit();
+            }
+            int loadedSiteCount = siteCount;
+            plugin.getTaskScheduler().runGlobal(() -> {
+                plugin.getLogger().info("Loaded " + getGraveyardCacheSize() + " graveyards with " + loadedSiteCount + " grave sites.");
+            });
+        });
+    }
+
+    /**
+     * Parses changed graveyard files again and merges them into the live cache with a single
+     * atomic update, leaving every other graveyard untouched. A grave site that is unchanged
+     * in its file keeps its cached object, so its occupancy and any reservation in progress
+     * stay as they are; occupancy is only read from the file for new or moved grave sites.
+     * A graveyard whose file was deleted is removed. Nothing is published if the files match the cache,
+     * as after the addon's own writes.
+     * Called by the file watcher thread.
+     *
+     * @param yamlStorage the storage the graveyard files belong to.
+     * @param fileNames the names of the changed graveyard files.
+     */
+    private void reloadGraveyardFiles(YamlStorage yamlStorage, Set<String> fileNames) {
+        long start = System.nanoTime();
+        Map<String, StoredGraveyard> storedGraveyards = yamlStorage.loadGraveyardFiles(fileNames);
+        List<String> reloaded = new ArrayList<>();
+        graveyardCache.updateAndGet(cache -> {
+            reloaded.clear();
+            GraveyardCache updated = cache;
+            for (Map.Entry<String, StoredGraveyard> entry : storedGraveyards.entrySet()) {
+                StoredGraveyard storedGraveyard = entry.getValue();
+                if (storedGraveyard == null) {
+                    if (updated.getGraveyard(entry.getKey()) != null) {
+                        updated = updated.withoutGraveyard(entry.getKey());
+                        reloaded.add(entry.getKey());
+                    }
+                    continue;
+                }
+
+                Graveyard graveyard = storedGraveyard.getGraveyard();
+                List<GraveSite> graveSites = mergeGraveSites(updated.getGraveSites(graveyard.getName()), storedGraveyard.getGraveSites());
+                if (graveSites != null || !isSameRegion(updated.getGraveyard(graveyard.getName()), graveyard)) {
+                    updated = updated.withGraveyard(graveyard, graveSites != null ? graveSites : updated.getGraveSites(graveyard.getName()));
+                    reloaded.add(graveyard.getName());
+                }
+            }
+            return updated;
+        });
+
+        if (!reloaded.isEmpty()) {
+            bindGraveSites(reloaded);
+            for (String graveyardName : reloaded) {
+                indexGraves(graves, graveyardName, getGraveSites(graveyardName));
+            }
+            plugin.getProfileManager().record("hotReload", start);
+            plugin.getLogger().info("Reloaded graveyards from changed files: " + String.join(", ", reloaded));
+        }
+    }
+
+    /**
+     * Merges the grave sites read from the storage with the cached grave sites of the graveyard.
+     *
+     * @param cached the cached grave sites of the graveyard.
+     * @param stored the grave sites read from the storage.
+     * @return the merged grave sites, reusing the cached object of every unchanged grave site,
+     *         or null if the storage holds exactly the cached grave sites.
+     */
+    private static List<GraveSite> mergeGraveSites(List<GraveSite> cached, List<GraveSite> stored) {
+        Map<String, GraveSite> cachedById = new HashMap<>();
+        for (GraveSite graveSite : cached) {
+            cachedById.put(graveSite.getId(), graveSite);
+        }
+
+        List<GraveSite> merged = new ArrayList<>(stored.size());
+        boolean changed = cached.size() != stored.size();
+        for (GraveSite graveSite : stored) {
+            GraveSite existing = cachedById.get(graveSite.getId());
+            if (existing != null && Objects.equals(existing.getWorldName(), graveSite.getWorldName())
+                    && existing.getBlockX() == graveSite.getBlockX() && existing.getBlockY() == graveSite.getBlockY()
+                    && existing.getBlockZ() == graveSite.getBlockZ()) {
+                merged.add(existing);
+            } else {
+                merged.add(graveSite);
+                changed = true;
+            }
+        }
+        return changed ? merged : null;
+    }
+
+    /**
+     * Checks if a cached region and a region read from a file describe the same area.
+     *
+     * @param cached the cached region, or null if the graveyard is not cached.
+     * @param stored the region read from the file.
+     * @return true if both regions have the same world, corner blocks and margin.
+     */
+    private static boolean isSameRegion(Graveyard cached, Graveyard stored) {
+        if (cached == null) {
+            return false;
+        }
+        return Objects.equals(cached.getWorldName(), stored.getWorldName())
+                && cached.getMargin() == stored.getMargin()
+                && isSameBlock(cached.getPos1(), stored.getPos1())
+                && isSameBlock(cached.getPos2(), stored.getPos2());
+    }
+
+    private static boolean isSameBlock(Location a, Location b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getBlockX() == b.getBlockX() && a.getBlockY() == b.getBlockY() && a.getBlockZ() == b.getBlockZ();
+    }
+
+    /**
+     * Builds the cache partition of a world that was loaded, binding the grave sites in it.
+     *
+     * @param world the loaded world.
+     */
+    public void bindWorld(World world) {
+        graveyardCache.updateAndGet(cache -> cache.withWorld(world));
+        bindGraveSites(null);
+        plugin.debugMessage("Bound graveyard cache partition for world " + world.getName(), 2);
+    }
+
+    /**
+     * Drops the cache partition of a world that is being unloaded, releasing the grave sites
+     * in it from the world so it can be collected.
+     *
+     * @param world the world being unloaded.
+     */
+    public void unbindWorld(World world) {
+        graveyardCache.updateAndGet(cache -> cache.withoutWorld(world.getName()));
+        bindGraveSites(null);
+        plugin.debugMessage("Dropped graveyard cache partition for world " + world.getName(), 2);
+    }
+
+    /**
+     * Binds the grave sites of the published cache version to the worlds it has a partition for.
+     * Cache versions share their grave sites, so they are only bound after a version was published,
+     * never by the functions building it, which may run again when another thread published first.
+     * The latest version is bound under a lock, so a slower thread cannot bind grave sites to a
+     * world that a newer version has already dropped.
+     *
+     * @param graveyardNames the names of the graveyards whose grave sites to bind, or null for every graveyard.
+     */
+    private void bindGraveSites(Collection<String> graveyardNames) {
+        synchronized (bindLock) {
+            graveyardCache.get().bindGraveSites(graveyardNames);
+        }
+    }
+
+    /**
+     * Reserves a free grave site of the specified graveyard, chosen with the graveyard's
+     * selection strategy. The reservation expires after {@value #RESERVATION_TIMEOUT_MILLIS}
+     * milliseconds unless it is committed with {@link #commitGraveSite(String, GraveSiteReservation, UUID)}.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param near the location the grave site should be close to, usually where the player died.
+     * @param random the random number generator used by random choices.
+     * @return the {@link GraveSiteReservation} of the chosen grave site, or null if no grave site is free.
+     */
+    public GraveSiteReservation reserveGraveSite(String graveyardName, Location near, Random random) {
+        return graveyardCache.get().reserveGraveSite(graveyardName, getSelectionStrategy(graveyardName), near, random, RESERVATION_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Reserves a free grave site of the specified graveyard for each of several players who died
+     * at once, choosing all of them in a single pass over the graveyard's free grave sites.
+     * The reservations expire like those of {@link #reserveGraveSite(String, Location, Random)}.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param nears the locations the grave sites should be close to, usually where the players died.
+     * @param random the random number generator used by random choices.
+     * @return the reservations in the order of the locations, with null for each location no grave site was free for.
+     */
+    public List<GraveSiteReservation> reserveGraveSites(String graveyardName, List<Location> nears, Random random) {
+        return graveyardCache.get().reserveGraveSites(graveyardName, getSelectionStrategy(graveyardName), nears, random, RESERVATION_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Finds the graveyard a grave is sent to when the graveyard a player died in is full:
+     * the nearest graveyard with unoccupied grave sites, in the same world first.
+     * The graveyards with free capacity are kept in an index updated on every occupancy change,
+     * so this never scans every graveyard.
+     *
+     * @param near the location the player died at.
+     * @param excluded the names of the graveyards already tried, including the full graveyard.
+     * @return the name of the overflow graveyard, or null if overflow is disabled or every graveyard is full.
+     */
+    public String findOverflowGraveyard(Location near, Set<String> excluded) {
+        if (!overflowEnabled) {
+            return null;
+        }
+        return graveyardCache.get().findGraveyardWithCapacity(near, excluded, overflowOtherWorlds);
+    }
+
+    /**
+     * Gets the selection strategy configured for a graveyard.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @return the {@link SelectionStrategy} of the graveyard, or the default strategy.
+     */
+    public SelectionStrategy getSelectionStrategy(String graveyardName) {
+        return strategies.getOrDefault(graveyardName, defaultStrategy);
+    }
+
+    /**
+     * Commits the reservation of a grave site once its grave was created, marking it as occupied
+     * by that grave and recording the change in the storage. The grave site can then be released
+     * with {@link #releaseGrave(UUID)}.
+     *
+     * @param graveyardName the name of the graveyard containing the grave site.
+     * @param reservation the reservation of the grave site.
+     * @param graveUUID the UUID of the GravesX grave created on the grave site, or null if it is not known.
+     * @return true if the reservation was committed; false if the grave site no longer holds the reservation.
+     */
+    public boolean commitGraveSite(String graveyardName, GraveSiteReservation reservation, UUID graveUUID) {
+        if (!reservation.commit()) {
+            return false;
+        }
+        updateGraveSiteOccupancy(graveyardName, reservation.getGraveSite(), true, graveUUID);
+        return true;
+    }
+
+    /**
+     * Marks the grave site occupied by a GravesX grave as free, after the grave was looted or destroyed.
+     * The grave site is found by the grave UUID alone, so the location reported for the grave does not matter.
+     *
+     * @param graveUUID the UUID of the GravesX grave.
+     * @return true if the grave site was released; false if no grave site is known to hold the grave,
+     *         such as for graves created before their grave sites recorded the grave UUID.
+     */
+    public boolean releaseGrave(UUID graveUUID) {
+        GraveRef graveRef = graves.get(graveUUID);
+        if (graveRef == null) {
+            return false;
+        }
+        GraveSite graveSite = graveRef.graveSite;
+        if (!graveSite.isOccupied() || !graveUUID.equals(graveSite.getGraveUUID())) {
+            // The grave site was freed or given another grave since
+            graves.remove(graveUUID, graveRef);
+            return false;
+        }
+        updateGraveSiteOccupancy(graveRef.graveyardName, graveSite, false);
+        return true;
+    }
+
+    /**
+     * Releases the reservation of a grave site whose grave could not be created.
+     * Nothing is written to the storage, as a reservation is never persisted.
+     *
+     * @param graveyardName the name of the graveyard containing the grave site.
+     * @param reservation the reservation of the grave site.
+     */
+    public void releaseGraveSite(String graveyardName, GraveSiteReservation reservation) {
+        GraveSite graveSite = reservation.getGraveSite();
+        if (reservation.release()) {
+            graveyardCache.get().updateGraveSite(graveyardName, graveSite);
+            plugin.debugMessage("Released reservation of grave site " + graveSite.getLocation() + " in " + graveyardName, 2);
+        }
+    }
+
+    /**
+     * Updates the occupancy status of a grave site in the specified graveyard.
+     * The change is recorded by the storage and written in the background.
+     *
+     * @param graveyardName the name of the graveyard containing the grave site.
+     * @param location the location of the grave site to be updated.
+     * @param occupied the new occupancy status of the grave site.
+     */
+    public void updateGraveSiteOccupancy(String graveyardName, Location location, boolean occupied) {
+        GraveSite graveSite = getGraveSiteByLocation(graveyardName, location);
+
+        if (graveSite != null) {
+            updateGraveSiteOccupancy(graveyardName, graveSite, occupied);
+        } else {
+            plugin.debugMessage("Grave site location " + location + " not found in " + graveyardName, 2);
+        }
+    }
+
+    /**
+     * Updates the occupancy status of an already resolved grave site in the specified graveyard.
+     * The change is recorded by the storage and written in the background.
+     *
+     * @param graveyardName the name of the graveyard containing the grave site.
+     * @param graveSite the grave site to be updated.
+     * @param occupied the new occupancy status of the grave site.
+     */
+    public void updateGraveSiteOccupancy(String graveyardName, GraveSite graveSite, boolean occupied) {
+        updateGraveSiteOccupancy(graveyardName, graveSite, occupied, null);
+    }
+
+    /**
+     * Updates the occupancy status of an already resolved grave site, recording the grave occupying it.
+     * A grave site marked free forgets its grave; a grave site marked occupied without a grave UUID
+     * keeps the grave it already had.
+     *
+     * @param graveyardName the name of the graveyard containing the grave site.
+     * @param graveSite the grave site to be updated.
+     * @param occupied the new occupancy status of the grave site.
+     * @param graveUUID the UUID of the GravesX grave now on the grave site, or null if it is not known.
+     */
+    public void updateGraveSiteOccupancy(String graveyardName, GraveSite graveSite, boolean occupied, UUID graveUUID) {
+        long start = System.nanoTime();
+        OccupancyPersistEvent persistEvent = new OccupancyPersistEvent();
+        persistEvent.begin();
+        UUID previousGraveUUID = graveSite.getGraveUUID();
+        graveSite.setOccupied(occupied);
+        if (occupied && graveUUID != null) {
+            graveSite.setGraveUUID(graveUUID);
+        }
+        if (previousGraveUUID != null && !previousGraveUUID.equals(graveSite.getGraveUUID())) {
+            forgetGrave(previousGraveUUID, graveSite);
+        }
+        if (graveSite.getGraveUUID() != null) {
+            graves.put(graveSite.getGraveUUID(), new GraveRef(graveyardName, graveSite));
+        }
+        graveyardCache.get().updateGraveSite(graveyardName, graveSite);
+        storage.recordOccupancy(graveyardName, graveSite, occupied);
+        persistEvent.occupied = occupied;
+        persistEvent.commit(graveyardName, getGraveSites(graveyardName).size());
+        plugin.getProfileManager().record("occupancyRecord", start);
+        plugin.debugMessage("Grave site location " + graveSite.getLocation() + " found and updated in " + graveyardName, 1);
+    }
+
+    /**
+     * Writes pending occupancy changes to the storage, running its maintenance
+     * every {@value #COMPACT_INTERVAL_FLUSHES} flushes.
+     * This runs asynchronously on a timer.
+     */
+    private void flushOccupancy() {
+        long start = System.nanoTime();
+        int written = storage.flush();
+        flushedChangeCount.addAndGet(written);
+        if (written > 0) {
+            plugin.getProfileManager().record("occupancyFlush", start);
+            plugin.debugMessage("Wrote " + written + " grave site occupancy changes to the storage", 2);
+        }
+
+        if (++flushesSinceCompact >= COMPACT_INTERVAL_FLUSHES) {
+            flushesSinceCompact = 0;
+            start = System.nanoTime();
+            int compacted = storage.compact();
+            compactedCount.addAndGet(compacted);
+            if (compacted > 0) {
+                plugin.getProfileManager().record("occupancyCompact", start);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of occupancy changes the background occupancy writer has written to the storage.
+     *
+     * @return the number of changes written.
+     */
+    public long getFlushedChangeCount() {
+        return flushedChangeCount.get();
+    }
+
+    /**
+     * Gets the number of bytes the storage has written for occupancy changes.
+     *
+     * @return the number of bytes written, or -1 if the storage does not count them.
+     */
+    public long getWrittenBytes() {
+        return storage.getWrittenBytes();
+    }
+
+    /**
+     * Gets the amount of work done by the periodic maintenance of the storage, which for
+     * YAML storage is the number of graveyard files rewritten from the occupancy journal.
+     *
+     * @return the amount of work done.
+     */
+    public long getCompactedCount() {
+        return compactedCount.get();
+    }
+
+    /**
+     * Stops the graveyard file watcher and the background occupancy writer, persists every pending occupancy change
+     * and closes the storage. Called when the plugin is disabled.
+     */
+    public void shutdown() {
+        if (fileWatcher != null) {
+            fileWatcher.stop();
+            fileWatcher = null;
+        }
+        if (occupancyTask != null) {
+            occupancyTask.cancel();
+            occupancyTask = null;
+        }
+        storage.close();
+    }
+
+    /**
+     * Retrieves the list of grave sites for a specified graveyard.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @return an unmodifiable list of {@link GraveSite} objects for the specified graveyard.
+     */
+    public List<GraveSite> getGraveSites(String graveyardName) {
+        return graveyardCache.get().getGraveSites(graveyardName);
+    }
+
+    /**
+     * Gets the area of a graveyard.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @return the {@link Graveyard}, or null if no graveyard has that name.
+     */
+    public Graveyard getGraveyard(String graveyardName) {
+        return graveyardCache.get().getGraveyard(graveyardName);
+    }
+
+    /**
+     * Checks if a graveyard with the specified name exists.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @return true if the graveyard is cached, false otherwise.
+     */
+    public boolean graveyardExists(String graveyardName) {
+        return getGraveyard(graveyardName) != null;
+    }
+
+    /**
+     * Checks if a graveyard with the specified name is cached or stored.
+     * Unlike {@link #graveyardExists(String)} this also finds graveyards that are stored
+     * but not published yet, such as while the graveyards are still being loaded.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @return true if the graveyard is cached or stored, false otherwise.
+     */
+    public boolean graveyardExistsOrStored(String graveyardName) {
+        return graveyardExists(graveyardName) || storage.hasGraveyard(graveyardName);
+    }
+
+    /**
+     * Creates a graveyard by storing it and publishing a new cache version that contains it.
+     * No other graveyard is read or written.
+     *
+     * @param graveyard the {@link Graveyard} to create.
+     * @return true if the graveyard was stored, false otherwise.
+     */
+    public boolean createGraveyard(Graveyard graveyard) {
+        if (!storage.saveGraveyard(graveyard)) {
+            return false;
+        }
+        graveyardCache.updateAndGet(cache -> cache.withGraveyard(graveyard));
+        return true;
+    }
+
+    /**
+     * Deletes a graveyard from the storage and publishes a new cache version without it.
+     *
+     * @param graveyardName the name of the graveyard to delete.
+     * @return true if the graveyard was deleted, false otherwise.
+     */
+    public boolean deleteGraveyard(String graveyardName) {
+        if (!storage.deleteGraveyard(graveyardName)) {
+            return false;
+        }
+        GraveyardCache previous = graveyardCache.getAndUpdate(cache -> cache.withoutGraveyard(graveyardName));
+        for (GraveSite graveSite : previous.getGraveSites(graveyardName)) {
+            forgetGrave(graveSite.getGraveUUID(), graveSite);
+        }
+        return true;
+    }
+
+    /**
+     * Adds a grave site to the specified graveyard by storing it and publishing
+     * a new cache version that contains it.
+     * The grave site is given the next key of a counter the storage keeps for the graveyard,
+     * so keys of removed grave sites are never reused.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param location the location of the new grave site.
+     * @return the added {@link GraveSite}, or null if it could not be stored.
+     */
+    public GraveSite addGraveSite(String graveyardName, Location location) {
+        GraveSite graveSite = storage.addGraveSite(graveyardName, location);
+        if (graveSite != null) {
+            graveyardCache.updateAndGet(cache -> cache.withGraveSite(graveyardName, graveSite));
+            bindGraveSites(Collections.singleton(graveyardName));
+        }
+        return graveSite;
+    }
+
+    /**
+     * Adds several grave sites to the specified graveyard with a single write to the storage,
+     * then publishes one new cache version that contains all of them.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param locations the locations of the new grave sites.
+     * @return the added grave sites, or null if they could not be stored.
+     */
+    public List<GraveSite> addGraveSites(String graveyardName, List<Location> locations) {
+        List<GraveSite> graveSites = storage.addGraveSites(graveyardName, locations);
+        if (graveSites != null) {
+            graveyardCache.updateAndGet(cache -> cache.withGraveSites(graveyardName, graveSites));
+            bindGraveSites(Collections.singleton(graveyardName));
+        }
+        return graveSites;
+    }
+
+    /**
+     * Removes a grave site from the specified graveyard by deleting it from the storage
+     * and publishing a new cache version without it.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param graveSiteId the key of the grave site.
+     * @return true if the grave site was removed, false if it does not exist or could not be deleted.
+     */
+    public boolean removeGraveSite(String graveyardName, String graveSiteId) {
+        if (!storage.removeGraveSite(graveyardName, graveSiteId)) {
+            return false;
+        }
+        GraveyardCache previous = graveyardCache.getAndUpdate(cache -> cache.withoutGraveSite(graveyardName, graveSiteId));
+        for (GraveSite graveSite : previous.getGraveSites(graveyardName)) {
+            if (graveSiteId.equals(graveSite.getId())) {
+                forgetGrave(graveSite.getGraveUUID(), graveSite);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indexes the graves known to be on the grave sites of a graveyard, so they can be released by UUID.
+     *
+     * @param index the index to add the graves to.
+     * @param graveyardName the name of the graveyard.
+     * @param graveSites the grave sites of the graveyard.
+     */
+    private static void indexGraves(Map<UUID, GraveRef> index, String graveyardName, List<GraveSite> graveSites) {
+        for (GraveSite graveSite : graveSites) {
+            UUID graveUUID = graveSite.getGraveUUID();
+            if (graveUUID != null && graveSite.isOccupied()) {
+                index.put(graveUUID, new GraveRef(graveyardName, graveSite));
+            }
+        }
+    }
+
+    /**
+     * Replaces the indexed graves with those of a newly published cache. The new graves are added
+     * before the graves of grave sites the cache no longer holds are dropped, so the live index is
+     * never empty and a grave looted meanwhile is still found by {@link #releaseGrave(UUID)}.
+     * A grave recorded since the index was built is kept.
+     *
+     * @param loadedGraves the graves on the grave sites of the new cache.
+     */
+    private void replaceGraves(Map<UUID, GraveRef> loadedGraves) {
+        graves.putAll(loadedGraves);
+        for (Map.Entry<UUID, GraveRef> entry : graves.entrySet()) {
+            GraveRef graveRef = entry.getValue();
+            if (loadedGraves.get(entry.getKey()) != graveRef && !isCached(entry.getKey(), graveRef)) {
+                graves.remove(entry.getKey(), graveRef);
+            }
+        }
+    }
+
+    /**
+     * Checks if a grave is on a grave site of the current cache.
+     *
+     * @param graveUUID the UUID of the grave.
+     * @param graveRef the grave site the grave is indexed on.
+     * @return true if the current cache holds the grave site and the grave site holds the grave.
+     */
+    private boolean isCached(UUID graveUUID, GraveRef graveRef) {
+        GraveSite graveSite = graveRef.graveSite;
+        return graveSite.isOccupied() && graveUUID.equals(graveSite.getGraveUUID())
+                && graveyardCache.get().getGraveSites(graveRef.graveyardName).contains(graveSite);
+    }
+
+    /**
+     * Removes a grave from the index if it still points at the specified grave site.
+     *
+     * @param graveUUID the UUID of the grave, or null to do nothing.
+     * @param graveSite the grave site the grave was on.
+     */
+    private void forgetGrave(UUID graveUUID, GraveSite graveSite) {
+        if (graveUUID != null) {
+            graves.computeIfPresent(graveUUID, (uuid, graveRef) -> graveRef.graveSite == graveSite ? null : graveRef);
+        }
+    }
+
+    /**
+     * Retrieves the name of the graveyard covering the specified location.
+     * The lookup is answered from the spatial index, so locations far from
+     * any graveyard are rejected without comparing against any graveyard region.
+     *
+     * @param location the location to check.
+     * @return the name of the graveyard, or null if no graveyard is found.
+     */
+    public String getGraveyardNameAtLocation(Location location) {
+        return graveyardCache.get().getGraveyardNameAtLocation(location);
+    }
+
+    /**
+     * Retrieves a specific grave site by its block location within the specified graveyard.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param location the location of the grave site.
+     * @return the {@link GraveSite} if found, or null if not found.
+     */
+    public GraveSite getGraveSiteByLocation(String graveyardName, Location location) {
+        return graveyardCache.get().getGraveSiteByLocation(graveyardName, location);
+    }
+
+    /**
+     * Retrieves a map of all graveyards and their corresponding grave sites.
+     * The map is an immutable view of the current cache version and is not copied.
+     *
+     * @return an unmodifiable map where keys are graveyard names and values are lists of {@link GraveSite} objects.
+     */
+    public Map<String, List<GraveSite>> getAllGraveyards() {
+        return graveyardCache.get().getGraveyards();
+    }
+
+    /**
+     * Completes the name of a cached graveyard from the in-memory prefix index.
+     *
+     * @param prefix the typed prefix, matched ignoring case.
+     * @return the names of the graveyards starting with the prefix.
+     */
+    public List<String> completeGraveyardName(String prefix) {
+        return graveyardCache.get().completeGraveyardName(prefix);
+    }
+
+    /**
+     * Completes the key of a grave site within a cached graveyard from the in-memory prefix index.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param prefix the typed prefix, matched ignoring case.
+     * @return the keys of the graveyard's grave sites starting with the prefix.
+     */
+    public List<String> completeGraveSiteId(String graveyardName, String prefix) {
+        return graveyardCache.get().completeGraveSiteId(graveyardName, prefix);
+    }
+
+    /**
+     * Retrieves the current version of the graveyard cache.
+     * Every lookup on the returned version sees the same graveyards, even if
+     * a newer version is published in the meantime.
+     *
+     * @return the current {@link GraveyardCache}.
+     */
+    public GraveyardCache getSnapshot() {
+        return graveyardCache.get();
+    }
+
+    /**
+     * Reloads the cache by loading all graveyards again.
+     * The current cache keeps being served until the reloaded one is published.
+     */
+    public void reloadCache() {
+        loadAllGraveyards();
+    }
+
+    /**
+     * Gets the number of graveyards currently cached.
+     *
+     * @return the size of the graveyard cache.
+     */
+    public int getGraveyardCacheSize() {
+        return graveyardCache.get().size();
+    }
+
+    /**
+     * The grave site a GravesX grave is on, with the graveyard containing it.
+     */
+    private static final class GraveRef {
+
+        private final String graveyardName;
+        private final GraveSite graveSite;
+
+        private GraveRef(String graveyardName, GraveSite graveSite) {
+            this.graveyardName = graveyardName;
+            this.graveSite = graveSite;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package dev.cwhead.GravesXAddon.managers;
+
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import dev.cwhead.GravesXAddon.util.KdTree;
+import org.bukkit.Location;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks how many unoccupied grave sites every graveyard has in each loaded world, and finds
+ * the nearest graveyard that still has one.
+ * The centres of the graveyards of each world are stored in a {@link KdTree} whose available
+ * points are the graveyards with free capacity, so finding one costs O(log n) in the number of
+ * graveyards, and a change of occupancy only touches the tree when a graveyard becomes full
+ * or stops being full.
+ * <p>
+ * Reservations do not count against the capacity, as they are short-lived; a graveyard whose
+ * free grave sites are all reserved may still be found. All methods synchronize on the index.
+ */
+final class CapacityIndex {
+
+    private final Map<String, WorldTree> trees = new HashMap<>();
+    private final Map<String, Map<String, Capacity>> capacities = new HashMap<>();
+    private final Map<GraveSite, Boolean> countedFree = new IdentityHashMap<>();
+
+    /**
+     * Builds the index from the current occupancy of the grave sites.
+     *
+     * @param centres the centre of each graveyard's box, keyed by world name and then by graveyard name.
+     * @param graveyards the grave sites of each graveyard, keyed by graveyard name.
+     */
+    CapacityIndex(Map<String, Map<String, double[]>> centres, Map<String, List<GraveSite>> graveyards) {
+        for (Map.Entry<String, Map<String, double[]>> worldEntry : centres.entrySet()) {
+            String worldName = worldEntry.getKey();
+            List<String> names = new ArrayList<>();
+            List<double[]> points = new ArrayList<>();
+            for (Map.Entry<String, double[]> entry : worldEntry.getValue().entrySet()) {
+                names.add(entry.getKey());
+                points.add(entry.getValue());
+            }
+
+            WorldTree tree = new WorldTree(new KdTree(points.toArray(new double[0][])), names.toArray(new String[0]));
+            trees.put(worldName, tree);
+            for (int point = 0; point < tree.names.length; point++) {
+                capacities.computeIfAbsent(tree.names[point], k -> new HashMap<>()).put(worldName, new Capacity(tree, point));
+            }
+        }
+
+        for (Map.Entry<String, List<GraveSite>> entry : graveyards.entrySet()) {
+            Map<String, Capacity> worldCapacities = capacities.get(entry.getKey());
+            if (worldCapacities == null) {
+                continue;
+            }
+            for (GraveSite graveSite : entry.getValue()) {
+                Capacity capacity = worldCapacities.get(graveSite.getWorldName());
+                if (capacity != null) {
+                    boolean free = !graveSite.isOccupied();
+                    countedFree.put(graveSite, free);
+                    if (free) {
+                        capacity.add(1);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Synchronizes the capacity of a graveyard with the current occupancy of one of its grave sites.
+     * Grave sites that are not part of this index are ignored, and repeated calls without a change do nothing.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param graveSite the grave site whose occupancy may have changed.
+     */
+    synchronized void update(String graveyardName, GraveSite graveSite) {
+        Boolean wasFree = countedFree.get(graveSite);
+        boolean free = !graveSite.isOccupied();
+        if (wasFree == null || wasFree == free) {
+            return;
+        }
+        countedFree.put(graveSite, free);
+        capacities.get(graveyardName).get(graveSite.getWorldName()).add(free ? 1 : -1);
+    }
+
+    /**
+     * Finds the graveyard closest to a location that has unoccupied grave sites, trying the
+     * world of the location first.
+     *
+     * @param near the location, usually where the player died.
+     * @param excluded the names of the graveyards that must not be returned.
+     * @param otherWorlds true to fall back to graveyards in other worlds.
+     * @return the name of the graveyard, or null if no graveyard has free capacity.
+     */
+    synchronized String findNearest(Location near, Set<String> excluded, boolean otherWorlds) {
+        WorldTree nearTree = near.getWorld() != null ? trees.get(near.getWorld().getName()) : null;
+        if (nearTree != null) {
+            String name = nearTree.nearest(near, excluded);
+            if (name != null || !otherWorlds) {
+                return name;
+            }
+        }
+        if (!otherWorlds) {
+            return null;
+        }
+
+        for (WorldTree tree : trees.values()) {
+            if (tree != nearTree && tree.kdTree.hasAvailable()) {
+                String name = tree.nearest(near, excluded);
+                if (name != null) {
+                    return name;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The k-d tree over the graveyard centres of one world, with the graveyard name of each of its points.
+     */
+    private static final class WorldTree {
+
+        private final KdTree kdTree;
+        private final String[] names;
+
+        private WorldTree(KdTree kdTree, String[] names) {
+            this.kdTree = kdTree;
+            this.names = names;
+        }
+
+        private String nearest(Location near, Set<String> excluded) {
+            int point = kdTree.nearest(near.getX(), near.getY(), near.getZ(), candidate -> !excluded.contains(names[candidate]));
+            return point >= 0 ? names[point] : null;
+        }
+    }
+
+    /**
+     * The number of unoccupied grave sites of a graveyard within one world.
+     */
+    private static final class Capacity {
+
+        private final WorldTree tree;
+        private final int point;
+        private int free;
+
+        private Capacity(WorldTree tree, int point) {
+            this.tree = tree;
+            this.point = point;
+        }
+
+        private void add(int delta) {
+            free += delta;
+            tree.kdTree.setAvailable(point, free > 0);
+        }
+    }
+}
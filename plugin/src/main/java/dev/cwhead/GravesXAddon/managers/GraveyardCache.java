@@ -0,0 +1,823 @@
+package dev.cwhead.GravesXAddon.managers;
+
+import dev.cwhead.GravesXAddon.selection.GraveSiteAllocator;
+import dev.cwhead.GravesXAddon.selection.SelectionStrategy;
+import dev.cwhead.GravesXAddon.type.Graveyard;
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import dev.cwhead.GravesXAddon.util.GraveSiteIndex;
+import dev.cwhead.GravesXAddon.util.GraveSiteReservation;
+import dev.cwhead.GravesXAddon.util.PrefixIndex;
+import dev.cwhead.GravesXAddon.util.SpatialIndex;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * An immutable version of the graveyard cache, holding every graveyard's region and grave sites
+ * together with the indexes built from them.
+ * A new version is built and then published by the {@link CacheManager}, so readers always
+ * see graveyards and indexes that belong together. Versions derived from an existing one
+ * share every index the change does not affect.
+ * <p>
+ * The indexes are partitioned by world. Only loaded worlds have a partition, so lookups only
+ * touch the partition of the location's world and unloaded worlds cost no index memory.
+ * Grave sites are shared with older versions, so building a version never changes them;
+ * the {@link CacheManager} binds the grave sites of a version to its worlds once the version
+ * was published, with {@link #bindGraveSites(Collection)}.
+ * <p>
+ * The only state a version changes after it was built are the allocators tracking the free
+ * grave sites of each graveyard, which are created when a grave site is first reserved,
+ * the {@link CapacityIndex} of the graveyards with free grave sites, which is built the first
+ * time a full graveyard needs an overflow graveyard, and the {@link GraveyardSummary} of each
+ * graveyard, which is built when its information is first shown. A derived version keeps the
+ * allocators of every graveyard whose grave sites it does not change, so strategies such as
+ * round robin continue where they left off.
+ */
+public final class GraveyardCache {
+
+    private final Map<String, Graveyard> regions;
+    private final Map<String, List<GraveSite>> graveyards;
+    private final Map<String, WorldPartition> partitions;
+    private final PrefixIndex graveyardNames;
+    private final Map<String, PrefixIndex> graveSiteIds;
+    private final Map<String, GraveSiteAllocator> allocators = new ConcurrentHashMap<>();
+    private final Map<String, GraveyardSummary> summaries = new ConcurrentHashMap<>();
+    private volatile CapacityIndex capacityIndex;
+
+    private GraveyardCache(Map<String, Graveyard> regions, Map<String, List<GraveSite>> graveyards, Map<String, WorldPartition> partitions,
+                           PrefixIndex graveyardNames, Map<String, PrefixIndex> graveSiteIds, Map<String, GraveSiteAllocator> allocators) {
+        this.regions = regions;
+        this.graveyards = graveyards;
+        this.partitions = partitions;
+        this.graveyardNames = graveyardNames;
+        this.graveSiteIds = graveSiteIds;
+        this.allocators.putAll(allocators);
+    }
+
+    /**
+     * Builds a cache version from the regions and grave sites of each graveyard.
+     * Each graveyard covers the box spanned by its pos1 and pos2 blocks, and a box around every
+     * grave site outside of it, each extended by the graveyard's margin on every side.
+     * Graveyards without a region cover the boxes around their grave sites only.
+     * <p>
+     * A partition is built for each of the specified worlds.
+     *
+     * @param regions the {@link Graveyard} regions, keyed by graveyard name.
+     * @param graveyards the grave sites of each graveyard, keyed by graveyard name.
+     * @param worlds the currently loaded worlds.
+     * @return the new {@link GraveyardCache}.
+     */
+    public static GraveyardCache of(Map<String, Graveyard> regions, Map<String, List<GraveSite>> graveyards, Collection<World> worlds) {
+        Map<String, List<GraveSite>> graveyardsCopy = new LinkedHashMap<>();
+        for (Map.Entry<String, List<GraveSite>> entry : graveyards.entrySet()) {
+            graveyardsCopy.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+        }
+        Map<String, Graveyard> regionsCopy = Collections.unmodifiableMap(new HashMap<>(regions));
+
+        Map<String, World> loadedWorlds = new HashMap<>();
+        for (World world : worlds) {
+            loadedWorlds.put(world.getName(), world);
+        }
+
+        Map<String, Map<String, List<GraveSite>>> worldGraveSites = new HashMap<>();
+        for (Map.Entry<String, List<GraveSite>> entry : graveyardsCopy.entrySet()) {
+            for (GraveSite graveSite : entry.getValue()) {
+                if (!loadedWorlds.containsKey(graveSite.getWorldName())) {
+                    continue;
+                }
+                worldGraveSites.computeIfAbsent(graveSite.getWorldName(), k -> new LinkedHashMap<>())
+                        .computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+                        .add(graveSite);
+            }
+        }
+
+        Map<String, WorldPartition> partitions = new HashMap<>();
+        for (World world : loadedWorlds.values()) {
+            partitions.put(world.getName(), WorldPartition.build(world, regionsCopy,
+                    worldGraveSites.getOrDefault(world.getName(), Collections.emptyMap())));
+        }
+        Map<String, PrefixIndex> graveSiteIds = new HashMap<>();
+        for (Map.Entry<String, List<GraveSite>> entry : graveyardsCopy.entrySet()) {
+            graveSiteIds.put(entry.getKey(), indexGraveSiteIds(entry.getValue()));
+        }
+        return new GraveyardCache(regionsCopy, Collections.unmodifiableMap(graveyardsCopy), partitions,
+                PrefixIndex.of(graveyardsCopy.keySet()), graveSiteIds, Collections.emptyMap());
+    }
+
+    /**
+     * Takes over the allocators of an older version for every graveyard that has exactly the
+     * same grave sites in both versions, with the same worlds loaded, so a full reload does not
+     * reset the position of round robin selection or the usage order of least recently used
+     * selection. Must be called before this version is published.
+     *
+     * @param previous the version this one replaces.
+     */
+    void inheritAllocators(GraveyardCache previous) {
+        if (!partitions.keySet().equals(previous.partitions.keySet())) {
+            return;
+        }
+        for (Map.Entry<String, GraveSiteAllocator> entry : previous.allocators.entrySet()) {
+            List<GraveSite> graveSites = graveyards.get(entry.getKey());
+            if (graveSites != null && isSameGraveSites(graveSites, previous.getGraveSites(entry.getKey()))) {
+                allocators.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static boolean isSameGraveSites(List<GraveSite> graveSites, List<GraveSite> previousGraveSites) {
+        if (graveSites.size() != previousGraveSites.size()) {
+            return false;
+        }
+        for (int i = 0; i < graveSites.size(); i++) {
+            if (graveSites.get(i) != previousGraveSites.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects the allocators of this version for a derived version, leaving out those of the
+     * graveyards the derived version changes, whose allocators are built anew on first use.
+     *
+     * @param changed tells whether the derived version changes a graveyard, by name.
+     * @return the allocators that stay valid in the derived version.
+     */
+    private Map<String, GraveSiteAllocator> getAllocatorsExcept(Predicate<String> changed) {
+        Map<String, GraveSiteAllocator> kept = new HashMap<>(allocators);
+        kept.keySet().removeIf(changed);
+        return kept;
+    }
+
+    /**
+     * Creates an empty cache version.
+     *
+     * @return an empty {@link GraveyardCache}.
+     */
+    public static GraveyardCache empty() {
+        return new GraveyardCache(Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(),
+                PrefixIndex.empty(), Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    /**
+     * Creates a new cache version that additionally contains the specified graveyard,
+     * keeping its grave sites if it is already cached.
+     *
+     * @param graveyard the {@link Graveyard} to add or replace.
+     * @return the new {@link GraveyardCache}.
+     */
+    public GraveyardCache withGraveyard(Graveyard graveyard) {
+        return withGraveyard(graveyard.getName(), graveyard, getGraveSites(graveyard.getName()));
+    }
+
+    /**
+     * Creates a new cache version without the specified graveyard and its grave sites.
+     *
+     * @param graveyardName the name of the graveyard to remove.
+     * @return the new {@link GraveyardCache}, or this version if the graveyard is unknown.
+     */
+    public GraveyardCache withoutGraveyard(String graveyardName) {
+        if (!graveyards.containsKey(graveyardName) && !regions.containsKey(graveyardName)) {
+            return this;
+        }
+        return withGraveyard(graveyardName, null, null);
+    }
+
+    /**
+     * Creates a new cache version in which the specified graveyard has exactly the specified grave sites,
+     * adding the graveyard if it is not cached yet.
+     *
+     * @param graveyard the {@link Graveyard} to add or replace.
+     * @param graveSites the grave sites of the graveyard.
+     * @return the new {@link GraveyardCache}.
+     */
+    public GraveyardCache withGraveyard(Graveyard graveyard, List<GraveSite> graveSites) {
+        return withGraveyard(graveyard.getName(), graveyard, graveSites);
+    }
+
+    /**
+     * Creates a new cache version that additionally contains the specified grave site.
+     *
+     * @param graveyardName the name of the graveyard to add the grave site to.
+     * @param graveSite the {@link GraveSite} to add.
+     * @return the new {@link GraveyardCache}.
+     */
+    public GraveyardCache withGraveSite(String graveyardName, GraveSite graveSite) {
+        return withGraveSites(graveyardName, Collections.singletonList(graveSite));
+    }
+
+    /**
+     * Creates a new cache version that additionally contains the specified grave sites.
+     * The indexes of the graveyard are rebuilt once for all of them.
+     *
+     * @param graveyardName the name of the graveyard to add the grave sites to.
+     * @param addedGraveSites the grave sites to add.
+     * @return the new {@link GraveyardCache}.
+     */
+    public GraveyardCache withGraveSites(String graveyardName, Collection<GraveSite> addedGraveSites) {
+        List<GraveSite> graveSites = new ArrayList<>(getGraveSites(graveyardName));
+        graveSites.addAll(addedGraveSites);
+        return withGraveyard(graveyardName, regions.get(graveyardName), graveSites);
+    }
+
+    /**
+     * Creates a new cache version without the grave site stored under the specified key.
+     *
+     * @param graveyardName the name of the graveyard to remove the grave site from.
+     * @param graveSiteId the key of the grave site in the graveyard file.
+     * @return the new {@link GraveyardCache}, or this version if there is no such grave site.
+     */
+    public GraveyardCache withoutGraveSite(String graveyardName, String graveSiteId) {
+        List<GraveSite> graveSites = new ArrayList<>(getGraveSites(graveyardName));
+        if (!graveSites.removeIf(graveSite -> graveSiteId.equals(graveSite.getId()))) {
+            return this;
+        }
+        return withGraveyard(graveyardName, regions.get(graveyardName), graveSites);
+    }
+
+    /**
+     * Creates a new cache version in which a single graveyard is replaced.
+     * Only the partitions of the worlds the graveyard was or is in are updated,
+     * and within those only the indexes of this graveyard are rebuilt.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param region the new region of the graveyard, or null if it has none.
+     * @param graveSites the new grave sites of the graveyard, or null to remove the graveyard.
+     * @return the new {@link GraveyardCache}.
+     */
+    private GraveyardCache withGraveyard(String graveyardName, Graveyard region, List<GraveSite> graveSites) {
+        Set<String> affectedWorlds = new HashSet<>();
+        Graveyard previousRegion = regions.get(graveyardName);
+        if (previousRegion != null && previousRegion.getWorldName() != null) {
+            affectedWorlds.add(previousRegion.getWorldName());
+        }
+        if (region != null && region.getWorldName() != null) {
+            affectedWorlds.add(region.getWorldName());
+        }
+        for (GraveSite graveSite : getGraveSites(graveyardName)) {
+            affectedWorlds.add(graveSite.getWorldName());
+        }
+
+        Map<String, Graveyard> updatedRegions = new HashMap<>(regions);
+        Map<String, List<GraveSite>> updatedGraveyards = new LinkedHashMap<>(graveyards);
+        if (graveSites == null) {
+            updatedRegions.remove(graveyardName);
+            updatedGraveyards.remove(graveyardName);
+        } else {
+            if (region != null) {
+                updatedRegions.put(graveyardName, region);
+            }
+            updatedGraveyards.put(graveyardName, Collections.unmodifiableList(new ArrayList<>(graveSites)));
+            for (GraveSite graveSite : graveSites) {
+                affectedWorlds.add(graveSite.getWorldName());
+            }
+        }
+
+        Map<String, WorldPartition> updatedPartitions = new HashMap<>(partitions);
+        for (String worldName : affectedWorlds) {
+            WorldPartition partition = partitions.get(worldName);
+            if (partition == null) {
+                continue;
+            }
+
+            List<GraveSite> worldGraveSites = new ArrayList<>();
+            if (graveSites != null) {
+                for (GraveSite graveSite : graveSites) {
+                    if (worldName.equals(graveSite.getWorldName())) {
+                        worldGraveSites.add(graveSite);
+                    }
+                }
+            }
+            updatedPartitions.put(worldName, partition.withGraveyard(graveyardName, updatedRegions.get(graveyardName), worldGraveSites));
+        }
+        Map<String, PrefixIndex> updatedGraveSiteIds = new HashMap<>(graveSiteIds);
+        PrefixIndex updatedGraveyardNames = graveyardNames;
+        if (graveSites == null) {
+            updatedGraveSiteIds.remove(graveyardName);
+            updatedGraveyardNames = PrefixIndex.of(updatedGraveyards.keySet());
+        } else {
+            updatedGraveSiteIds.put(graveyardName, indexGraveSiteIds(graveSites));
+            if (!graveyards.containsKey(graveyardName)) {
+                updatedGraveyardNames = PrefixIndex.of(updatedGraveyards.keySet());
+            }
+        }
+        return new GraveyardCache(Collections.unmodifiableMap(updatedRegions), Collections.unmodifiableMap(updatedGraveyards), updatedPartitions,
+                updatedGraveyardNames, updatedGraveSiteIds, getAllocatorsExcept(name -> name.equals(graveyardName)
+                        && (graveSites == null || !isSameGraveSites(graveSites, getGraveSites(graveyardName)))));
+    }
+
+    /**
+     * Builds the prefix index of the keys of a graveyard's grave sites.
+     *
+     * @param graveSites the grave sites of the graveyard.
+     * @return the {@link PrefixIndex} of the grave site keys.
+     */
+    private static PrefixIndex indexGraveSiteIds(List<GraveSite> graveSites) {
+        List<String> ids = new ArrayList<>(graveSites.size());
+        for (GraveSite graveSite : graveSites) {
+            if (graveSite.getId() != null) {
+                ids.add(graveSite.getId());
+            }
+        }
+        return PrefixIndex.of(ids);
+    }
+
+    /**
+     * Creates a new cache version with a partition for the specified world.
+     * Partitions of other worlds are shared with this version.
+     *
+     * @param world the world that was loaded.
+     * @return the new {@link GraveyardCache}.
+     */
+    public GraveyardCache withWorld(World world) {
+        Map<String, List<GraveSite>> worldGraveSites = new LinkedHashMap<>();
+        for (Map.Entry<String, List<GraveSite>> entry : graveyards.entrySet()) {
+            for (GraveSite graveSite : entry.getValue()) {
+                if (world.getName().equals(graveSite.getWorldName())) {
+                    worldGraveSites.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(graveSite);
+                }
+            }
+        }
+
+        Map<String, WorldPartition> updated = new HashMap<>(partitions);
+        updated.put(world.getName(), WorldPartition.build(world, regions, worldGraveSites));
+        // Graveyards with grave sites in the world can now choose them
+        return new GraveyardCache(regions, graveyards, updated, graveyardNames, graveSiteIds,
+                getAllocatorsExcept(worldGraveSites::containsKey));
+    }
+
+    /**
+     * Creates a new cache version without the partition of the specified world.
+     *
+     * @param worldName the name of the world that was unloaded.
+     * @return the new {@link GraveyardCache}, or this version if the world has no partition.
+     */
+    public GraveyardCache withoutWorld(String worldName) {
+        if (!partitions.containsKey(worldName)) {
+            return this;
+        }
+
+        Set<String> affectedGraveyards = new HashSet<>();
+        for (Map.Entry<String, List<GraveSite>> entry : graveyards.entrySet()) {
+            for (GraveSite graveSite : entry.getValue()) {
+                if (worldName.equals(graveSite.getWorldName())) {
+                    affectedGraveyards.add(entry.getKey());
+                }
+            }
+        }
+
+        Map<String, WorldPartition> updated = new HashMap<>(partitions);
+        updated.remove(worldName);
+        return new GraveyardCache(regions, graveyards, updated, graveyardNames, graveSiteIds,
+                getAllocatorsExcept(affectedGraveyards::contains));
+    }
+
+    /**
+     * Binds the grave sites of the specified graveyards to the worlds this version has a partition
+     * for, and unbinds those in any other world so an unloaded world can be collected.
+     * Must only be called on the published version, as an older version may still hand out the
+     * same grave sites.
+     *
+     * @param graveyardNames the names of the graveyards whose grave sites to bind, or null for every graveyard.
+     */
+    void bindGraveSites(Collection<String> graveyardNames) {
+        for (Map.Entry<String, List<GraveSite>> entry : graveyards.entrySet()) {
+            if (graveyardNames != null && !graveyardNames.contains(entry.getKey())) {
+                continue;
+            }
+            for (GraveSite graveSite : entry.getValue()) {
+                WorldPartition partition = partitions.get(graveSite.getWorldName());
+                if (partition != null) {
+                    graveSite.bind(partition.world);
+                } else {
+                    graveSite.unbind();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the worlds this cache version has a partition for.
+     *
+     * @return the bound worlds.
+     */
+    public Collection<World> getWorlds() {
+        List<World> worlds = new ArrayList<>(partitions.size());
+        for (WorldPartition partition : partitions.values()) {
+            worlds.add(partition.world);
+        }
+        return worlds;
+    }
+
+    /**
+     * Gets the region of the specified graveyard.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @return the {@link Graveyard}, or null if the graveyard is unknown.
+     */
+    public Graveyard getGraveyard(String graveyardName) {
+        return regions.get(graveyardName);
+    }
+
+    /**
+     * Completes the name of a graveyard.
+     *
+     * @param prefix the typed prefix, matched ignoring case.
+     * @return the names of the graveyards starting with the prefix.
+     */
+    public List<String> completeGraveyardName(String prefix) {
+        return graveyardNames.complete(prefix);
+    }
+
+    /**
+     * Completes the key of a grave site within the specified graveyard.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param prefix the typed prefix, matched ignoring case.
+     * @return the keys of the graveyard's grave sites starting with the prefix.
+     */
+    public List<String> completeGraveSiteId(String graveyardName, String prefix) {
+        return graveSiteIds.getOrDefault(graveyardName, PrefixIndex.empty()).complete(prefix);
+    }
+
+    /**
+     * Gets the grave sites of every graveyard.
+     *
+     * @return an unmodifiable map of graveyard names to unmodifiable lists of grave sites.
+     */
+    public Map<String, List<GraveSite>> getGraveyards() {
+        return graveyards;
+    }
+
+    /**
+     * Gets the grave sites of the specified graveyard.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @return an unmodifiable list of grave sites, empty if the graveyard is unknown.
+     */
+    public List<GraveSite> getGraveSites(String graveyardName) {
+        return graveyards.getOrDefault(graveyardName, Collections.emptyList());
+    }
+
+    /**
+     * Chooses and reserves a free grave site of the specified graveyard with a selection strategy.
+     * Grave sites that are occupied, reserved or in unloaded worlds are never chosen.
+     * The free grave sites of each graveyard are kept in an allocator that is built on first use
+     * and carried over to later cache versions, so only the first reservation after a change
+     * of the graveyard's grave sites or their worlds touches every grave site.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param strategy the {@link SelectionStrategy} of the graveyard.
+     * @param near the location the grave site should be close to, or null if it does not matter.
+     * @param random the random number generator used by random choices.
+     * @param timeoutMillis the time in milliseconds after which the reservation expires if it is not committed.
+     * @return the {@link GraveSiteReservation} of the chosen grave site, or null if no grave site is free.
+     */
+    public GraveSiteReservation reserveGraveSite(String graveyardName, SelectionStrategy strategy, Location near, Random random, long timeoutMillis) {
+        List<GraveSite> graveSites = graveyards.get(graveyardName);
+        if (graveSites == null) {
+            return null;
+        }
+        return allocators.computeIfAbsent(graveyardName, name -> strategy.createAllocator(graveSites, partitions.keySet()))
+                .reserve(near, random, timeoutMillis);
+    }
+
+    /**
+     * Chooses and reserves a free grave site of the specified graveyard for each of several
+     * locations, holding the graveyard's allocator once for all of them.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param strategy the {@link SelectionStrategy} of the graveyard.
+     * @param nears the locations the grave sites should be close to, usually where the players died.
+     * @param random the random number generator used by random choices.
+     * @param timeoutMillis the time in milliseconds after which the reservations expire if they are not committed.
+     * @return the reservations in the order of the locations, with null for each location no grave site was free for.
+     */
+    public List<GraveSiteReservation> reserveGraveSites(String graveyardName, SelectionStrategy strategy, List<Location> nears, Random random, long timeoutMillis) {
+        List<GraveSite> graveSites = graveyards.get(graveyardName);
+        if (graveSites == null) {
+            return new ArrayList<>(Collections.nCopies(nears.size(), null));
+        }
+        return allocators.computeIfAbsent(graveyardName, name -> strategy.createAllocator(graveSites, partitions.keySet()))
+                .reserveAll(nears, random, timeoutMillis);
+    }
+
+    /**
+     * Tells the allocator of the specified graveyard that the state of one of its grave sites changed,
+     * so a grave site that became free can be chosen again.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param graveSite the grave site whose state changed.
+     */
+    public void updateGraveSite(String graveyardName, GraveSite graveSite) {
+        GraveSiteAllocator allocator = allocators.get(graveyardName);
+        if (allocator != null) {
+            allocator.update(graveSite);
+        }
+        CapacityIndex index = capacityIndex;
+        if (index != null) {
+            index.update(graveyardName, graveSite);
+        }
+        GraveyardSummary summary = summaries.get(graveyardName);
+        if (summary != null) {
+            summary.update(graveSite);
+        }
+    }
+
+    /**
+     * Gets the summary of the specified graveyard in this version, building it on first use.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @return the {@link GraveyardSummary}, or null if the graveyard is unknown.
+     */
+    public GraveyardSummary getSummary(String graveyardName) {
+        List<GraveSite> graveSites = graveyards.get(graveyardName);
+        if (graveSites == null) {
+            return null;
+        }
+        return summaries.computeIfAbsent(graveyardName, name -> new GraveyardSummary(graveSites));
+    }
+
+    /**
+     * Finds the graveyard closest to a location that still has unoccupied grave sites,
+     * preferring graveyards in the world of the location.
+     *
+     * @param near the location, usually where the player died.
+     * @param excluded the names of the graveyards that must not be returned, such as the full graveyard.
+     * @param otherWorlds true to fall back to graveyards in other worlds.
+     * @return the name of the graveyard, or null if there is none.
+     */
+    public String findGraveyardWithCapacity(Location near, Set<String> excluded, boolean otherWorlds) {
+        if (near == null) {
+            return null;
+        }
+        return getCapacityIndex().findNearest(near, excluded, otherWorlds);
+    }
+
+    /**
+     * Gets the capacity index of this version, building it from the current occupancy on first use.
+     *
+     * @return the {@link CapacityIndex}.
+     */
+    private CapacityIndex getCapacityIndex() {
+        CapacityIndex index = capacityIndex;
+        if (index == null) {
+            synchronized (allocators) {
+                index = capacityIndex;
+                if (index == null) {
+                    Map<String, Map<String, double[]>> centres = new HashMap<>();
+                    for (Map.Entry<String, WorldPartition> entry : partitions.entrySet()) {
+                        Map<String, double[]> worldCentres = new HashMap<>();
+                        for (String graveyardName : entry.getValue().graveSiteIndexes.keySet()) {
+                            Bounds box = Bounds.union(entry.getValue().boxes.get(graveyardName));
+                            worldCentres.put(graveyardName, new double[] {(box.minX + box.maxX) / 2, (box.minY + box.maxY) / 2, (box.minZ + box.maxZ) / 2});
+                        }
+                        centres.put(entry.getKey(), worldCentres);
+                    }
+                    index = new CapacityIndex(centres, graveyards);
+                    capacityIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Retrieves a grave site by its block location within the specified graveyard.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param location the location of the grave site.
+     * @return the {@link GraveSite} if found, or null if not found.
+     */
+    public GraveSite getGraveSiteByLocation(String graveyardName, Location location) {
+        WorldPartition partition = getPartition(location);
+        if (partition == null) {
+            return null;
+        }
+
+        GraveSiteIndex graveSiteIndex = partition.graveSiteIndexes.get(graveyardName);
+        return graveSiteIndex != null ? graveSiteIndex.get(location) : null;
+    }
+
+    /**
+     * Retrieves the name of the graveyard covering the specified location.
+     *
+     * @param location the location to check.
+     * @return the name of the graveyard, or null if no graveyard is found.
+     */
+    public String getGraveyardNameAtLocation(Location location) {
+        WorldPartition partition = getPartition(location);
+        return partition != null ? partition.spatialIndex.getGraveyardName(location) : null;
+    }
+
+    /**
+     * Gets the partition of the world the specified location is in.
+     *
+     * @param location the location.
+     * @return the {@link WorldPartition}, or null if the location has no loaded world.
+     */
+    private WorldPartition getPartition(Location location) {
+        if (location == null || location.getWorld() == null) {
+            return null;
+        }
+        return partitions.get(location.getWorld().getName());
+    }
+
+    /**
+     * Gets the number of graveyards in this cache version.
+     *
+     * @return the number of graveyards.
+     */
+    public int size() {
+        return graveyards.size();
+    }
+
+    /**
+     * The indexes of the graveyards within a single loaded world.
+     * A partition is never modified once built; changing a graveyard creates a new partition
+     * sharing the grave site indexes and boxes of every other graveyard.
+     */
+    private static final class WorldPartition {
+        private final World world;
+        private final Map<String, GraveSiteIndex> graveSiteIndexes;
+        private final Map<String, List<Bounds>> boxes;
+        private final SpatialIndex spatialIndex;
+
+        private WorldPartition(World world, Map<String, GraveSiteIndex> graveSiteIndexes, Map<String, List<Bounds>> boxes) {
+            this.world = world;
+            this.graveSiteIndexes = graveSiteIndexes;
+            this.boxes = boxes;
+            this.spatialIndex = new SpatialIndex();
+            for (Map.Entry<String, List<Bounds>> entry : boxes.entrySet()) {
+                for (Bounds box : entry.getValue()) {
+                    spatialIndex.add(entry.getKey(), box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ);
+                }
+            }
+        }
+
+        /**
+         * Builds the partition of a world.
+         *
+         * @param world the loaded world.
+         * @param regions the regions of every graveyard, keyed by graveyard name.
+         * @param graveyards the grave sites of each graveyard within the world, keyed by graveyard name.
+         * @return the new {@link WorldPartition}.
+         */
+        private static WorldPartition build(World world, Map<String, Graveyard> regions, Map<String, List<GraveSite>> graveyards) {
+            Map<String, GraveSiteIndex> graveSiteIndexes = new HashMap<>();
+            Map<String, List<Bounds>> boxes = new LinkedHashMap<>();
+            for (Graveyard region : regions.values()) {
+                if (world.getName().equals(region.getWorldName()) && !graveyards.containsKey(region.getName())) {
+                    boxes.put(region.getName(), Bounds.of(world, region, Collections.emptyList()));
+                }
+            }
+            for (Map.Entry<String, List<GraveSite>> entry : graveyards.entrySet()) {
+                graveSiteIndexes.put(entry.getKey(), index(entry.getValue()));
+                boxes.put(entry.getKey(), Bounds.of(world, regions.get(entry.getKey()), entry.getValue()));
+            }
+            return new WorldPartition(world, graveSiteIndexes, boxes);
+        }
+
+        /**
+         * Creates a new partition in which the indexes of a single graveyard are replaced.
+         *
+         * @param graveyardName the name of the graveyard.
+         * @param region the region of the graveyard, or null if it has none or was removed.
+         * @param graveSites the grave sites of the graveyard within this world.
+         * @return the new {@link WorldPartition}.
+         */
+        private WorldPartition withGraveyard(String graveyardName, Graveyard region, List<GraveSite> graveSites) {
+            Map<String, GraveSiteIndex> updatedIndexes = new HashMap<>(graveSiteIndexes);
+            Map<String, List<Bounds>> updatedBoxes = new LinkedHashMap<>(boxes);
+
+            if (graveSites.isEmpty()) {
+                updatedIndexes.remove(graveyardName);
+            } else {
+                updatedIndexes.put(graveyardName, index(graveSites));
+            }
+            List<Bounds> graveyardBoxes = Bounds.of(world, region, graveSites);
+            if (graveyardBoxes.isEmpty()) {
+                updatedBoxes.remove(graveyardName);
+            } else {
+                updatedBoxes.put(graveyardName, graveyardBoxes);
+            }
+            return new WorldPartition(world, updatedIndexes, updatedBoxes);
+        }
+
+        /**
+         * Indexes the grave sites of a graveyard within a world.
+         */
+        private static GraveSiteIndex index(List<GraveSite> graveSites) {
+            GraveSiteIndex graveSiteIndex = new GraveSiteIndex();
+            for (GraveSite graveSite : graveSites) {
+                graveSiteIndex.put(graveSite);
+            }
+            return graveSiteIndex;
+        }
+    }
+
+    /**
+     * A box covered by a graveyard within a single world.
+     */
+    private static final class Bounds {
+        private double minX;
+        private double minY;
+        private double minZ;
+        private double maxX;
+        private double maxY;
+        private double maxZ;
+
+        private Bounds(Location location) {
+            minX = location.getBlockX();
+            minY = location.getBlockY();
+            minZ = location.getBlockZ();
+            maxX = minX + 1;
+            maxY = minY + 1;
+            maxZ = minZ + 1;
+        }
+
+        private Bounds(Bounds bounds, double margin) {
+            minX = bounds.minX - margin;
+            minY = bounds.minY - margin;
+            minZ = bounds.minZ - margin;
+            maxX = bounds.maxX + margin;
+            maxY = bounds.maxY + margin;
+            maxZ = bounds.maxZ + margin;
+        }
+
+        /**
+         * Computes the boxes covered by a graveyard within a world: the box spanned by the corner
+         * blocks of the graveyard's region, and a box around each grave site outside the region,
+         * every box extended by the graveyard's margin on every side. A grave site far from the
+         * region only covers the blocks around it, rather than stretching the region to reach it.
+         *
+         * @param world the world of the boxes.
+         * @param region the region of the graveyard, or null if it has none.
+         * @param graveSites the grave sites of the graveyard in the world.
+         * @return the boxes, starting with the region's box if the region is in the world;
+         *         empty if the graveyard has neither a region nor a grave site in the world.
+         */
+        private static List<Bounds> of(World world, Graveyard region, List<GraveSite> graveSites) {
+            double margin = region != null ? region.getMargin() : Graveyard.DEFAULT_MARGIN;
+            List<Bounds> boxes = new ArrayList<>();
+            Bounds regionBounds = null;
+            if (region != null && world.getName().equals(region.getWorldName())) {
+                regionBounds = new Bounds(region.getPos1()).include(region.getPos2());
+                boxes.add(new Bounds(regionBounds, margin));
+            }
+            for (GraveSite graveSite : graveSites) {
+                if (regionBounds == null || !regionBounds.containsBlock(graveSite.getLocation())) {
+                    boxes.add(new Bounds(new Bounds(graveSite.getLocation()), margin));
+                }
+            }
+            return boxes;
+        }
+
+        /**
+         * Computes the smallest box enclosing several boxes, such as to find the centre of a graveyard.
+         *
+         * @param boxes the boxes, at least one.
+         * @return the enclosing box.
+         */
+        private static Bounds union(List<Bounds> boxes) {
+            Bounds union = new Bounds(boxes.get(0), 0);
+            for (Bounds box : boxes) {
+                union.minX = Math.min(union.minX, box.minX);
+                union.minY = Math.min(union.minY, box.minY);
+                union.minZ = Math.min(union.minZ, box.minZ);
+                union.maxX = Math.max(union.maxX, box.maxX);
+                union.maxY = Math.max(union.maxY, box.maxY);
+                union.maxZ = Math.max(union.maxZ, box.maxZ);
+            }
+            return union;
+        }
+
+        private Bounds include(Location location) {
+            minX = Math.min(minX, location.getBlockX());
+            minY = Math.min(minY, location.getBlockY());
+            minZ = Math.min(minZ, location.getBlockZ());
+            maxX = Math.max(maxX, location.getBlockX() + 1);
+            maxY = Math.max(maxY, location.getBlockY() + 1);
+            maxZ = Math.max(maxZ, location.getBlockZ() + 1);
+            return this;
+        }
+
+        private boolean containsBlock(Location location) {
+            return location.getBlockX() >= minX && location.getBlockX() < maxX
+                    && location.getBlockY() >= minY && location.getBlockY() < maxY
+                    && location.getBlockZ() >= minZ && location.getBlockZ() < maxZ;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package dev.cwhead.GravesXAddon.managers;
+
+import dev.cwhead.GravesXAddon.util.GraveSite;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The aggregates of a single graveyard within one {@link GraveyardCache} version, shown by
+ * /graveyardinfo. A summary is built the first time it is needed and then shared by every
+ * page of that version, so paging through a graveyard touches each grave site only once.
+ * <p>
+ * The grave sites are ordered by key. Keys are numbered in increasing order and never reused,
+ * so a page that starts after a key always continues where the previous page ended, even when
+ * grave sites are added or removed between two pages. The occupied count follows occupancy
+ * changes through {@link #update(GraveSite)}.
+ */
+public final class GraveyardSummary {
+
+    private static final Comparator<String> ID_ORDER = GraveyardSummary::compareIds;
+
+    private final List<GraveSite> graveSites;
+    private final String[] ids;
+    private final Map<String, Integer> worldCounts;
+    private final Map<GraveSite, Boolean> countedOccupied = new IdentityHashMap<>();
+    private int occupied;
+
+    /**
+     * Builds the summary of a graveyard from the current occupancy of its grave sites.
+     *
+     * @param graveSites the grave sites of the graveyard.
+     */
+    GraveyardSummary(List<GraveSite> graveSites) {
+        List<GraveSite> sorted = new ArrayList<>(graveSites);
+        sorted.sort((a, b) -> compareIds(a.getId(), b.getId()));
+        this.graveSites = Collections.unmodifiableList(sorted);
+        this.ids = new String[sorted.size()];
+
+        Map<String, Integer> counts = new TreeMap<>();
+        for (int i = 0; i < sorted.size(); i++) {
+            GraveSite graveSite = sorted.get(i);
+            ids[i] = graveSite.getId();
+            counts.merge(graveSite.getWorldName() != null ? graveSite.getWorldName() : "Unknown", 1, Integer::sum);
+            boolean isOccupied = graveSite.isOccupied();
+            countedOccupied.put(graveSite, isOccupied);
+            if (isOccupied) {
+                occupied++;
+            }
+        }
+        this.worldCounts = Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Synchronizes the occupied count with the current occupancy of one of the grave sites.
+     * Grave sites that are not part of this summary are ignored, and repeated calls without a change do nothing.
+     *
+     * @param graveSite the grave site whose occupancy may have changed.
+     */
+    synchronized void update(GraveSite graveSite) {
+        Boolean wasOccupied = countedOccupied.get(graveSite);
+        boolean isOccupied = graveSite.isOccupied();
+        if (wasOccupied == null || wasOccupied == isOccupied) {
+            return;
+        }
+        countedOccupied.put(graveSite, isOccupied);
+        occupied += isOccupied ? 1 : -1;
+    }
+
+    /**
+     * Gets the number of grave sites.
+     *
+     * @return the number of grave sites.
+     */
+    public int size() {
+        return graveSites.size();
+    }
+
+    /**
+     * Gets the number of occupied grave sites.
+     *
+     * @return the number of occupied grave sites.
+     */
+    public synchronized int getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * Gets the number of grave sites in each world.
+     *
+     * @return an unmodifiable map of world names, sorted by name, to grave site counts.
+     */
+    public Map<String, Integer> getWorldCounts() {
+        return worldCounts;
+    }
+
+    /**
+     * Gets the position of the first grave site whose key follows the specified key.
+     * The key does not have to belong to a grave site of this version.
+     *
+     * @param afterId the key to start after, or null to start at the first grave site.
+     * @return the position in {@link #getPage(int, int)} terms, between 0 and {@link #size()}.
+     */
+    public int indexAfter(String afterId) {
+        if (afterId == null) {
+            return 0;
+        }
+        int low = 0;
+        int high = ids.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ID_ORDER.compare(ids[mid], afterId) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the grave sites starting at a position, in key order.
+     *
+     * @param from the position of the first grave site, as returned by {@link #indexAfter(String)}.
+     * @param size the maximum number of grave sites.
+     * @return an unmodifiable list of at most size grave sites.
+     */
+    public List<GraveSite> getPage(int from, int size) {
+        return graveSites.subList(from, Math.min(from + size, graveSites.size()));
+    }
+
+    /**
+     * Compares two grave site keys, ordering numbered keys by their number and before any other key.
+     *
+     * @param a the first key, may be null.
+     * @param b the second key, may be null.
+     * @return a negative number, zero or a positive number as the first key orders before, equal to or after the second.
+     */
+    private static int compareIds(String a, String b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        Long numberA = parseId(a);
+        Long numberB = parseId(b);
+        if (numberA != null && numberB != null) {
+            return Long.compare(numberA, numberB);
+        }
+        if (numberA != null || numberB != null) {
+            return numberA != null ? -1 : 1;
+        }
+        return a.compareTo(b);
+    }
+
+    /**
+     * Parses a numbered grave site key.
+     *
+     * @param id the key.
+     * @return the number, or null if the key is not a number.
+     */
+    private static Long parseId(String id) {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package dev.cwhead.GravesXAddon.managers;
+
+import com.ranull.graves.type.Grave;
+import dev.cwhead.GravesXAddon.Graveyards;
+import dev.cwhead.GravesXAddon.scheduler.TaskScheduler;
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import dev.cwhead.GravesXAddon.util.GraveSiteIndex;
+import org.bukkit.Location;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Checks the occupancy of every grave site against the graves GravesX actually holds, and
+ * fixes the grave sites that drifted, such as sites left occupied after a grave disappeared
+ * without an event, or sites left free because the server stopped before their change was saved.
+ * <p>
+ * A check walks all grave sites a bounded number per tick on the global thread, and only
+ * remembers the grave sites that look wrong. Once every grave site was visited, the mismatches
+ * are confirmed against the graves held at that moment and fixed together, so a grave created
+ * or looted during the walk is never mistaken for drift. Reserved grave sites are skipped, as
+ * their graves are still being created. The fixes are written by the background occupancy
+ * writer in one batch.
+ * <p>
+ * An occupied grave site that does not know the UUID of the grave on it, such as one occupied
+ * before grave UUIDs were recorded, is linked to that grave, so it can be released by UUID.
+ * An occupied grave site whose recorded grave GravesX still holds is left alone, even if
+ * GravesX placed that grave on another block.
+ */
+public class OccupancyReconciler {
+
+    private final Graveyards plugin;
+    private final long intervalTicks;
+    private final int sitesPerTick;
+    private TaskScheduler.Task task;
+    private List<Map.Entry<String, List<GraveSite>>> graveyards;
+    private HeldGraves heldGraves;
+    private final List<Mismatch> mismatches = new ArrayList<>();
+    private int graveyardIndex;
+    private int siteIndex;
+    private int checkedCount;
+    private long ticksUntilNextCheck;
+
+    /**
+     * Constructs an OccupancyReconciler that checks every grave site once per interval.
+     *
+     * @param plugin the main plugin class instance.
+     * @param intervalTicks the time between the starts of two checks, in ticks.
+     * @param sitesPerTick the number of grave sites visited per tick.
+     */
+    public OccupancyReconciler(Graveyards plugin, long intervalTicks, int sitesPerTick) {
+        this.plugin = plugin;
+        this.intervalTicks = Math.max(1L, intervalTicks);
+        this.sitesPerTick = Math.max(1, sitesPerTick);
+        this.ticksUntilNextCheck = this.intervalTicks;
+    }
+
+    /**
+     * Starts checking in the background. The first check starts after one interval.
+     */
+    public void start() {
+        if (task == null) {
+            task = plugin.getTaskScheduler().runGlobalTimer(this::tick, 1L, 1L);
+        }
+    }
+
+    /**
+     * Stops checking. A check in progress is abandoned without fixing anything.
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        graveyards = null;
+        heldGraves = null;
+        mismatches.clear();
+    }
+
+    /**
+     * Runs once per tick, visiting the next grave sites of the check in progress
+     * or starting a new check once the interval has passed.
+     */
+    private void tick() {
+        if (graveyards == null) {
+            if (--ticksUntilNextCheck > 0) {
+                return;
+            }
+            ticksUntilNextCheck = intervalTicks;
+            beginCheck();
+            if (graveyards == null) {
+                return;
+            }
+        }
+
+        long start = System.nanoTime();
+        if (visitGraveSites()) {
+            finishCheck();
+        }
+        plugin.getProfileManager().record("occupancyReconcile", start);
+    }
+
+    /**
+     * Takes the grave sites to check from the current cache and indexes the graves GravesX holds.
+     */
+    private void beginCheck() {
+        HeldGraves held = indexHeldGraves();
+        if (held == null) {
+            return;
+        }
+        graveyards = new ArrayList<>(plugin.getCacheManager().getSnapshot().getGraveyards().entrySet());
+        heldGraves = held;
+        graveyardIndex = 0;
+        siteIndex = 0;
+        checkedCount = 0;
+        mismatches.clear();
+    }
+
+    /**
+     * Visits up to the configured number of grave sites, remembering those whose occupancy
+     * or grave does not match the graves indexed when the check began.
+     *
+     * @return true once every grave site was visited, false otherwise.
+     */
+    private boolean visitGraveSites() {
+        int budget = sitesPerTick;
+        while (graveyardIndex < graveyards.size()) {
+            Map.Entry<String, List<GraveSite>> graveyard = graveyards.get(graveyardIndex);
+            List<GraveSite> graveSites = graveyard.getValue();
+            while (siteIndex < graveSites.size()) {
+                if (budget-- == 0) {
+                    return false;
+                }
+                GraveSite graveSite = graveSites.get(siteIndex++);
+                if (!graveSite.isBound() || graveSite.isReserved()) {
+                    continue;
+                }
+                checkedCount++;
+                if (!heldGraves.matches(graveSite)) {
+                    mismatches.add(new Mismatch(graveyard.getKey(), graveSite));
+                }
+            }
+            graveyardIndex++;
+            siteIndex = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Confirms the remembered mismatches against the graves GravesX holds now and fixes those that remain.
+     */
+    private void finishCheck() {
+        List<Mismatch> found = new ArrayList<>(mismatches);
+        int checked = checkedCount;
+        graveyards = null;
+        heldGraves = null;
+        mismatches.clear();
+
+        if (found.isEmpty()) {
+            plugin.debugMessage("Checked the occupancy of " + checked + " grave sites, nothing to fix", 2);
+            return;
+        }
+        HeldGraves held = indexHeldGraves();
+        if (held == null) {
+            return;
+        }
+
+        CacheManager cacheManager = plugin.getCacheManager();
+        int markedFree = 0;
+        int markedOccupied = 0;
+        int linked = 0;
+        for (Mismatch mismatch : found) {
+            GraveSite graveSite = mismatch.graveSite;
+            UUID graveUUID = held.getGraveUUID(graveSite);
+            boolean hasGrave = graveUUID != null;
+            if (!graveSite.isBound() || graveSite.isReserved() || held.matches(graveSite)
+                    || cacheManager.getGraveSiteByLocation(mismatch.graveyardName, graveSite.getLocation()) != graveSite) {
+                // Changed since it was visited, or removed from its graveyard
+                continue;
+            }
+            boolean wasOccupied = graveSite.isOccupied();
+            cacheManager.updateGraveSiteOccupancy(mismatch.graveyardName, graveSite, hasGrave, graveUUID);
+            if (wasOccupied && hasGrave) {
+                plugin.debugMessage("Linked grave site " + graveSite.getId() + " in graveyard " + mismatch.graveyardName
+                        + " to grave " + graveUUID, 1);
+                linked++;
+                continue;
+            }
+            plugin.debugMessage("Marked grave site " + graveSite.getId() + " in graveyard " + mismatch.graveyardName
+                    + (hasGrave ? " occupied" : " free") + " to match GravesX", 1);
+            if (hasGrave) {
+                markedOccupied++;
+            } else {
+                markedFree++;
+            }
+        }
+
+        if (markedFree + markedOccupied > 0) {
+            plugin.getLogger().info("Fixed the occupancy of " + (markedFree + markedOccupied) + " of " + checked + " grave sites: "
+                    + markedFree + " marked free, " + markedOccupied + " marked occupied.");
+        }
+        if (linked > 0) {
+            plugin.debugMessage("Linked " + linked + " occupied grave sites to their graves", 2);
+        }
+    }
+
+    /**
+     * Indexes the UUIDs of the graves GravesX holds, and their locations by world and block location.
+     *
+     * @return the graves held, or null if the graves could not be read this tick.
+     */
+    private HeldGraves indexHeldGraves() {
+        HeldGraves held = new HeldGraves();
+        try {
+            for (Grave grave : plugin.getGravesX().getCacheManager().getGraveMap().values()) {
+                if (grave.getUUID() == null) {
+                    continue;
+                }
+                held.graveUUIDs.add(grave.getUUID());
+                Location location = grave.getLocationDeath();
+                if (location != null && location.getWorld() != null) {
+                    held.locations.computeIfAbsent(location.getWorld().getName(), k -> new HashMap<>())
+                            .put(GraveSiteIndex.pack(location.getBlockX(), location.getBlockY(), location.getBlockZ()), grave.getUUID());
+                }
+            }
+        } catch (ConcurrentModificationException e) {
+            // Graves changed on a region thread while they were read; try again on the next tick
+            ticksUntilNextCheck = 1L;
+            return null;
+        }
+        return held;
+    }
+
+    /**
+     * The graves GravesX held when they were indexed.
+     */
+    private static final class HeldGraves {
+
+        private final Set<UUID> graveUUIDs = new HashSet<>();
+        private final Map<String, Map<Long, UUID>> locations = new HashMap<>();
+
+        /**
+         * Gets the UUID of the grave GravesX holds on a grave site.
+         *
+         * @return the grave UUID, or null if there is no grave on the grave site.
+         */
+        private UUID getGraveUUID(GraveSite graveSite) {
+            Map<Long, UUID> worldLocations = locations.get(graveSite.getWorldName());
+            return worldLocations != null ? worldLocations.get(GraveSiteIndex.pack(graveSite.getBlockX(), graveSite.getBlockY(), graveSite.getBlockZ())) : null;
+        }
+
+        /**
+         * Checks if a grave site is occupied exactly when there is a grave on it, and knows that grave.
+         * A grave site holding a grave GravesX still holds matches wherever that grave is.
+         */
+        private boolean matches(GraveSite graveSite) {
+            UUID siteGraveUUID = graveSite.getGraveUUID();
+            if (graveSite.isOccupied() && siteGraveUUID != null && graveUUIDs.contains(siteGraveUUID)) {
+                return true;
+            }
+            UUID graveUUID = getGraveUUID(graveSite);
+            if (graveUUID == null) {
+                return !graveSite.isOccupied();
+            }
+            return graveSite.isOccupied() && graveUUID.equals(siteGraveUUID);
+        }
+    }
+
+    /**
+     * A grave site whose occupancy did not match the graves of GravesX when it was visited.
+     */
+    private static final class Mismatch {
+
+        private final String graveyardName;
+        private final GraveSite graveSite;
+
+        private Mismatch(String graveyardName, GraveSite graveSite) {
+            this.graveyardName = graveyardName;
+            this.graveSite = graveSite;
+        }
+    }
+}
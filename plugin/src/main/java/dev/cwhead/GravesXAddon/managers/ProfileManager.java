@@ -0,0 +1,52 @@
+package dev.cwhead.GravesXAddon.managers;
+
+import dev.cwhead.GravesXAddon.util.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Collects live timings of the addon's event handlers, cache loads and occupancy saves
+ * into named {@link LatencyHistogram}s, so the cost of the addon can be inspected in game.
+ */
+public class ProfileManager {
+
+    public static final long WINDOW_MILLIS = 10_000L;
+    public static final int WINDOW_COUNT = 30;
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+
+    /**
+     * Records the time elapsed since the specified start time under the given name.
+     *
+     * @param name the name of the timed operation.
+     * @param startNanos the start time, as returned by {@link System#nanoTime()}.
+     */
+    public void record(String name, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(name, k -> new LatencyHistogram(WINDOW_MILLIS, WINDOW_COUNT));
+        }
+        histogram.record(elapsed);
+    }
+
+    /**
+     * Gets the histograms of every timed operation, sorted by name.
+     *
+     * @return an unmodifiable map of operation names to histograms.
+     */
+    public Map<String, LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableMap(histograms);
+    }
+
+    /**
+     * Discards every recorded timing.
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+}
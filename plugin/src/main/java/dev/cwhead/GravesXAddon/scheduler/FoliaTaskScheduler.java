@@ -0,0 +1,163 @@
+package dev.cwhead.GravesXAddon.scheduler;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Schedules tasks with Folia's region, global region, entity and async schedulers.
+ * The schedulers are only part of the Paper API, so they are called through reflection
+ * and the addon keeps compiling against the Spigot API.
+ */
+public class FoliaTaskScheduler implements TaskScheduler {
+
+    private static final String REGIONIZED_SERVER = "io.papermc.paper.threadedregions.RegionizedServer";
+    private static final long MILLIS_PER_TICK = 50L;
+
+    private final Plugin plugin;
+    private final Object asyncScheduler;
+    private final Object globalRegionScheduler;
+    private final Object regionScheduler;
+    private final Method asyncRunNow;
+    private final Method asyncRunAtFixedRate;
+    private final Method globalExecute;
+    private final Method globalRunAtFixedRate;
+    private final Method regionExecute;
+    private final Method regionRunDelayed;
+    private final Method isOwnedByCurrentRegion;
+    private final Method entityGetScheduler;
+    private final Method entityExecute;
+    private final Method taskCancel;
+
+    /**
+     * Constructs a FoliaTaskScheduler for the specified plugin, resolving Folia's schedulers.
+     *
+     * @param plugin the plugin owning the scheduled tasks.
+     * @throws IllegalStateException if the server does not provide Folia's schedulers.
+     */
+    public FoliaTaskScheduler(Plugin plugin) {
+        this.plugin = plugin;
+        try {
+            Server server = Bukkit.getServer();
+            Class<?> asyncSchedulerClass = Class.forName("io.papermc.paper.threadedregions.scheduler.AsyncScheduler");
+            Class<?> globalRegionSchedulerClass = Class.forName("io.papermc.paper.threadedregions.scheduler.GlobalRegionScheduler");
+            Class<?> regionSchedulerClass = Class.forName("io.papermc.paper.threadedregions.scheduler.RegionScheduler");
+            Class<?> entitySchedulerClass = Class.forName("io.papermc.paper.threadedregions.scheduler.EntityScheduler");
+            Class<?> scheduledTaskClass = Class.forName("io.papermc.paper.threadedregions.scheduler.ScheduledTask");
+
+            this.asyncScheduler = Server.class.getMethod("getAsyncScheduler").invoke(server);
+            this.globalRegionScheduler = Server.class.getMethod("getGlobalRegionScheduler").invoke(server);
+            this.regionScheduler = Server.class.getMethod("getRegionScheduler").invoke(server);
+            this.asyncRunNow = asyncSchedulerClass.getMethod("runNow", Plugin.class, Consumer.class);
+            this.asyncRunAtFixedRate = asyncSchedulerClass.getMethod("runAtFixedRate", Plugin.class, Consumer.class, long.class, long.class, TimeUnit.class);
+            this.globalExecute = globalRegionSchedulerClass.getMethod("execute", Plugin.class, Runnable.class);
+            this.globalRunAtFixedRate = globalRegionSchedulerClass.getMethod("runAtFixedRate", Plugin.class, Consumer.class, long.class, long.class);
+            this.regionExecute = regionSchedulerClass.getMethod("execute", Plugin.class, Location.class, Runnable.class);
+            this.regionRunDelayed = regionSchedulerClass.getMethod("runDelayed", Plugin.class, Location.class, Consumer.class, long.class);
+            this.isOwnedByCurrentRegion = Server.class.getMethod("isOwnedByCurrentRegion", Location.class);
+            this.entityGetScheduler = Entity.class.getMethod("getScheduler");
+            this.entityExecute = entitySchedulerClass.getMethod("execute", Plugin.class, Runnable.class, Runnable.class, long.class);
+            this.taskCancel = scheduledTaskClass.getMethod("cancel");
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Folia schedulers are not available", e);
+        }
+    }
+
+    /**
+     * Checks if the server is running Folia.
+     *
+     * @return true if the server uses regionized ticking, false otherwise.
+     */
+    public static boolean isSupported() {
+        try {
+            Class.forName(REGIONIZED_SERVER);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void runAsync(Runnable task) {
+        invoke(asyncRunNow, asyncScheduler, plugin, (Consumer<Object>) scheduledTask -> task.run());
+    }
+
+    @Override
+    public Task runAsyncTimer(Runnable task, long delayTicks, long periodTicks) {
+        // Folia's async scheduler does not accept a zero delay
+        Object scheduledTask = invoke(asyncRunAtFixedRate, asyncScheduler, plugin, (Consumer<Object>) ignored -> task.run(),
+                Math.max(1L, delayTicks) * MILLIS_PER_TICK, periodTicks * MILLIS_PER_TICK, TimeUnit.MILLISECONDS);
+        return () -> invoke(taskCancel, scheduledTask);
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        invoke(globalExecute, globalRegionScheduler, plugin, task);
+    }
+
+    @Override
+    public Task runGlobalTimer(Runnable task, long delayTicks, long periodTicks) {
+        // Folia's global region scheduler does not accept a zero delay
+        Object scheduledTask = invoke(globalRunAtFixedRate, globalRegionScheduler, plugin, (Consumer<Object>) ignored -> task.run(),
+                Math.max(1L, delayTicks), periodTicks);
+        return () -> invoke(taskCancel, scheduledTask);
+    }
+
+    @Override
+    public void runAtLocation(Location location, Runnable task) {
+        if (isOwnedByCurrentThread(location)) {
+            task.run();
+        } else {
+            invoke(regionExecute, regionScheduler, plugin, location, task);
+        }
+    }
+
+    @Override
+    public void runAtLocationLater(Location location, Runnable task, long delayTicks) {
+        // Folia's region scheduler does not accept a zero delay
+        invoke(regionRunDelayed, regionScheduler, plugin, location, (Consumer<Object>) scheduledTask -> task.run(), Math.max(1L, delayTicks));
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(Location location) {
+        return (Boolean) invoke(isOwnedByCurrentRegion, Bukkit.getServer(), location);
+    }
+
+    @Override
+    public void runForEntity(Entity entity, Runnable task) {
+        Object entityScheduler = invoke(entityGetScheduler, entity);
+        invoke(entityExecute, entityScheduler, plugin, task, null, 1L);
+    }
+
+    /**
+     * Invokes a scheduler method, rethrowing whatever it throws unchecked.
+     *
+     * @param method the method to invoke.
+     * @param target the object to invoke the method on.
+     * @param args the arguments of the method.
+     * @return the result of the method.
+     */
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package dev.cwhead.GravesXAddon.scheduler;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Schedules the tasks of the addon on the threads the server expects them on.
+ * On Bukkit and Spigot every synchronous task runs on the main thread. On Folia there is
+ * no main thread: the world is split into regions ticked in parallel, and a task touching
+ * a location or an entity must run on the thread of the region that owns it.
+ * <p>
+ * Use {@link #create(Plugin)} to get the scheduler matching the running server.
+ */
+public interface TaskScheduler {
+
+    /**
+     * Runs a task off the server threads, for work such as disk I/O.
+     *
+     * @param task the task to run.
+     */
+    void runAsync(Runnable task);
+
+    /**
+     * Runs a task off the server threads repeatedly.
+     *
+     * @param task the task to run.
+     * @param delayTicks the delay before the first run, in ticks.
+     * @param periodTicks the delay between runs, in ticks.
+     * @return the scheduled {@link Task}, which can be cancelled.
+     */
+    Task runAsyncTimer(Runnable task, long delayTicks, long periodTicks);
+
+    /**
+     * Runs a task that is not tied to any location, on the main thread or Folia's global region.
+     *
+     * @param task the task to run.
+     */
+    void runGlobal(Runnable task);
+
+    /**
+     * Runs a task that is not tied to any location repeatedly, on the main thread or Folia's global region.
+     *
+     * @param task the task to run.
+     * @param delayTicks the delay before the first run, in ticks.
+     * @param periodTicks the delay between runs, in ticks.
+     * @return the scheduled {@link Task}, which can be cancelled.
+     */
+    Task runGlobalTimer(Runnable task, long delayTicks, long periodTicks);
+
+    /**
+     * Runs a task on the thread owning the specified location.
+     * The task runs immediately if the current thread already owns it.
+     *
+     * @param location the location the task touches.
+     * @param task the task to run.
+     */
+    void runAtLocation(Location location, Runnable task);
+
+    /**
+     * Runs a task on the thread owning the specified location after a delay.
+     *
+     * @param location the location the task touches.
+     * @param task the task to run.
+     * @param delayTicks the delay before the task runs, in ticks.
+     */
+    void runAtLocationLater(Location location, Runnable task, long delayTicks);
+
+    /**
+     * Checks if the current thread owns the specified location, so the location can be touched directly.
+     *
+     * @param location the location to check.
+     * @return true if the current thread owns the location, false otherwise.
+     */
+    boolean isOwnedByCurrentThread(Location location);
+
+    /**
+     * Runs a task on the thread owning the specified entity. The task is dropped
+     * if the entity is removed before it runs.
+     *
+     * @param entity the entity the task touches.
+     * @param task the task to run.
+     */
+    void runForEntity(Entity entity, Runnable task);
+
+    /**
+     * Creates the scheduler matching the running server.
+     *
+     * @param plugin the plugin owning the scheduled tasks.
+     * @return a {@link FoliaTaskScheduler} on Folia, a {@link BukkitTaskScheduler} otherwise.
+     */
+    static TaskScheduler create(Plugin plugin) {
+        return FoliaTaskScheduler.isSupported() ? new FoliaTaskScheduler(plugin) : new BukkitTaskScheduler(plugin);
+    }
+
+    /**
+     * A scheduled repeating task.
+     */
+    interface Task {
+
+        /**
+         * Cancels the task. A run that already started is not interrupted.
+         */
+        void cancel();
+    }
+}
@@ -0,0 +1,265 @@
+package dev.cwhead.GravesXAddon.selection;
+
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import dev.cwhead.GravesXAddon.util.GraveSiteReservation;
+import org.bukkit.Location;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Chooses and reserves free grave sites of one graveyard, keeping the free grave sites in
+ * a structure suited to its {@link SelectionStrategy}, so choosing a grave site never scans
+ * the whole graveyard.
+ * <p>
+ * The occupancy state of each {@link GraveSite} stays the source of truth; the free structure
+ * only tracks which grave sites are worth trying. A chosen grave site is claimed with a
+ * compare-and-set and dropped from the structure if that fails, and the structure is told
+ * about every grave site that becomes free again through {@link #update(GraveSite)}.
+ * Reservations that expire without being committed are returned to the structure the next
+ * time a grave site is reserved.
+ * <p>
+ * The structure is built on first use from the states of the grave sites at that time.
+ * All methods synchronize on the allocator.
+ */
+public abstract class GraveSiteAllocator {
+
+    private final List<GraveSite> candidates;
+    private final Set<String> boundWorlds;
+    private final PriorityQueue<Reservation> reservations = new PriorityQueue<>();
+    private GraveSite[] graveSites;
+    private Map<GraveSite, Integer> indexes;
+    private boolean[] free;
+    private int freeCount;
+
+    /**
+     * Constructs an allocator for the specified grave sites. Nothing is built yet.
+     *
+     * @param graveSites the grave sites of the graveyard.
+     * @param boundWorlds the names of the loaded worlds; grave sites in other worlds are never chosen.
+     */
+    protected GraveSiteAllocator(List<GraveSite> graveSites, Set<String> boundWorlds) {
+        this.candidates = graveSites;
+        this.boundWorlds = boundWorlds;
+    }
+
+    /**
+     * Chooses and reserves a free grave site.
+     *
+     * @param near the location the grave site should be close to, or null if it does not matter.
+     * @param random the random number generator used by random choices.
+     * @param timeoutMillis the time in milliseconds after which the reservation expires if it is not committed.
+     * @return the {@link GraveSiteReservation} of the chosen grave site, or null if no grave site is free.
+     */
+    public synchronized GraveSiteReservation reserve(Location near, Random random, long timeoutMillis) {
+        ensureBuilt();
+        reclaimExpired();
+        return reserveNext(near, random, timeoutMillis);
+    }
+
+    /**
+     * Chooses and reserves a free grave site for each of several locations in a single pass,
+     * such as for the players who died in the same tick. Each grave site is chosen as by
+     * {@link #reserve(Location, Random, long)}, in the order of the locations.
+     *
+     * @param nears the locations the grave sites should be close to; an entry may be null if it does not matter.
+     * @param random the random number generator used by random choices.
+     * @param timeoutMillis the time in milliseconds after which the reservations expire if they are not committed.
+     * @return the reservations in the order of the locations, with null for each location no grave site was free for.
+     */
+    public synchronized List<GraveSiteReservation> reserveAll(List<Location> nears, Random random, long timeoutMillis) {
+        ensureBuilt();
+        reclaimExpired();
+        List<GraveSiteReservation> reserved = new ArrayList<>(nears.size());
+        for (Location near : nears) {
+            reserved.add(freeCount > 0 ? reserveNext(near, random, timeoutMillis) : null);
+        }
+        return reserved;
+    }
+
+    /**
+     * Chooses and reserves a free grave site from the built free structure.
+     *
+     * @param near the location the grave site should be close to, or null if it does not matter.
+     * @param random the random number generator used by random choices.
+     * @param timeoutMillis the time in milliseconds after which the reservation expires if it is not committed.
+     * @return the {@link GraveSiteReservation} of the chosen grave site, or null if no grave site is free.
+     */
+    private GraveSiteReservation reserveNext(Location near, Random random, long timeoutMillis) {
+        while (true) {
+            int index = select(near, random);
+            if (index < 0) {
+                return null;
+            }
+
+            markTaken(index);
+            GraveSite graveSite = graveSites[index];
+            long stamp = graveSite.reserve(timeoutMillis);
+            if (stamp != 0L) {
+                reservations.add(new Reservation(index, stamp));
+                return new GraveSiteReservation(graveSite, stamp);
+            }
+            // Claimed without this allocator knowing, e.g. through an older cache version
+            track(index);
+        }
+    }
+
+    /**
+     * Synchronizes the free structure with the current state of a grave site after it changed.
+     * Grave sites of other graveyards are ignored.
+     *
+     * @param graveSite the grave site whose state changed.
+     */
+    public synchronized void update(GraveSite graveSite) {
+        if (graveSites == null) {
+            // Not built yet; the build reads the current state
+            return;
+        }
+        Integer index = indexes.get(graveSite);
+        if (index == null) {
+            return;
+        }
+        if (graveSite.isAvailable()) {
+            markFree(index);
+        } else {
+            markTaken(index);
+            track(index);
+        }
+    }
+
+    /**
+     * Counts the grave sites this allocator considers free.
+     *
+     * @return the number of free grave sites.
+     */
+    public synchronized int getFreeCount() {
+        ensureBuilt();
+        reclaimExpired();
+        return freeCount;
+    }
+
+    /**
+     * Builds the free structure for the grave sites.
+     *
+     * @param graveSites the grave sites in bound worlds, indexed in the order they were added.
+     */
+    protected abstract void build(GraveSite[] graveSites);
+
+    /**
+     * Chooses a free grave site without removing it.
+     *
+     * @param near the location the grave site should be close to, or null if it does not matter.
+     * @param random the random number generator used by random choices.
+     * @return the index of the grave site, or -1 if no grave site is free.
+     */
+    protected abstract int select(Location near, Random random);
+
+    /**
+     * Adds a grave site to the free structure. Only called for grave sites not in it.
+     *
+     * @param index the index of the grave site.
+     */
+    protected abstract void addFree(int index);
+
+    /**
+     * Removes a grave site from the free structure. Only called for grave sites in it.
+     *
+     * @param index the index of the grave site.
+     */
+    protected abstract void removeFree(int index);
+
+    /**
+     * Builds the free structure if it was not built yet.
+     */
+    private void ensureBuilt() {
+        if (graveSites != null) {
+            return;
+        }
+
+        List<GraveSite> bound = new ArrayList<>(candidates.size());
+        for (GraveSite graveSite : candidates) {
+            if (boundWorlds.contains(graveSite.getWorldName())) {
+                bound.add(graveSite);
+            }
+        }
+        graveSites = bound.toArray(new GraveSite[0]);
+        indexes = new IdentityHashMap<>(graveSites.length * 2);
+        free = new boolean[graveSites.length];
+        for (int i = 0; i < graveSites.length; i++) {
+            indexes.put(graveSites[i], i);
+        }
+        build(graveSites);
+        for (int i = 0; i < graveSites.length; i++) {
+            if (graveSites[i].isAvailable()) {
+                markFree(i);
+            } else {
+                track(i);
+            }
+        }
+    }
+
+    /**
+     * Moves every grave site whose reservation expired uncommitted back into the free structure.
+     */
+    private void reclaimExpired() {
+        long now = System.currentTimeMillis();
+        while (!reservations.isEmpty() && reservations.peek().expiry <= now) {
+            int index = reservations.poll().index;
+            if (graveSites[index].isAvailable()) {
+                markFree(index);
+            }
+        }
+    }
+
+    /**
+     * Remembers a reserved grave site, so it is returned to the free structure once the reservation expires.
+     *
+     * @param index the index of the grave site.
+     */
+    private void track(int index) {
+        long expiry = graveSites[index].getReservationExpiry();
+        if (expiry > 0) {
+            reservations.add(new Reservation(index, expiry));
+        }
+    }
+
+    private void markFree(int index) {
+        if (!free[index]) {
+            free[index] = true;
+            freeCount++;
+            addFree(index);
+        }
+    }
+
+    private void markTaken(int index) {
+        if (free[index]) {
+            free[index] = false;
+            freeCount--;
+            removeFree(index);
+        }
+    }
+
+    /**
+     * A reservation made or observed by this allocator, ordered by expiry.
+     */
+    private static final class Reservation implements Comparable<Reservation> {
+
+        private final int index;
+        private final long expiry;
+
+        private Reservation(int index, long expiry) {
+            this.index = index;
+            this.expiry = expiry;
+        }
+
+        @Override
+        public int compareTo(Reservation other) {
+            return Long.compare(expiry, other.expiry);
+        }
+    }
+}
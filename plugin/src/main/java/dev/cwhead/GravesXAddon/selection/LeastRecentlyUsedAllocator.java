@@ -0,0 +1,72 @@
+package dev.cwhead.GravesXAddon.selection;
+
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import org.bukkit.Location;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Chooses the grave site that has been free for the longest time.
+ * The free grave sites form a doubly linked list in the order they became free, stored in
+ * two index arrays, so adding, removing and choosing a grave site all take constant time.
+ * Grave sites that are free when the allocator is built are queued in the order they were added.
+ */
+class LeastRecentlyUsedAllocator extends GraveSiteAllocator {
+
+    private static final int NONE = -1;
+
+    private int[] previous;
+    private int[] next;
+    private int head = NONE;
+    private int tail = NONE;
+
+    LeastRecentlyUsedAllocator(List<GraveSite> graveSites, Set<String> boundWorlds) {
+        super(graveSites, boundWorlds);
+    }
+
+    @Override
+    protected void build(GraveSite[] graveSites) {
+        previous = new int[graveSites.length];
+        next = new int[graveSites.length];
+        Arrays.fill(previous, NONE);
+        Arrays.fill(next, NONE);
+        head = NONE;
+        tail = NONE;
+    }
+
+    @Override
+    protected int select(Location near, Random random) {
+        return head;
+    }
+
+    @Override
+    protected void addFree(int index) {
+        previous[index] = tail;
+        next[index] = NONE;
+        if (tail != NONE) {
+            next[tail] = index;
+        } else {
+            head = index;
+        }
+        tail = index;
+    }
+
+    @Override
+    protected void removeFree(int index) {
+        if (previous[index] != NONE) {
+            next[previous[index]] = next[index];
+        } else {
+            head = next[index];
+        }
+        if (next[index] != NONE) {
+            previous[next[index]] = previous[index];
+        } else {
+            tail = previous[index];
+        }
+        previous[index] = NONE;
+        next[index] = NONE;
+    }
+}
@@ -0,0 +1,106 @@
+package dev.cwhead.GravesXAddon.selection;
+
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import dev.cwhead.GravesXAddon.util.KdTree;
+import org.bukkit.Location;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Chooses the free grave site closest to where the player died.
+ * The grave sites of each world are stored in a {@link KdTree} whose available points are the
+ * free grave sites, so a search skips every part of the graveyard without free grave sites
+ * and a change of a grave site only updates the counts on its path to the root.
+ */
+class NearestAllocator extends GraveSiteAllocator {
+
+    private final Map<String, Tree> trees = new HashMap<>();
+    private Tree[] treeOf;
+    private int[] pointOf;
+
+    NearestAllocator(List<GraveSite> graveSites, Set<String> boundWorlds) {
+        super(graveSites, boundWorlds);
+    }
+
+    @Override
+    protected void build(GraveSite[] graveSites) {
+        Map<String, List<Integer>> worldIndexes = new HashMap<>();
+        for (int i = 0; i < graveSites.length; i++) {
+            worldIndexes.computeIfAbsent(graveSites[i].getWorldName(), k -> new ArrayList<>()).add(i);
+        }
+
+        treeOf = new Tree[graveSites.length];
+        pointOf = new int[graveSites.length];
+        trees.clear();
+        for (Map.Entry<String, List<Integer>> entry : worldIndexes.entrySet()) {
+            List<Integer> indexes = entry.getValue();
+            int[] indexOf = new int[indexes.size()];
+            double[][] points = new double[indexes.size()][];
+            for (int point = 0; point < points.length; point++) {
+                GraveSite graveSite = graveSites[indexes.get(point)];
+                indexOf[point] = indexes.get(point);
+                points[point] = new double[] {graveSite.getBlockX() + 0.5, graveSite.getBlockY(), graveSite.getBlockZ() + 0.5};
+            }
+
+            Tree tree = new Tree(new KdTree(points), indexOf);
+            trees.put(entry.getKey(), tree);
+            for (int point = 0; point < indexOf.length; point++) {
+                treeOf[indexOf[point]] = tree;
+                pointOf[indexOf[point]] = point;
+            }
+        }
+    }
+
+    @Override
+    protected int select(Location near, Random random) {
+        Tree nearTree = near != null && near.getWorld() != null ? trees.get(near.getWorld().getName()) : null;
+        if (nearTree != null) {
+            int index = nearTree.nearest(near.getX(), near.getY(), near.getZ());
+            if (index >= 0) {
+                return index;
+            }
+        }
+
+        // No free grave site in the world of the location, so any world will do
+        for (Tree tree : trees.values()) {
+            if (tree != nearTree && tree.kdTree.hasAvailable()) {
+                return near != null ? tree.nearest(near.getX(), near.getY(), near.getZ()) : tree.nearest(0, 0, 0);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    protected void addFree(int index) {
+        treeOf[index].kdTree.setAvailable(pointOf[index], true);
+    }
+
+    @Override
+    protected void removeFree(int index) {
+        treeOf[index].kdTree.setAvailable(pointOf[index], false);
+    }
+
+    /**
+     * The k-d tree over the grave sites of one world, with the grave site index of each of its points.
+     */
+    private static final class Tree {
+
+        private final KdTree kdTree;
+        private final int[] indexOf;
+
+        private Tree(KdTree kdTree, int[] indexOf) {
+            this.kdTree = kdTree;
+            this.indexOf = indexOf;
+        }
+
+        private int nearest(double x, double y, double z) {
+            int point = kdTree.nearest(x, y, z);
+            return point >= 0 ? indexOf[point] : -1;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package dev.cwhead.GravesXAddon.selection;
+
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import org.bukkit.Location;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Chooses free grave sites in the order they were added, keeping one bit per grave site.
+ * Finding the next free grave site scans the bit set a word of 64 grave sites at a time.
+ * <p>
+ * Filling in order always starts the scan at the first grave site, so graves are packed
+ * at the start of the graveyard. Round-robin continues after the grave site chosen last,
+ * spreading graves over the whole graveyard.
+ */
+class OrderedAllocator extends GraveSiteAllocator {
+
+    private final boolean roundRobin;
+    private BitSet free;
+    private int cursor;
+
+    OrderedAllocator(List<GraveSite> graveSites, Set<String> boundWorlds, boolean roundRobin) {
+        super(graveSites, boundWorlds);
+        this.roundRobin = roundRobin;
+    }
+
+    @Override
+    protected void build(GraveSite[] graveSites) {
+        free = new BitSet(graveSites.length);
+        cursor = 0;
+    }
+
+    @Override
+    protected int select(Location near, Random random) {
+        if (!roundRobin) {
+            return free.nextSetBit(0);
+        }
+
+        int index = free.nextSetBit(cursor);
+        if (index < 0) {
+            index = free.nextSetBit(0);
+        }
+        if (index >= 0) {
+            cursor = index + 1;
+        }
+        return index;
+    }
+
+    @Override
+    protected void addFree(int index) {
+        free.set(index);
+    }
+
+    @Override
+    protected void removeFree(int index) {
+        free.clear(index);
+    }
+}
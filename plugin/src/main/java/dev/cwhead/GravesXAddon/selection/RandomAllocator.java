@@ -0,0 +1,51 @@
+package dev.cwhead.GravesXAddon.selection;
+
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import org.bukkit.Location;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Chooses a free grave site at random from a dense free list.
+ * A grave site is removed by moving the last entry of the list into its slot, so adding,
+ * removing and choosing a grave site all take constant time.
+ */
+class RandomAllocator extends GraveSiteAllocator {
+
+    private int[] freeList;
+    private int[] positions;
+    private int size;
+
+    RandomAllocator(List<GraveSite> graveSites, Set<String> boundWorlds) {
+        super(graveSites, boundWorlds);
+    }
+
+    @Override
+    protected void build(GraveSite[] graveSites) {
+        freeList = new int[graveSites.length];
+        positions = new int[graveSites.length];
+        size = 0;
+    }
+
+    @Override
+    protected int select(Location near, Random random) {
+        return size > 0 ? freeList[random.nextInt(size)] : -1;
+    }
+
+    @Override
+    protected void addFree(int index) {
+        freeList[size] = index;
+        positions[index] = size;
+        size++;
+    }
+
+    @Override
+    protected void removeFree(int index) {
+        int position = positions[index];
+        int last = freeList[--size];
+        freeList[position] = last;
+        positions[last] = position;
+    }
+}
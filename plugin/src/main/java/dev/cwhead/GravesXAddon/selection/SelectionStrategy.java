@@ -0,0 +1,87 @@
+package dev.cwhead.GravesXAddon.selection;
+
+import dev.cwhead.GravesXAddon.util.GraveSite;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The ways a free grave site of a graveyard can be chosen for a new grave.
+ */
+public enum SelectionStrategy {
+
+    /**
+     * Any free grave site, chosen at random.
+     */
+    RANDOM,
+
+    /**
+     * The free grave site closest to where the player died.
+     */
+    NEAREST,
+
+    /**
+     * The first free grave site, in the order the grave sites were added.
+     */
+    FILL_IN_ORDER,
+
+    /**
+     * The next free grave site after the one chosen last, in the order the grave sites were added.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * The grave site that has been free for the longest time.
+     */
+    LEAST_RECENTLY_USED;
+
+    /**
+     * Gets the name of this strategy as written in the configuration, such as "fill-in-order".
+     *
+     * @return the configuration name.
+     */
+    public String getConfigName() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    /**
+     * Parses a strategy from its configuration name, ignoring case.
+     *
+     * @param name the configuration name.
+     * @return the {@link SelectionStrategy}, or null if the name is unknown.
+     */
+    public static SelectionStrategy fromConfigName(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates an allocator choosing grave sites with this strategy.
+     *
+     * @param graveSites the grave sites of the graveyard.
+     * @param boundWorlds the names of the loaded worlds; grave sites in other worlds are never chosen.
+     * @return the new {@link GraveSiteAllocator}.
+     */
+    public GraveSiteAllocator createAllocator(List<GraveSite> graveSites, Set<String> boundWorlds) {
+        switch (this) {
+            case NEAREST:
+                return new NearestAllocator(graveSites, boundWorlds);
+            case FILL_IN_ORDER:
+                return new OrderedAllocator(graveSites, boundWorlds, false);
+            case ROUND_ROBIN:
+                return new OrderedAllocator(graveSites, boundWorlds, true);
+            case LEAST_RECENTLY_USED:
+                return new LeastRecentlyUsedAllocator(graveSites, boundWorlds);
+            case RANDOM:
+            default:
+                return new RandomAllocator(graveSites, boundWorlds);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package dev.cwhead.GravesXAddon.storage;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches the Graveyards folder for graveyard files that are created, changed or deleted
+ * while the server is running, and reports them in debounced batches.
+ * <p>
+ * Events are collected on a daemon thread until no further event arrived for the debounce
+ * delay, so a file written in several steps, or many files pushed at once, are reported as a
+ * single batch of file names. The batch is handed to the listener on the watcher thread.
+ */
+public class GraveyardFileWatcher {
+
+    private final Path folder;
+    private final long debounceMillis;
+    private final Consumer<Set<String>> listener;
+    private final Logger logger;
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Constructs a GraveyardFileWatcher for the specified folder. Nothing is watched until {@link #start()} is called.
+     *
+     * @param folder the folder containing the graveyard files.
+     * @param debounceMillis the time without further events after which a batch is reported, in milliseconds.
+     * @param listener receives the names of the graveyard files that changed, such as "spawn.yml".
+     * @param logger the logger used to report watch failures.
+     */
+    public GraveyardFileWatcher(Path folder, long debounceMillis, Consumer<Set<String>> listener, Logger logger) {
+        this.folder = folder;
+        this.debounceMillis = Math.max(0L, debounceMillis);
+        this.listener = listener;
+        this.logger = logger;
+    }
+
+    /**
+     * Starts watching the folder.
+     *
+     * @return true if the folder is watched, false if it could not be registered.
+     */
+    public synchronized boolean start() {
+        if (thread != null) {
+            return true;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not watch graveyard folder " + folder + ". Graveyard files will not be reloaded.", e);
+            close(watchService);
+            watchService = null;
+            return false;
+        }
+
+        thread = new Thread(this::run, "Graveyards-FileWatcher");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Stops watching the folder. Changes not reported yet are dropped.
+     */
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        close(watchService);
+        thread.interrupt();
+        thread = null;
+        watchService = null;
+    }
+
+    /**
+     * Collects events until the watch service is closed, reporting a batch once the
+     * debounce delay passed without a new event.
+     */
+    private void run() {
+        WatchService service = watchService;
+        Set<String> changed = new LinkedHashSet<>();
+        try {
+            while (true) {
+                WatchKey key = changed.isEmpty() ? service.take() : service.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    report(changed);
+                    changed = new LinkedHashSet<>();
+                    continue;
+                }
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // Events were lost, so every file may have changed; deletions are picked up by the next full load
+                        addAllFiles(changed);
+                        continue;
+                    }
+                    String fileName = event.context().toString();
+                    if (fileName.endsWith(".yml")) {
+                        changed.add(fileName);
+                    }
+                }
+                if (!key.reset()) {
+                    logger.warning("Graveyard folder " + folder + " is no longer watched.");
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    /**
+     * Hands a batch of changed files to the listener, keeping the watcher alive if it fails.
+     *
+     * @param changed the names of the changed files.
+     */
+    private void report(Set<String> changed) {
+        try {
+            listener.accept(changed);
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Could not reload changed graveyard files " + changed, e);
+        }
+    }
+
+    private void addAllFiles(Set<String> changed) {
+        String[] fileNames = folder.toFile().list((dir, name) -> name.endsWith(".yml"));
+        if (fileNames != null) {
+            for (String fileName : fileNames) {
+                changed.add(fileName);
+            }
+        }
+    }
+
+    private static void close(WatchService watchService) {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package dev.cwhead.GravesXAddon.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * A compact binary snapshot of every parsed graveyard file, stored next to the YAML files.
+ * Each entry remembers a SHA-256 hash of the contents of the file it was parsed from,
+ * so only files that changed since the snapshot was written have to be parsed again.
+ * The entries of the files rewritten by an occupancy journal compaction are updated
+ * with them, so occupancy changes do not make the snapshot miss.
+ * <p>
+ * The file starts with a magic number, a format version, the payload length and a CRC32
+ * checksum of the payload. Snapshots that fail any of these checks are ignored.
+ * The snapshot is read into memory in full and replaced through a temporary file,
+ * so a snapshot being read is never modified.
+ */
+public class GraveyardSnapshotFile {
+
+    private static final int MAGIC = 0x47594E53;
+    private static final int VERSION = 4;
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 8;
+
+    private final File file;
+    private final Logger logger;
+
+    /**
+     * Constructs a GraveyardSnapshotFile backed by the specified file.
+     *
+     * @param file the snapshot file.
+     * @param logger the logger used to report unreadable or unwritable snapshots.
+     */
+    public GraveyardSnapshotFile(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+    }
+
+    /**
+     * Reads the snapshot into memory and verifies its header and checksum.
+     *
+     * @return the snapshot entries keyed by graveyard file name, or an empty map if there is no valid snapshot.
+     */
+    public Map<String, Entry> read() {
+        Map<String, Entry> entries = new HashMap<>();
+        if (!file.isFile() || file.length() < HEADER_SIZE) {
+            return entries;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return entries;
+            }
+
+            int payloadLength = buffer.getInt();
+            long checksum = buffer.getLong();
+            if (payloadLength != buffer.remaining()) {
+                logger.warning("Graveyard snapshot is truncated and will be rebuilt.");
+                return entries;
+            }
+
+            ByteBuffer payload = buffer.slice();
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if (crc.getValue() != checksum) {
+                logger.warning("Graveyard snapshot checksum mismatch. It will be rebuilt.");
+                return entries;
+            }
+
+            int entryCount = payload.getInt();
+            for (int i = 0; i < entryCount; i++) {
+                Entry entry = Entry.read(payload);
+                entries.put(entry.fileName, entry);
+            }
+        } catch (IOException | BufferUnderflowException e) {
+            logger.log(Level.WARNING, "Could not read graveyard snapshot. It will be rebuilt.", e);
+            entries.clear();
+        }
+        return entries;
+    }
+
+    /**
+     * Writes a new snapshot containing the specified entries, replacing the old one atomically.
+     *
+     * @param entries the entries to write.
+     */
+    public void write(Collection<Entry> entries) {
+        try {
+            ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+            DataOutputStream payload = new DataOutputStream(payloadBytes);
+            payload.writeInt(entries.size());
+            for (Entry entry : entries) {
+                entry.write(payload);
+            }
+            payload.flush();
+
+            byte[] data = payloadBytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(data);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(data.length).putLong(crc.getValue()).flip();
+
+            File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                channel.write(new ByteBuffer[]{header, ByteBuffer.wrap(data)});
+                channel.force(true);
+            }
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not write graveyard snapshot.", e);
+        }
+    }
+
+    /**
+     * Replaces the entries of the specified graveyard files in the snapshot, keeping every other entry.
+     * Used after graveyard files were rewritten, such as by an occupancy journal compaction.
+     *
+     * @param updatedEntries the new entries, keyed by graveyard file name.
+     */
+    public void update(Map<String, Entry> updatedEntries) {
+        if (updatedEntries.isEmpty()) {
+            return;
+        }
+        Map<String, Entry> entries = read();
+        entries.putAll(updatedEntries);
+        write(entries.values());
+    }
+
+    /**
+     * Computes the hash of the contents of a graveyard file, which identifies the version of
+     * the file an entry was parsed from.
+     *
+     * @param content the contents of the file.
+     * @return the SHA-256 hash of the contents.
+     */
+    public static byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes a string as its UTF-8 length followed by its bytes.
+     */
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+     */
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The parsed contents of a single graveyard file.
+     */
+    public static final class Entry {
+        private final String fileName;
+        private final byte[] contentHash;
+        private final String graveyardName;
+        private final Position pos1;
+        private final Position pos2;
+        private final double margin;
+        private final List<Site> sites;
+
+        /**
+         * Constructs an Entry for a parsed graveyard file.
+         *
+         * @param fileName the name of the graveyard file.
+         * @param contentHash the {@link #hash(byte[]) hash} of the contents the file was parsed from.
+         * @param graveyardName the graveyard name stored in the file, or null if it is missing.
+         * @param pos1 the first corner of the graveyard area, or null if it is missing.
+         * @param pos2 the second corner of the graveyard area, or null if it is missing.
+         * @param margin the distance the graveyard extends beyond its area and grave sites.
+         * @param sites the grave sites stored in the file.
+         */
+        public Entry(String fileName, byte[] contentHash, String graveyardName,
+                     Position pos1, Position pos2, double margin, List<Site> sites) {
+            this.fileName = fileName;
+            this.contentHash = contentHash;
+            this.graveyardName = graveyardName;
+            this.pos1 = pos1;
+            this.pos2 = pos2;
+            this.margin = margin;
+            this.sites = sites;
+        }
+
+        /**
+         * Checks whether this entry still describes a graveyard file.
+         *
+         * @param contentHash the {@link #hash(byte[]) hash} of the current contents of the file.
+         * @return true if the file has the contents this entry was parsed from.
+         */
+        public boolean matches(byte[] contentHash) {
+            return Arrays.equals(this.contentHash, contentHash);
+        }
+
+        /**
+         * Gets the name of the graveyard file this entry was parsed from.
+         *
+         * @return the file name.
+         */
+        public String getFileName() {
+            return fileName;
+        }
+
+        /**
+         * Gets the graveyard name stored in the file.
+         *
+         * @return the graveyard name, or null if the file does not contain one.
+         */
+        public String getGraveyardName() {
+            return graveyardName;
+        }
+
+        /**
+         * Gets the first corner of the graveyard area.
+         *
+         * @return the first corner, or null if the file does not contain one.
+         */
+        public Position getPos1() {
+            return pos1;
+        }
+
+        /**
+         * Gets the second corner of the graveyard area.
+         *
+         * @return the second corner, or null if the file does not contain one.
+         */
+        public Position getPos2() {
+            return pos2;
+        }
+
+        /**
+         * Gets the distance the graveyard extends beyond its area and grave sites.
+         *
+         * @return the margin in blocks.
+         */
+        public double getMargin() {
+            return margin;
+        }
+
+        /**
+         * Gets the grave sites stored in the file.
+         *
+         * @return the list of grave sites.
+         */
+        public List<Site> getSites() {
+            return sites;
+        }
+
+        private void write(DataOutputStream output) throws IOException {
+            writeString(output, fileName);
+            output.writeInt(contentHash.length);
+            output.write(contentHash);
+            output.writeBoolean(graveyardName != null);
+            if (graveyardName != null) {
+                writeString(output, graveyardName);
+            }
+            Position.write(output, pos1);
+            Position.write(output, pos2);
+            output.writeDouble(margin);
+            output.writeInt(sites.size());
+            for (Site site : sites) {
+                writeString(output, site.id);
+                writeString(output, site.worldName);
+                output.writeDouble(site.x);
+                output.writeDouble(site.y);
+                output.writeDouble(site.z);
+                output.writeBoolean(site.occupied);
+                output.writeBoolean(site.graveUUID != null);
+                if (site.graveUUID != null) {
+                    output.writeLong(site.graveUUID.getMostSignificantBits());
+                    output.writeLong(site.graveUUID.getLeastSignificantBits());
+                }
+            }
+        }
+
+        private static Entry read(ByteBuffer buffer) {
+            String fileName = readString(buffer);
+            byte[] contentHash = new byte[buffer.getInt()];
+            buffer.get(contentHash);
+            String graveyardName = buffer.get() != 0 ? readString(buffer) : null;
+            Position pos1 = Position.read(buffer);
+            Position pos2 = Position.read(buffer);
+            double margin = buffer.getDouble();
+            int siteCount = buffer.getInt();
+            List<Site> sites = new ArrayList<>(siteCount);
+            for (int i = 0; i < siteCount; i++) {
+                sites.add(new Site(readString(buffer), readString(buffer),
+                        buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.get() != 0,
+                        buffer.get() != 0 ? new UUID(buffer.getLong(), buffer.getLong()) : null));
+            }
+            return new Entry(fileName, contentHash, graveyardName, pos1, pos2, margin, sites);
+        }
+    }
+
+    /**
+     * A stored corner position of a graveyard area.
+     */
+    public static final class Position {
+        private final String worldName;
+        private final double x;
+        private final double y;
+        private final double z;
+
+        /**
+         * Constructs a Position from the values stored in a graveyard file.
+         *
+         * @param worldName the name of the world the position is in.
+         * @param x the X-coordinate of the position.
+         * @param y the Y-coordinate of the position.
+         * @param z the Z-coordinate of the position.
+         */
+        public Position(String worldName, double x, double y, double z) {
+            this.worldName = worldName;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        /**
+         * Gets the name of the world the position is in.
+         *
+         * @return the world name.
+         */
+        public String getWorldName() {
+            return worldName;
+        }
+
+        /**
+         * Gets the X-coordinate of the position.
+         *
+         * @return the X-coordinate.
+         */
+        public double getX() {
+            return x;
+        }
+
+        /**
+         * Gets the Y-coordinate of the position.
+         *
+         * @return the Y-coordinate.
+         */
+        public double getY() {
+            return y;
+        }
+
+        /**
+         * Gets the Z-coordinate of the position.
+         *
+         * @return the Z-coordinate.
+         */
+        public double getZ() {
+            return z;
+        }
+
+        private static void write(DataOutputStream output, Position position) throws IOException {
+            output.writeBoolean(position != null);
+            if (position != null) {
+                writeString(output, position.worldName);
+                output.writeDouble(position.x);
+                output.writeDouble(position.y);
+                output.writeDouble(position.z);
+            }
+        }
+
+        private static Position read(ByteBuffer buffer) {
+            return buffer.get() != 0 ? new Position(readString(buffer), buffer.getDouble(), buffer.getDouble(), buffer.getDouble()) : null;
+        }
+    }
+
+    /**
+     * The stored data of a single grave site.
+     */
+    public static final class Site {
+        private final String id;
+        private final String worldName;
+        private final double x;
+        private final double y;
+        private final double z;
+        private final boolean occupied;
+        private final UUID graveUUID;
+
+        /**
+         * Constructs a Site from the values stored in a graveyard file.
+         *
+         * @param id the key of the grave site in the graveyard file.
+         * @param worldName the name of the world the grave site is in.
+         * @param x the X-coordinate of the grave site.
+         * @param y the Y-coordinate of the grave site.
+         * @param z the Z-coordinate of the grave site.
+         * @param occupied the occupancy status of the grave site.
+         */
+        public Site(String id, String worldName, double x, double y, double z, boolean occupied) {
+            this(id, worldName, x, y, z, occupied, null);
+        }
+
+        /**
+         * Constructs a Site from the values stored in a graveyard file, including the grave occupying it.
+         *
+         * @param id the key of the grave site in the graveyard file.
+         * @param worldName the name of the world the grave site is in.
+         * @param x the X-coordinate of the grave site.
+         * @param y the Y-coordinate of the grave site.
+         * @param z the Z-coordinate of the grave site.
+         * @param occupied the occupancy status of the grave site.
+         * @param graveUUID the UUID of the grave occupying the grave site, or null if none is stored.
+         */
+        public Site(String id, String worldName, double x, double y, double z, boolean occupied, UUID graveUUID) {
+            this.id = id;
+            this.worldName = worldName;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.occupied = occupied;
+            this.graveUUID = graveUUID;
+        }
+
+        /**
+         * Gets the key of the grave site in the graveyard file.
+         *
+         * @return the grave site key.
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Gets the name of the world the grave site is in.
+         *
+         * @return the world name.
+         */
+        public String getWorldName() {
+            return worldName;
+        }
+
+        /**
+         * Gets the X-coordinate of the grave site.
+         *
+         * @return the X-coordinate.
+         */
+        public double getX() {
+            return x;
+        }
+
+        /**
+         * Gets the Y-coordinate of the grave site.
+         *
+         * @return the Y-coordinate.
+         */
+        public double getY() {
+            return y;
+        }
+
+        /**
+         * Gets the Z-coordinate of the grave site.
+         *
+         * @return the Z-coordinate.
+         */
+        public double getZ() {
+            return z;
+        }
+
+        /**
+         * Checks if the grave site was occupied when the file was parsed.
+         *
+         * @return true if the grave site is occupied; false otherwise.
+         */
+        public boolean isOccupied() {
+            return occupied;
+        }
+
+        /**
+         * Gets the UUID of the grave that occupied the grave site when the file was parsed.
+         *
+         * @return the grave UUID, or null if none is stored.
+         */
+        public UUID getGraveUUID() {
+            return graveUUID;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package dev.cwhead.GravesXAddon.storage;
+
+import dev.cwhead.GravesXAddon.type.Graveyard;
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import org.bukkit.Location;
+
+import java.util.List;
+
+/**
+ * The persistent store of graveyards and their grave sites behind the
+ * {@link dev.cwhead.GravesXAddon.managers.CacheManager}.
+ * The cache is always loaded from a storage in full and then kept up to date in memory,
+ * so a storage only has to persist individual changes and never serves lookups.
+ * <p>
+ * Occupancy changes are recorded in memory and written in batches by {@link #flush()},
+ * which the cache manager calls periodically from a background thread.
+ */
+public interface GraveyardStorage {
+
+    /**
+     * Loads every stored graveyard with its grave sites. Called off the main thread.
+     * The returned grave sites are not bound to a world yet.
+     *
+     * @return the stored graveyards.
+     */
+    List<StoredGraveyard> loadGraveyards();
+
+    /**
+     * Checks if a graveyard is stored, whether or not it has been loaded into the cache yet.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @return true if a graveyard with that name is stored.
+     */
+    boolean hasGraveyard(String graveyardName);
+
+    /**
+     * Stores a new graveyard without any grave sites. An existing graveyard with the same name
+     * is never overwritten.
+     *
+     * @param graveyard the {@link Graveyard} to store.
+     * @return true if the graveyard was stored, false if it already exists or could not be stored.
+     */
+    boolean saveGraveyard(Graveyard graveyard);
+
+    /**
+     * Deletes a graveyard and all of its grave sites.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @return true if the graveyard was deleted, false otherwise.
+     */
+    boolean deleteGraveyard(String graveyardName);
+
+    /**
+     * Stores a new unoccupied grave site in a graveyard. The grave site is given the next key
+     * of a counter stored with the graveyard, which only ever grows, so keys of removed grave
+     * sites are never reused. Nothing is stored if the graveyard is not stored.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param location the location of the grave site.
+     * @return the stored {@link GraveSite}, or null if it could not be stored.
+     */
+    GraveSite addGraveSite(String graveyardName, Location location);
+
+    /**
+     * Stores several new unoccupied grave sites in a graveyard with a single write.
+     * The grave sites are given consecutive keys from the counter of the graveyard.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param locations the locations of the grave sites.
+     * @return the stored grave sites, in the order of the locations, or null if they could not be stored.
+     */
+    List<GraveSite> addGraveSites(String graveyardName, List<Location> locations);
+
+    /**
+     * Deletes a grave site from a graveyard.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param graveSiteId the key of the grave site.
+     * @return true if the grave site was deleted, false if it does not exist or could not be deleted.
+     */
+    boolean removeGraveSite(String graveyardName, String graveSiteId);
+
+    /**
+     * Records an occupancy change of a grave site, together with the UUID of the grave
+     * occupying it from {@link GraveSite#getGraveUUID()}. This only touches memory;
+     * the change is written by the next {@link #flush()}.
+     *
+     * @param graveyardName the name of the graveyard containing the grave site.
+     * @param graveSite the grave site whose occupancy changed.
+     * @param occupied the new occupancy status of the grave site.
+     */
+    void recordOccupancy(String graveyardName, GraveSite graveSite, boolean occupied);
+
+    /**
+     * Writes every recorded occupancy change in a single batch.
+     *
+     * @return the number of changes written.
+     */
+    int flush();
+
+    /**
+     * Gets the number of bytes {@link #flush()} has written since the storage was opened.
+     *
+     * @return the number of bytes written, or -1 if the storage does not count them.
+     */
+    long getWrittenBytes();
+
+    /**
+     * Performs periodic maintenance of the stored data.
+     *
+     * @return the amount of work done, as defined by the storage, or 0 if there was nothing to do.
+     */
+    int compact();
+
+    /**
+     * Writes every recorded change and releases the resources held by this storage.
+     */
+    void close();
+}
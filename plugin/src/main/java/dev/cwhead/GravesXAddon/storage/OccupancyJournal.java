@@ -0,0 +1,263 @@
+package dev.cwhead.GravesXAddon.storage;
+
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A write-behind journal for grave site occupancy changes.
+ * Changes are recorded in memory and coalesced per grave site, appended to a compact
+ * binary journal in batches, and periodically compacted into the graveyard YAML files.
+ * Records still in the journal when the server stops are replayed on the next compaction.
+ * Each change also carries the UUID of the grave occupying the grave site.
+ * <p>
+ * Code editing graveyard files outside of this journal should synchronize on it,
+ * so a compaction running in the background never overwrites those edits.
+ */
+public class OccupancyJournal {
+
+    private final File journalFile;
+    private final File graveyardFolder;
+    private final Logger logger;
+    private final Map<String, Change> pending = new ConcurrentHashMap<>();
+    private long writtenBytes;
+
+    /**
+     * Constructs an OccupancyJournal writing to the specified journal file.
+     *
+     * @param journalFile the file the journal is appended to.
+     * @param graveyardFolder the folder containing the graveyard YAML files.
+     * @param logger the logger used to report persistence failures.
+     */
+    public OccupancyJournal(File journalFile, File graveyardFolder, Logger logger) {
+        this.journalFile = journalFile;
+        this.graveyardFolder = graveyardFolder;
+        this.logger = logger;
+    }
+
+    /**
+     * Records an occupancy change of a grave site. This only touches memory;
+     * a later change of the same grave site replaces this one before it is written.
+     * The grave currently on the grave site is recorded with the change.
+     *
+     * @param graveyardName the name of the graveyard containing the grave site.
+     * @param graveSite the grave site whose occupancy changed.
+     * @param occupied the new occupancy status of the grave site.
+     */
+    public void record(String graveyardName, GraveSite graveSite, boolean occupied) {
+        String worldName = graveSite.getWorldName() != null ? graveSite.getWorldName() : "";
+        String graveUUID = occupied && graveSite.getGraveUUID() != null ? graveSite.getGraveUUID().toString() : "";
+        Change change = new Change(graveyardName, graveSite.getId() != null ? graveSite.getId() : "", worldName,
+                graveSite.getBlockX(), graveSite.getBlockY(), graveSite.getBlockZ(), occupied, graveUUID);
+        pending.put(change.key(), change);
+    }
+
+    /**
+     * Gets the number of recorded changes that have not been written to the journal yet.
+     *
+     * @return the number of pending changes.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Gets the number of bytes appended to the journal file since this journal was constructed.
+     *
+     * @return the number of bytes written.
+     */
+    public synchronized long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    /**
+     * Appends all pending changes to the journal file in a single write and syncs it to disk.
+     *
+     * @return the number of changes written.
+     */
+    public synchronized int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        List<Change> batch = new ArrayList<>(pending.size());
+        for (String key : pending.keySet()) {
+            Change change = pending.remove(key);
+            if (change != null) {
+                batch.add(change);
+            }
+        }
+
+        try (FileOutputStream fileOutputStream = new FileOutputStream(journalFile, true);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutputStream))) {
+            for (Change change : batch) {
+                change.write(output);
+            }
+            output.flush();
+            fileOutputStream.getFD().sync();
+            writtenBytes += output.size();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not write grave site occupancy journal. Changes will be retried.", e);
+            for (Change change : batch) {
+                pending.putIfAbsent(change.key(), change);
+            }
+            return 0;
+        }
+        return batch.size();
+    }
+
+    /**
+     * Applies every change in the journal file to the graveyard YAML files, writing each
+     * affected graveyard file once, and then truncates the journal.
+     * This is also used on startup to replay a journal left behind by an unclean shutdown.
+     *
+     * @return the number of graveyard files that were rewritten.
+     */
+    public synchronized int compact() {
+        return compact((graveyardFile, config) -> { });
+    }
+
+    /**
+     * Applies every change in the journal file to the graveyard YAML files like {@link #compact()},
+     * telling a listener about every graveyard file that was rewritten.
+     *
+     * @param savedListener called with each rewritten graveyard file and the configuration saved to it.
+     * @return the number of graveyard files that were rewritten.
+     */
+    public synchronized int compact(BiConsumer<File, YamlConfiguration> savedListener) {
+        if (!journalFile.exists() || journalFile.length() == 0) {
+            return 0;
+        }
+
+        Map<String, Map<String, Change>> changesByGraveyard = new LinkedHashMap<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+            while (true) {
+                Change change = Change.read(input);
+                changesByGraveyard.computeIfAbsent(change.graveyardName, k -> new LinkedHashMap<>()).put(change.key(), change);
+            }
+        } catch (EOFException ignored) {
+            // End of journal, or a record cut short by a crash which is discarded
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not read grave site occupancy journal.", e);
+            return 0;
+        }
+
+        int rewritten = 0;
+        boolean failed = false;
+        for (Map.Entry<String, Map<String, Change>> entry : changesByGraveyard.entrySet()) {
+            File graveyardFile = new File(graveyardFolder, entry.getKey() + ".yml");
+            if (!graveyardFile.exists()) {
+                continue;
+            }
+
+            YamlConfiguration config = YamlConfiguration.loadConfiguration(graveyardFile);
+            for (Change change : entry.getValue().values()) {
+                String siteKey = !change.siteId.isEmpty() ? change.siteId : findGraveSiteKey(config, change);
+                if (siteKey != null && config.contains("gravesite." + siteKey)) {
+                    config.set("gravesite." + siteKey + ".occupied", change.occupied);
+                    config.set("gravesite." + siteKey + ".grave", change.graveUUID.isEmpty() ? null : change.graveUUID);
+                }
+            }
+
+            try {
+                config.save(graveyardFile);
+                rewritten++;
+                savedListener.accept(graveyardFile, config);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not save updated graveyard file for " + entry.getKey(), e);
+                failed = true;
+            }
+        }
+
+        if (!failed && !journalFile.delete()) {
+            logger.warning("Could not truncate grave site occupancy journal " + journalFile.getName());
+        }
+        return rewritten;
+    }
+
+    /**
+     * Finds the key of a grave site in a graveyard configuration by comparing world names and block coordinates.
+     *
+     * @param config the graveyard configuration to search.
+     * @param change the change describing the grave site.
+     * @return the key of the grave site, or null if it is not stored in the configuration.
+     */
+    private String findGraveSiteKey(YamlConfiguration config, Change change) {
+        if (!config.isConfigurationSection("gravesite")) {
+            return null;
+        }
+
+        for (String key : config.getConfigurationSection("gravesite").getKeys(false)) {
+            if (change.worldName.equals(config.getString("gravesite." + key + ".world"))
+                    && config.getInt("gravesite." + key + ".x") == change.x
+                    && config.getInt("gravesite." + key + ".y") == change.y
+                    && config.getInt("gravesite." + key + ".z") == change.z) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A single occupancy change of a grave site, as stored in the journal.
+     */
+    private static final class Change {
+        private final String graveyardName;
+        private final String siteId;
+        private final String worldName;
+        private final int x;
+        private final int y;
+        private final int z;
+        private final boolean occupied;
+        // Empty if the grave site has no known grave
+        private final String graveUUID;
+
+        private Change(String graveyardName, String siteId, String worldName, int x, int y, int z, boolean occupied, String graveUUID) {
+            this.graveyardName = graveyardName;
+            this.siteId = siteId;
+            this.worldName = worldName;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.occupied = occupied;
+            this.graveUUID = graveUUID;
+        }
+
+        private String key() {
+            return graveyardName + '\0' + worldName + '\0' + x + '\0' + y + '\0' + z;
+        }
+
+        private void write(DataOutputStream output) throws IOException {
+            output.writeUTF(graveyardName);
+            output.writeUTF(siteId);
+            output.writeUTF(worldName);
+            output.writeInt(x);
+            output.writeInt(y);
+            output.writeInt(z);
+            output.writeBoolean(occupied);
+            output.writeUTF(graveUUID);
+        }
+
+        private static Change read(DataInputStream input) throws IOException {
+            return new Change(input.readUTF(), input.readUTF(), input.readUTF(),
+                    input.readInt(), input.readInt(), input.readInt(), input.readBoolean(), input.readUTF());
+        }
+    }
+}
@@ -0,0 +1,610 @@
+package dev.cwhead.GravesXAddon.storage;
+
+import dev.cwhead.GravesXAddon.type.Graveyard;
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import org.bukkit.Location;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stores graveyards and grave sites in an embedded SQLite database.
+ * Grave sites are rows of their own, indexed by graveyard and block coordinates, so an
+ * occupancy change updates a single row instead of rewriting the whole graveyard.
+ * Occupancy changes are kept in memory and written by {@link #flush()} as one batch in a
+ * single transaction.
+ * <p>
+ * If the database is empty when it is first loaded and a YAML storage with graveyard files
+ * is given, every graveyard is imported from it and the graveyard files are archived.
+ * <p>
+ * The SQLite driver is bundled with the server. All database access is serialized on this storage.
+ */
+public class SqliteStorage implements GraveyardStorage {
+
+    private static final String CREATE_GRAVEYARDS = "CREATE TABLE IF NOT EXISTS graveyards ("
+            + "name TEXT PRIMARY KEY, "
+            + "pos1_world TEXT, pos1_x INTEGER, pos1_y INTEGER, pos1_z INTEGER, "
+            + "pos2_world TEXT, pos2_x INTEGER, pos2_y INTEGER, pos2_z INTEGER, "
+            + "margin REAL NOT NULL, "
+            + "next_site_id INTEGER NOT NULL DEFAULT 1)";
+    private static final String CREATE_GRAVE_SITES = "CREATE TABLE IF NOT EXISTS grave_sites ("
+            + "graveyard TEXT NOT NULL REFERENCES graveyards(name) ON DELETE CASCADE, "
+            + "id TEXT NOT NULL, "
+            + "world TEXT NOT NULL, x INTEGER NOT NULL, y INTEGER NOT NULL, z INTEGER NOT NULL, "
+            + "occupied INTEGER NOT NULL DEFAULT 0, "
+            + "grave TEXT, "
+            + "PRIMARY KEY (graveyard, id))";
+    private static final String CREATE_GRAVE_SITE_INDEX = "CREATE INDEX IF NOT EXISTS grave_sites_location "
+            + "ON grave_sites (graveyard, world, x, y, z)";
+
+    private static final String SELECT_GRAVEYARDS = "SELECT name, pos1_world, pos1_x, pos1_y, pos1_z, "
+            + "pos2_world, pos2_x, pos2_y, pos2_z, margin FROM graveyards";
+    private static final String SELECT_GRAVE_SITES = "SELECT graveyard, id, world, x, y, z, occupied, grave FROM grave_sites "
+            + "ORDER BY graveyard, rowid";
+    private static final String INSERT_GRAVEYARD = "INSERT INTO graveyards (name, pos1_world, pos1_x, pos1_y, pos1_z, "
+            + "pos2_world, pos2_x, pos2_y, pos2_z, margin, next_site_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_GRAVEYARD = "SELECT 1 FROM graveyards WHERE name = ?";
+    private static final String DELETE_GRAVEYARD = "DELETE FROM graveyards WHERE name = ?";
+    private static final String NEXT_GRAVE_SITE_ID = "SELECT MAX(next_site_id, "
+            + "COALESCE((SELECT MAX(CAST(id AS INTEGER)) FROM grave_sites WHERE graveyard = name), 0) + 1) "
+            + "FROM graveyards WHERE name = ?";
+    private static final String UPDATE_NEXT_GRAVE_SITE_ID = "UPDATE graveyards SET next_site_id = ? WHERE name = ?";
+    private static final String INSERT_GRAVE_SITE = "INSERT INTO grave_sites (graveyard, id, world, x, y, z, occupied, grave) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_GRAVE_SITE = "DELETE FROM grave_sites WHERE graveyard = ? AND id = ?";
+    private static final String UPDATE_OCCUPANCY_BY_ID = "UPDATE grave_sites SET occupied = ?, grave = ? WHERE graveyard = ? AND id = ?";
+    private static final String UPDATE_OCCUPANCY_BY_LOCATION = "UPDATE grave_sites SET occupied = ?, grave = ? "
+            + "WHERE graveyard = ? AND world = ? AND x = ? AND y = ? AND z = ?";
+
+    private final File databaseFile;
+    private final Logger logger;
+    private final YamlStorage migrationSource;
+    private final Map<OccupancyKey, OccupancyChange> pendingOccupancy = new ConcurrentHashMap<>();
+    private Connection connection;
+
+    /**
+     * Constructs a SqliteStorage backed by the graveyards.db file in the specified data folder.
+     * The database is opened when it is first used.
+     *
+     * @param dataFolder the data folder of the plugin.
+     * @param logger the logger used to report persistence failures.
+     * @param migrationSource the YAML storage to import graveyards from if the database is empty, or null.
+     */
+    public SqliteStorage(File dataFolder, Logger logger, YamlStorage migrationSource) {
+        this.databaseFile = new File(dataFolder, "graveyards.db");
+        this.logger = logger;
+        this.migrationSource = migrationSource;
+    }
+
+    /**
+     * Opens the database if it is not open yet and creates the tables and index.
+     *
+     * @return the open connection.
+     * @throws SQLException if the database could not be opened.
+     */
+    private Connection getConnection() throws SQLException {
+        if (connection != null && !connection.isClosed()) {
+            return connection;
+        }
+
+        try {
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("SQLite driver not found", e);
+        }
+        databaseFile.getParentFile().mkdirs();
+        connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode = WAL");
+            statement.execute("PRAGMA synchronous = NORMAL");
+            statement.execute("PRAGMA foreign_keys = ON");
+            statement.execute(CREATE_GRAVEYARDS);
+            statement.execute(CREATE_GRAVE_SITES);
+            statement.execute(CREATE_GRAVE_SITE_INDEX);
+        }
+        return connection;
+    }
+
+    /**
+     * Loads every graveyard and grave site with two queries.
+     * If the database has no graveyards yet, the graveyards of the migration source are
+     * imported first.
+     *
+     * @return the stored graveyards, or an empty list if the database could not be read.
+     */
+    @Override
+    public synchronized List<StoredGraveyard> loadGraveyards() {
+        try {
+            Connection connection = getConnection();
+            flushPending(connection);
+            if (migrationSource != null && migrationSource.hasGraveyards() && isEmpty(connection)) {
+                migrate(connection);
+            }
+
+            Map<String, Graveyard> regions = new LinkedHashMap<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(SELECT_GRAVEYARDS)) {
+                while (resultSet.next()) {
+                    String name = resultSet.getString(1);
+                    regions.put(name, toGraveyard(name, resultSet));
+                }
+            }
+
+            Map<String, List<GraveSite>> graveSites = new LinkedHashMap<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(SELECT_GRAVE_SITES)) {
+                while (resultSet.next()) {
+                    Location location = new Location(null, resultSet.getInt(4), resultSet.getInt(5), resultSet.getInt(6));
+                    GraveSite graveSite = new GraveSite(resultSet.getString(2), resultSet.getString(3), location, resultSet.getBoolean(7));
+                    if (graveSite.isOccupied()) {
+                        graveSite.setGraveUUID(parseGraveUUID(resultSet.getString(8)));
+                    }
+                    graveSites.computeIfAbsent(resultSet.getString(1), name -> new ArrayList<>()).add(graveSite);
+                }
+            }
+
+            List<StoredGraveyard> graveyards = new ArrayList<>(regions.size());
+            for (Graveyard graveyard : regions.values()) {
+                List<GraveSite> sites = graveSites.get(graveyard.getName());
+                graveyards.add(new StoredGraveyard(graveyard, sites != null ? sites : new ArrayList<>(), true));
+            }
+            return graveyards;
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not load graveyards from " + databaseFile.getName(), e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Converts the current row of a graveyard query into a {@link Graveyard}.
+     * The corner locations are not bound to a world; the region is only used
+     * if both corners are stored in the same world.
+     *
+     * @param name the name of the graveyard.
+     * @param resultSet the result set positioned on the graveyard row.
+     * @return the {@link Graveyard}.
+     * @throws SQLException if the row could not be read.
+     */
+    private Graveyard toGraveyard(String name, ResultSet resultSet) throws SQLException {
+        String pos1World = resultSet.getString(2);
+        String pos2World = resultSet.getString(6);
+        double margin = resultSet.getDouble(10);
+        if (pos1World == null || !pos1World.equals(pos2World)) {
+            return new Graveyard(name, null, null, null, margin);
+        }
+        return new Graveyard(name, pos1World,
+                new Location(null, resultSet.getInt(3), resultSet.getInt(4), resultSet.getInt(5)),
+                new Location(null, resultSet.getInt(7), resultSet.getInt(8), resultSet.getInt(9)),
+                margin);
+    }
+
+    /**
+     * Checks if the database does not contain any graveyard.
+     *
+     * @param connection the open connection.
+     * @return true if there are no graveyards.
+     * @throws SQLException if the query failed.
+     */
+    private boolean isEmpty(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT 1 FROM graveyards LIMIT 1")) {
+            return !resultSet.next();
+        }
+    }
+
+    /**
+     * Imports every graveyard of the migration source in a single transaction and archives
+     * the graveyard files once the transaction is committed.
+     *
+     * @param connection the open connection.
+     * @throws SQLException if the import failed, in which case nothing was imported.
+     */
+    private void migrate(Connection connection) throws SQLException {
+        List<StoredGraveyard> graveyards = migrationSource.loadGraveyards();
+        int siteCount = 0;
+        connection.setAutoCommit(false);
+        try (PreparedStatement insertGraveyard = connection.prepareStatement(INSERT_GRAVEYARD);
+             PreparedStatement insertGraveSite = connection.prepareStatement(INSERT_GRAVE_SITE)) {
+            for (StoredGraveyard storedGraveyard : graveyards) {
+                Graveyard graveyard = storedGraveyard.getGraveyard();
+                bindGraveyard(insertGraveyard, graveyard.getName(), graveyard.getWorldName(), graveyard.getPos1(),
+                        graveyard.getWorldName(), graveyard.getPos2(), graveyard.getMargin(),
+                        migrationSource.getNextGraveSiteNumber(graveyard.getName()));
+                insertGraveyard.addBatch();
+
+                for (GraveSite graveSite : storedGraveyard.getGraveSites()) {
+                    bindGraveSite(insertGraveSite, graveyard.getName(), graveSite.getId(), graveSite.getWorldName(),
+                            graveSite.getBlockX(), graveSite.getBlockY(), graveSite.getBlockZ(), graveSite.isOccupied(), graveSite.getGraveUUID());
+                    insertGraveSite.addBatch();
+                    siteCount++;
+                }
+            }
+            insertGraveyard.executeBatch();
+            insertGraveSite.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+
+        logger.info("Migrated " + graveyards.size() + " graveyards with " + siteCount + " grave sites from YAML to SQLite.");
+        if (!migrationSource.archive()) {
+            logger.warning("Could not archive the migrated graveyard files. Move the Graveyards folder aside to avoid migrating it again.");
+        }
+    }
+
+    @Override
+    public synchronized boolean hasGraveyard(String graveyardName) {
+        try (PreparedStatement statement = getConnection().prepareStatement(SELECT_GRAVEYARD)) {
+            statement.setString(1, graveyardName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not look up graveyard " + graveyardName, e);
+            return true;
+        }
+    }
+
+    @Override
+    public synchronized boolean saveGraveyard(Graveyard graveyard) {
+        try (PreparedStatement statement = getConnection().prepareStatement(INSERT_GRAVEYARD)) {
+            bindGraveyard(statement, graveyard.getName(), graveyard.getPos1().getWorld().getName(), graveyard.getPos1(),
+                    graveyard.getPos2().getWorld().getName(), graveyard.getPos2(), graveyard.getMargin(), 1);
+            statement.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not save graveyard " + graveyard.getName(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized boolean deleteGraveyard(String graveyardName) {
+        try (PreparedStatement statement = getConnection().prepareStatement(DELETE_GRAVEYARD)) {
+            statement.setString(1, graveyardName);
+            return statement.executeUpdate() > 0;
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not delete graveyard " + graveyardName, e);
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized GraveSite addGraveSite(String graveyardName, Location location) {
+        List<GraveSite> graveSites = addGraveSites(graveyardName, Collections.singletonList(location));
+        return graveSites != null ? graveSites.get(0) : null;
+    }
+
+    /**
+     * Stores several new grave sites as one batch of inserts in a single transaction.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param locations the locations of the grave sites.
+     * @return the stored grave sites, or null if the transaction failed and nothing was stored.
+     */
+    @Override
+    public synchronized List<GraveSite> addGraveSites(String graveyardName, List<Location> locations) {
+        try {
+            Connection connection = getConnection();
+            connection.setAutoCommit(false);
+            try {
+                int siteNumber;
+                try (PreparedStatement statement = connection.prepareStatement(NEXT_GRAVE_SITE_ID)) {
+                    statement.setString(1, graveyardName);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        if (!resultSet.next()) {
+                            logger.warning("Not saving grave sites to graveyard " + graveyardName + " because it is not stored.");
+                            return null;
+                        }
+                        siteNumber = resultSet.getInt(1);
+                    }
+                }
+
+                List<GraveSite> graveSites = new ArrayList<>(locations.size());
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_GRAVE_SITE)) {
+                    for (Location location : locations) {
+                        GraveSite graveSite = new GraveSite(String.valueOf(siteNumber++), location, false);
+                        bindGraveSite(statement, graveyardName, graveSite.getId(), graveSite.getWorldName(),
+                                location.getBlockX(), location.getBlockY(), location.getBlockZ(), false, null);
+                        statement.addBatch();
+                        graveSites.add(graveSite);
+                    }
+                    statement.executeBatch();
+                }
+                try (PreparedStatement statement = connection.prepareStatement(UPDATE_NEXT_GRAVE_SITE_ID)) {
+                    statement.setInt(1, siteNumber);
+                    statement.setString(2, graveyardName);
+                    statement.executeUpdate();
+                }
+                connection.commit();
+                return graveSites;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not save grave sites to graveyard " + graveyardName, e);
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized boolean removeGraveSite(String graveyardName, String graveSiteId) {
+        try (PreparedStatement statement = getConnection().prepareStatement(DELETE_GRAVE_SITE)) {
+            statement.setString(1, graveyardName);
+            statement.setString(2, graveSiteId);
+            return statement.executeUpdate() > 0;
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not remove grave site " + graveSiteId + " from graveyard " + graveyardName, e);
+            return false;
+        }
+    }
+
+    /**
+     * Records an occupancy change of a grave site. Only the latest change of each grave site
+     * is kept, so a site that is occupied and released again before the next flush is written once.
+     * The grave currently on the grave site is written with the change.
+     *
+     * @param graveyardName the name of the graveyard containing the grave site.
+     * @param graveSite the grave site whose occupancy changed.
+     * @param occupied the new occupancy status of the grave site.
+     */
+    @Override
+    public void recordOccupancy(String graveyardName, GraveSite graveSite, boolean occupied) {
+        pendingOccupancy.put(new OccupancyKey(graveyardName, graveSite), new OccupancyChange(occupied, occupied ? graveSite.getGraveUUID() : null));
+    }
+
+    /**
+     * Writes every recorded occupancy change as one batch of single-row updates in a
+     * single transaction. If the transaction fails, the changes are recorded again
+     * unless a newer change was recorded in the meantime.
+     *
+     * @return the number of changes written.
+     */
+    @Override
+    public synchronized int flush() {
+        if (pendingOccupancy.isEmpty()) {
+            return 0;
+        }
+        try {
+            return flushPending(getConnection());
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not open " + databaseFile.getName(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * Writes every recorded occupancy change on the specified connection.
+     *
+     * @param connection the open connection.
+     * @return the number of changes written.
+     */
+    private int flushPending(Connection connection) {
+        if (pendingOccupancy.isEmpty()) {
+            return 0;
+        }
+
+        Map<OccupancyKey, OccupancyChange> batch = new LinkedHashMap<>();
+        for (OccupancyKey key : pendingOccupancy.keySet()) {
+            OccupancyChange change = pendingOccupancy.remove(key);
+            if (change != null) {
+                batch.put(key, change);
+            }
+        }
+
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement byId = connection.prepareStatement(UPDATE_OCCUPANCY_BY_ID);
+                 PreparedStatement byLocation = connection.prepareStatement(UPDATE_OCCUPANCY_BY_LOCATION)) {
+                for (Map.Entry<OccupancyKey, OccupancyChange> entry : batch.entrySet()) {
+                    OccupancyKey key = entry.getKey();
+                    OccupancyChange change = entry.getValue();
+                    String graveUUID = change.graveUUID != null ? change.graveUUID.toString() : null;
+                    if (key.graveSiteId != null) {
+                        byId.setBoolean(1, change.occupied);
+                        byId.setString(2, graveUUID);
+                        byId.setString(3, key.graveyardName);
+                        byId.setString(4, key.graveSiteId);
+                        byId.addBatch();
+                    } else {
+                        byLocation.setBoolean(1, change.occupied);
+                        byLocation.setString(2, graveUUID);
+                        byLocation.setString(3, key.graveyardName);
+                        byLocation.setString(4, key.worldName);
+                        byLocation.setInt(5, key.x);
+                        byLocation.setInt(6, key.y);
+                        byLocation.setInt(7, key.z);
+                        byLocation.addBatch();
+                    }
+                }
+                byId.executeBatch();
+                byLocation.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            return batch.size();
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not write " + batch.size() + " grave site occupancy changes", e);
+            batch.forEach(pendingOccupancy::putIfAbsent);
+            return 0;
+        }
+    }
+
+    /**
+     * Lets SQLite refresh the statistics of its query planner.
+     *
+     * @return always 0, as nothing needs to be compacted.
+     */
+    /**
+     * The bytes SQLite writes are not counted.
+     *
+     * @return -1.
+     */
+    @Override
+    public long getWrittenBytes() {
+        return -1L;
+    }
+
+    @Override
+    public synchronized int compact() {
+        try (Statement statement = getConnection().createStatement()) {
+            statement.execute("PRAGMA optimize");
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Could not optimize " + databaseFile.getName(), e);
+        }
+        return 0;
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.log(Level.WARNING, "Could not close " + databaseFile.getName(), e);
+            }
+            connection = null;
+        }
+    }
+
+    /**
+     * Sets the parameters of the graveyard insert statement.
+     */
+    private void bindGraveyard(PreparedStatement statement, String name, String pos1World, Location pos1,
+                               String pos2World, Location pos2, double margin, int nextSiteId) throws SQLException {
+        statement.setString(1, name);
+        bindPosition(statement, 2, pos1World, pos1);
+        bindPosition(statement, 6, pos2World, pos2);
+        statement.setDouble(10, margin);
+        statement.setInt(11, nextSiteId);
+    }
+
+    /**
+     * Sets the parameters of a corner position, leaving them null if the position is missing.
+     */
+    private void bindPosition(PreparedStatement statement, int index, String worldName, Location position) throws SQLException {
+        if (worldName == null || position == null) {
+            for (int i = index; i < index + 4; i++) {
+                statement.setObject(i, null);
+            }
+            return;
+        }
+        statement.setString(index, worldName);
+        statement.setInt(index + 1, position.getBlockX());
+        statement.setInt(index + 2, position.getBlockY());
+        statement.setInt(index + 3, position.getBlockZ());
+    }
+
+    /**
+     * Parses a stored grave UUID, ignoring values that are not a UUID.
+     */
+    private UUID parseGraveUUID(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            logger.warning("Ignoring invalid grave UUID " + value + " in " + databaseFile.getName());
+            return null;
+        }
+    }
+
+    /**
+     * Sets the parameters of the grave site insert statement.
+     */
+    private void bindGraveSite(PreparedStatement statement, String graveyardName, String graveSiteId, String worldName,
+                               int x, int y, int z, boolean occupied, UUID graveUUID) throws SQLException {
+        statement.setString(1, graveyardName);
+        statement.setString(2, graveSiteId);
+        statement.setString(3, worldName);
+        statement.setInt(4, x);
+        statement.setInt(5, y);
+        statement.setInt(6, z);
+        statement.setBoolean(7, occupied);
+        statement.setString(8, graveUUID != null ? graveUUID.toString() : null);
+    }
+
+    /**
+     * A pending occupancy change, with the grave occupying the grave site if it is known.
+     */
+    private static final class OccupancyChange {
+
+        private final boolean occupied;
+        private final UUID graveUUID;
+
+        private OccupancyChange(boolean occupied, UUID graveUUID) {
+            this.occupied = occupied;
+            this.graveUUID = graveUUID;
+        }
+    }
+
+    /**
+     * Identifies the grave site of a pending occupancy change by its key, or by its
+     * block location if it has none.
+     */
+    private static final class OccupancyKey {
+
+        private final String graveyardName;
+        private final String graveSiteId;
+        private final String worldName;
+        private final int x;
+        private final int y;
+        private final int z;
+
+        private OccupancyKey(String graveyardName, GraveSite graveSite) {
+            this.graveyardName = graveyardName;
+            this.graveSiteId = graveSite.getId();
+            this.worldName = graveSite.getWorldName();
+            this.x = graveSite.getBlockX();
+            this.y = graveSite.getBlockY();
+            this.z = graveSite.getBlockZ();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof OccupancyKey)) {
+                return false;
+            }
+            OccupancyKey other = (OccupancyKey) o;
+            return x == other.x && y == other.y && z == other.z
+                    && graveyardName.equals(other.graveyardName)
+                    && Objects.equals(graveSiteId, other.graveSiteId)
+                    && Objects.equals(worldName, other.worldName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(graveyardName, graveSiteId, worldName, x, y, z);
+        }
+    }
+}
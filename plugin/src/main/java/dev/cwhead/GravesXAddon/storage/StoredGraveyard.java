@@ -0,0 +1,56 @@
+package dev.cwhead.GravesXAddon.storage;
+
+import dev.cwhead.GravesXAddon.type.Graveyard;
+import dev.cwhead.GravesXAddon.util.GraveSite;
+
+import java.util.List;
+
+/**
+ * A graveyard and its grave sites as loaded from a {@link GraveyardStorage}.
+ */
+public final class StoredGraveyard {
+
+    private final Graveyard graveyard;
+    private final List<GraveSite> graveSites;
+    private final boolean parsed;
+
+    /**
+     * Constructs a StoredGraveyard.
+     *
+     * @param graveyard the {@link Graveyard}.
+     * @param graveSites the grave sites of the graveyard.
+     * @param parsed true if the graveyard was parsed from its source rather than taken from a snapshot.
+     */
+    public StoredGraveyard(Graveyard graveyard, List<GraveSite> graveSites, boolean parsed) {
+        this.graveyard = graveyard;
+        this.graveSites = graveSites;
+        this.parsed = parsed;
+    }
+
+    /**
+     * Gets the graveyard.
+     *
+     * @return the {@link Graveyard}.
+     */
+    public Graveyard getGraveyard() {
+        return graveyard;
+    }
+
+    /**
+     * Gets the grave sites of the graveyard.
+     *
+     * @return the list of grave sites.
+     */
+    public List<GraveSite> getGraveSites() {
+        return graveSites;
+    }
+
+    /**
+     * Checks if the graveyard was parsed from its source rather than taken from a snapshot.
+     *
+     * @return true if the graveyard was parsed.
+     */
+    public boolean isParsed() {
+        return parsed;
+    }
+}
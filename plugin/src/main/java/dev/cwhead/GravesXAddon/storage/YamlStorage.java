@@ -0,0 +1,574 @@
+package dev.cwhead.GravesXAddon.storage;
+
+import dev.cwhead.GravesXAddon.type.Graveyard;
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import org.bukkit.Location;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Stores each graveyard in its own YAML file in the Graveyards folder.
+ * Parsed files are cached in a binary {@link GraveyardSnapshotFile}, and occupancy changes
+ * are written to an {@link OccupancyJournal} that is periodically compacted into the files.
+ * <p>
+ * Every edit of a graveyard file synchronizes on the journal, so a compaction running
+ * in the background never overwrites it.
+ */
+public class YamlStorage implements GraveyardStorage {
+
+    // The key given to the next grave site added to a graveyard, kept so keys of removed grave sites are never reused
+    private static final String NEXT_GRAVE_SITE_ID = "next-gravesite-id";
+
+    private final File graveyardFolder;
+    private final Logger logger;
+    private final OccupancyJournal occupancyJournal;
+    private final GraveyardSnapshotFile snapshotFile;
+    private final File snapshotPath;
+
+    /**
+     * Checks if the specified data folder has a Graveyards folder, such as one left
+     * to migrate to another storage. Unlike constructing a YamlStorage, this creates nothing.
+     *
+     * @param dataFolder the data folder of the plugin.
+     * @return true if the Graveyards folder exists; false otherwise.
+     */
+    public static boolean hasGraveyardFolder(File dataFolder) {
+        return new File(dataFolder, "Graveyards").isDirectory();
+    }
+
+    /**
+     * Constructs a YamlStorage in the specified data folder, creating the Graveyards folder
+     * if it does not exist.
+     *
+     * @param dataFolder the data folder of the plugin.
+     * @param logger the logger used to report persistence failures.
+     */
+    public YamlStorage(File dataFolder, Logger logger) {
+        this.graveyardFolder = new File(dataFolder, "Graveyards");
+        if (!graveyardFolder.exists()) {
+            graveyardFolder.mkdirs();
+        }
+        this.logger = logger;
+        this.snapshotPath = new File(dataFolder, "graveyards.snapshot");
+        this.snapshotFile = new GraveyardSnapshotFile(snapshotPath, logger);
+        this.occupancyJournal = new OccupancyJournal(new File(dataFolder, "occupancy.journal"), graveyardFolder, logger);
+    }
+
+    /**
+     * Loads every graveyard file. Pending occupancy changes are compacted into the files first.
+     * Files whose contents have not changed since the binary snapshot was written are read
+     * from the snapshot, and the remaining files are parsed in parallel on a fork-join pool.
+     * The snapshot is rewritten whenever a file was added, changed or removed.
+     *
+     * @return the stored graveyards.
+     */
+    @Override
+    public List<StoredGraveyard> loadGraveyards() {
+        List<GraveyardSnapshotFile.Entry> entries;
+        Map<String, GraveyardSnapshotFile.Entry> snapshot;
+        synchronized (occupancyJournal) {
+            occupancyJournal.flush();
+            int replayed = compactJournal();
+            if (replayed > 0) {
+                logger.info("Replayed grave site occupancy journal into " + replayed + " graveyard files.");
+            }
+
+            File[] graveyardFiles = graveyardFolder.listFiles((dir, name) -> name.endsWith(".yml"));
+
+            if (graveyardFiles == null) {
+                logger.warning("No graveyard files found.");
+                return new ArrayList<>();
+            }
+
+            snapshot = snapshotFile.read();
+            entries = parseGraveyardFiles(graveyardFiles, snapshot);
+
+            boolean changed = snapshot.size() != entries.size();
+            for (GraveyardSnapshotFile.Entry entry : entries) {
+                changed |= snapshot.get(entry.getFileName()) != entry;
+            }
+            if (changed) {
+                snapshotFile.write(entries);
+            }
+        }
+
+        List<StoredGraveyard> graveyards = new ArrayList<>(entries.size());
+        for (GraveyardSnapshotFile.Entry entry : entries) {
+            StoredGraveyard graveyard = toStoredGraveyard(entry, snapshot.get(entry.getFileName()) != entry);
+            if (graveyard != null) {
+                graveyards.add(graveyard);
+            }
+        }
+        return graveyards;
+    }
+
+    /**
+     * Parses the specified graveyard files again, ignoring the binary snapshot.
+     * Used to pick up files edited while the server is running.
+     *
+     * @param fileNames the names of the graveyard files, such as "spawn.yml".
+     * @return the graveyards stored in the files, keyed by the graveyard name the file name stands for.
+     *         A file that no longer exists maps to null; a file without a graveyard name is left out.
+     */
+    public Map<String, StoredGraveyard> loadGraveyardFiles(Collection<String> fileNames) {
+        Map<String, StoredGraveyard> graveyards = new LinkedHashMap<>();
+        synchronized (occupancyJournal) {
+            for (String fileName : fileNames) {
+                String graveyardName = fileName.substring(0, fileName.length() - ".yml".length());
+                File graveyardFile = new File(graveyardFolder, fileName);
+                if (!graveyardFile.isFile()) {
+                    graveyards.put(graveyardName, null);
+                    continue;
+                }
+
+                byte[] content = readGraveyardFile(graveyardFile);
+                StoredGraveyard graveyard = toStoredGraveyard(parseGraveyardFile(graveyardFile, content, GraveyardSnapshotFile.hash(content)), true);
+                if (graveyard != null) {
+                    graveyards.put(graveyardName, graveyard);
+                }
+            }
+        }
+        return graveyards;
+    }
+
+    /**
+     * Gets the folder the graveyard files are stored in.
+     *
+     * @return the Graveyards folder.
+     */
+    public File getGraveyardFolder() {
+        return graveyardFolder;
+    }
+
+    /**
+     * Converts a snapshot entry into a stored graveyard with unbound grave sites.
+     *
+     * @param entry the snapshot entry of the graveyard file.
+     * @param parsed true if the entry was parsed from the file rather than read from the snapshot.
+     * @return the {@link StoredGraveyard}, or null if the file has no graveyard name.
+     */
+    private StoredGraveyard toStoredGraveyard(GraveyardSnapshotFile.Entry entry, boolean parsed) {
+        String graveyardName = entry.getGraveyardName();
+        if (graveyardName == null) {
+            logger.warning("Graveyard name not found in file: " + entry.getFileName());
+            return null;
+        }
+
+        List<GraveSite> graveSites = new ArrayList<>(entry.getSites().size());
+        for (GraveyardSnapshotFile.Site site : entry.getSites()) {
+            GraveSite graveSite = new GraveSite(site.getId(), site.getWorldName(),
+                    new Location(null, site.getX(), site.getY(), site.getZ()), site.isOccupied());
+            if (site.isOccupied()) {
+                graveSite.setGraveUUID(site.getGraveUUID());
+            }
+            graveSites.add(graveSite);
+        }
+        return new StoredGraveyard(toGraveyard(graveyardName, entry), graveSites, parsed);
+    }
+
+    /**
+     * Resolves every graveyard file to a snapshot entry, reusing unchanged entries of the
+     * previous snapshot and parsing the other files in parallel.
+     *
+     * @param graveyardFiles the graveyard files to load.
+     * @param snapshot the entries of the previous snapshot, keyed by file name.
+     * @return the entries for the graveyard files, in the order of the files.
+     */
+    private List<GraveyardSnapshotFile.Entry> parseGraveyardFiles(File[] graveyardFiles, Map<String, GraveyardSnapshotFile.Entry> snapshot) {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        try {
+            return pool.submit(() -> Arrays.stream(graveyardFiles)
+                    .parallel()
+                    .map(graveyardFile -> {
+                        byte[] content = readGraveyardFile(graveyardFile);
+                        byte[] contentHash = GraveyardSnapshotFile.hash(content);
+                        GraveyardSnapshotFile.Entry entry = snapshot.get(graveyardFile.getName());
+                        return entry != null && entry.matches(contentHash) ? entry : parseGraveyardFile(graveyardFile, content, contentHash);
+                    })
+                    .collect(Collectors.toList())).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Reads the contents of a graveyard file.
+     *
+     * @param graveyardFile the graveyard file.
+     * @return the contents, or no bytes if the file could not be read.
+     */
+    private byte[] readGraveyardFile(File graveyardFile) {
+        try {
+            return Files.readAllBytes(graveyardFile.toPath());
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not read graveyard file " + graveyardFile.getName(), e);
+            return new byte[0];
+        }
+    }
+
+    /**
+     * Parses the contents of a graveyard YAML file into a snapshot entry.
+     *
+     * @param graveyardFile the graveyard file the contents were read from.
+     * @param content the contents of the file.
+     * @param contentHash the hash of the contents, stored with the entry.
+     * @return the parsed {@link GraveyardSnapshotFile.Entry}.
+     */
+    private GraveyardSnapshotFile.Entry parseGraveyardFile(File graveyardFile, byte[] content, byte[] contentHash) {
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(new StringReader(new String(content, StandardCharsets.UTF_8)));
+        return toEntry(graveyardFile, contentHash, config);
+    }
+
+    /**
+     * Converts a graveyard configuration into a snapshot entry.
+     *
+     * @param graveyardFile the graveyard file the configuration belongs to.
+     * @param contentHash the hash of the contents of the file.
+     * @param config the graveyard configuration.
+     * @return the {@link GraveyardSnapshotFile.Entry}.
+     */
+    private GraveyardSnapshotFile.Entry toEntry(File graveyardFile, byte[] contentHash, YamlConfiguration config) {
+        GraveyardSnapshotFile.Position pos1 = parsePosition(config, "pos1");
+        GraveyardSnapshotFile.Position pos2 = parsePosition(config, "pos2");
+        double margin = config.getDouble("margin", Graveyard.DEFAULT_MARGIN);
+
+        List<GraveyardSnapshotFile.Site> sites = new ArrayList<>();
+        if (config.isConfigurationSection("gravesite")) {
+            for (String key : config.getConfigurationSection("gravesite").getKeys(false)) {
+                String worldName = config.getString("gravesite." + key + ".world");
+                double x = config.getDouble("gravesite." + key + ".x");
+                double y = config.getDouble("gravesite." + key + ".y");
+                double z = config.getDouble("gravesite." + key + ".z");
+                boolean occupied = config.getBoolean("gravesite." + key + ".occupied", false);
+                UUID graveUUID = parseGraveUUID(config.getString("gravesite." + key + ".grave"), graveyardFile, key);
+
+                if (worldName != null) {
+                    sites.add(new GraveyardSnapshotFile.Site(key, worldName, x, y, z, occupied, graveUUID));
+                } else {
+                    logger.warning("World not found for grave site: " + key);
+                }
+            }
+        }
+        return new GraveyardSnapshotFile.Entry(graveyardFile.getName(), contentHash, config.getString("name"),
+                pos1, pos2, margin, sites);
+    }
+
+    /**
+     * Parses the UUID of the grave stored on a grave site.
+     *
+     * @param value the stored value, or null if there is none.
+     * @param graveyardFile the graveyard file, used in the warning for an invalid value.
+     * @param key the key of the grave site.
+     * @return the grave UUID, or null if none or an invalid one is stored.
+     */
+    private UUID parseGraveUUID(String value, File graveyardFile, String key) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            logger.warning("Invalid grave UUID " + value + " for grave site " + key + " in " + graveyardFile.getName());
+            return null;
+        }
+    }
+
+    /**
+     * Parses a corner position of the graveyard area.
+     *
+     * @param config the graveyard configuration.
+     * @param path the path of the position, either "pos1" or "pos2".
+     * @return the parsed {@link GraveyardSnapshotFile.Position}, or null if it is missing.
+     */
+    private GraveyardSnapshotFile.Position parsePosition(YamlConfiguration config, String path) {
+        String worldName = config.getString(path + ".world");
+        if (worldName == null) {
+            return null;
+        }
+        return new GraveyardSnapshotFile.Position(worldName, config.getDouble(path + ".x"), config.getDouble(path + ".y"), config.getDouble(path + ".z"));
+    }
+
+    /**
+     * Converts the stored region of a graveyard into a {@link Graveyard}.
+     * The corner locations are not bound to a world; the region is only used
+     * if both corners are stored in the same world.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @param entry the snapshot entry of the graveyard file.
+     * @return the {@link Graveyard}.
+     */
+    private Graveyard toGraveyard(String graveyardName, GraveyardSnapshotFile.Entry entry) {
+        GraveyardSnapshotFile.Position pos1 = entry.getPos1();
+        GraveyardSnapshotFile.Position pos2 = entry.getPos2();
+        if (pos1 == null || pos2 == null || !pos1.getWorldName().equals(pos2.getWorldName())) {
+            return new Graveyard(graveyardName, null, null, null, entry.getMargin());
+        }
+        return new Graveyard(graveyardName, pos1.getWorldName(),
+                new Location(null, pos1.getX(), pos1.getY(), pos1.getZ()),
+                new Location(null, pos2.getX(), pos2.getY(), pos2.getZ()),
+                entry.getMargin());
+    }
+
+    @Override
+    public boolean hasGraveyard(String graveyardName) {
+        return getGraveyardFile(graveyardName).exists();
+    }
+
+    @Override
+    public boolean saveGraveyard(Graveyard graveyard) {
+        File graveyardFile = getGraveyardFile(graveyard.getName());
+        YamlConfiguration config = new YamlConfiguration();
+
+        config.set("name", graveyard.getName());
+        config.set("pos1.world", graveyard.getPos1().getWorld().getName());
+        config.set("pos1.x", graveyard.getPos1().getBlockX());
+        config.set("pos1.y", graveyard.getPos1().getBlockY());
+        config.set("pos1.z", graveyard.getPos1().getBlockZ());
+
+        config.set("pos2.world", graveyard.getPos2().getWorld().getName());
+        config.set("pos2.x", graveyard.getPos2().getBlockX());
+        config.set("pos2.y", graveyard.getPos2().getBlockY());
+        config.set("pos2.z", graveyard.getPos2().getBlockZ());
+        config.set("margin", graveyard.getMargin());
+
+        synchronized (occupancyJournal) {
+            if (graveyardFile.exists()) {
+                logger.warning("Not saving graveyard " + graveyard.getName() + " because its file already exists.");
+                return false;
+            }
+            try {
+                config.save(graveyardFile);
+                return true;
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not save graveyard " + graveyard.getName(), e);
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public boolean deleteGraveyard(String graveyardName) {
+        synchronized (occupancyJournal) {
+            return getGraveyardFile(graveyardName).delete();
+        }
+    }
+
+    @Override
+    public GraveSite addGraveSite(String graveyardName, Location location) {
+        List<GraveSite> graveSites = addGraveSites(graveyardName, Collections.singletonList(location));
+        return graveSites != null ? graveSites.get(0) : null;
+    }
+
+    @Override
+    public List<GraveSite> addGraveSites(String graveyardName, List<Location> locations) {
+        File graveyardFile = getGraveyardFile(graveyardName);
+        synchronized (occupancyJournal) {
+            if (!graveyardFile.exists()) {
+                // The graveyard was deleted; saving would create a graveyard file without a region
+                logger.warning("Not saving grave sites to graveyard " + graveyardName + " because its file no longer exists.");
+                return null;
+            }
+            YamlConfiguration config = YamlConfiguration.loadConfiguration(graveyardFile);
+
+            int siteNumber = getNextGraveSiteNumber(config);
+
+            List<GraveSite> graveSites = new ArrayList<>(locations.size());
+            for (Location location : locations) {
+                GraveSite graveSite = new GraveSite(String.valueOf(siteNumber), location, false);
+                String siteKey = "gravesite." + siteNumber;
+                config.set(siteKey + ".world", graveSite.getWorldName());
+                config.set(siteKey + ".x", location.getBlockX());
+                config.set(siteKey + ".y", location.getBlockY());
+                config.set(siteKey + ".z", location.getBlockZ());
+                config.set(siteKey + ".occupied", false);
+                graveSites.add(graveSite);
+                siteNumber++;
+            }
+            config.set(NEXT_GRAVE_SITE_ID, siteNumber);
+
+            try {
+                config.save(graveyardFile);
+                return graveSites;
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not save grave sites to graveyard " + graveyardName, e);
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public boolean removeGraveSite(String graveyardName, String graveSiteId) {
+        File graveyardFile = getGraveyardFile(graveyardName);
+        synchronized (occupancyJournal) {
+            YamlConfiguration config = YamlConfiguration.loadConfiguration(graveyardFile);
+            String siteKey = "gravesite." + graveSiteId;
+            if (!config.contains(siteKey)) {
+                return false;
+            }
+
+            // Files written before the counter was stored only know their next key from their highest key
+            config.set(NEXT_GRAVE_SITE_ID, getNextGraveSiteNumber(config));
+            config.set(siteKey, null);
+            try {
+                config.save(graveyardFile);
+                return true;
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not remove grave site " + graveSiteId + " from graveyard " + graveyardName, e);
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public void recordOccupancy(String graveyardName, GraveSite graveSite, boolean occupied) {
+        occupancyJournal.record(graveyardName, graveSite, occupied);
+    }
+
+    /**
+     * Appends every recorded occupancy change to the journal in a single batch.
+     *
+     * @return the number of changes written.
+     */
+    @Override
+    public int flush() {
+        return occupancyJournal.flush();
+    }
+
+    /**
+     * Gets the number of bytes appended to the occupancy journal.
+     *
+     * @return the number of bytes written.
+     */
+    @Override
+    public long getWrittenBytes() {
+        return occupancyJournal.getWrittenBytes();
+    }
+
+    /**
+     * Compacts the occupancy journal into the graveyard files.
+     *
+     * @return the number of graveyard files updated.
+     */
+    @Override
+    public int compact() {
+        return compactJournal();
+    }
+
+    @Override
+    public void close() {
+        occupancyJournal.flush();
+        compactJournal();
+    }
+
+    /**
+     * Compacts the occupancy journal into the graveyard files, and updates the snapshot entries
+     * of the rewritten files from the configurations saved to them, so the next load does not
+     * parse a file again only because grave sites were occupied or freed.
+     *
+     * @return the number of graveyard files updated.
+     */
+    private int compactJournal() {
+        synchronized (occupancyJournal) {
+            Map<String, GraveyardSnapshotFile.Entry> updatedEntries = new HashMap<>();
+            int rewritten = occupancyJournal.compact((graveyardFile, config) -> {
+                try {
+                    byte[] contentHash = GraveyardSnapshotFile.hash(Files.readAllBytes(graveyardFile.toPath()));
+                    updatedEntries.put(graveyardFile.getName(), toEntry(graveyardFile, contentHash, config));
+                } catch (IOException e) {
+                    // The snapshot keeps its outdated entry, so the file is parsed on the next load
+                    logger.log(Level.WARNING, "Could not read graveyard file " + graveyardFile.getName() + " to update the snapshot.", e);
+                }
+            });
+            snapshotFile.update(updatedEntries);
+            return rewritten;
+        }
+    }
+
+    /**
+     * Moves the graveyard files aside after they were migrated to another storage,
+     * so they are neither loaded nor migrated again. The files are kept as a backup.
+     *
+     * @return true if the files were moved, false otherwise.
+     */
+    public boolean archive() {
+        synchronized (occupancyJournal) {
+            occupancyJournal.flush();
+            occupancyJournal.compact();
+            File archiveFolder = new File(graveyardFolder.getParentFile(), graveyardFolder.getName() + ".migrated");
+            snapshotPath.delete();
+            return graveyardFolder.renameTo(archiveFolder);
+        }
+    }
+
+    /**
+     * Gets the key the next grave site added to a graveyard is given.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @return the next grave site key, which is 1 for a graveyard without a file.
+     */
+    public int getNextGraveSiteNumber(String graveyardName) {
+        synchronized (occupancyJournal) {
+            return getNextGraveSiteNumber(YamlConfiguration.loadConfiguration(getGraveyardFile(graveyardName)));
+        }
+    }
+
+    /**
+     * Gets the key the next grave site added to a graveyard configuration is given: the stored
+     * counter, or the key following the highest numbered key if that is higher, such as in
+     * files written before the counter was stored or edited by hand.
+     *
+     * @param config the graveyard configuration.
+     * @return the next grave site key.
+     */
+    private static int getNextGraveSiteNumber(YamlConfiguration config) {
+        int siteNumber = Math.max(1, config.getInt(NEXT_GRAVE_SITE_ID, 1));
+        if (config.isConfigurationSection("gravesite")) {
+            for (String key : config.getConfigurationSection("gravesite").getKeys(false)) {
+                try {
+                    siteNumber = Math.max(siteNumber, Integer.parseInt(key) + 1);
+                } catch (NumberFormatException ignored) {
+                    // Keys written by hand do not need to be numbers
+                }
+            }
+        }
+        return siteNumber;
+    }
+
+    /**
+     * Checks if there is at least one graveyard file.
+     *
+     * @return true if the Graveyards folder contains a graveyard file.
+     */
+    public boolean hasGraveyards() {
+        File[] graveyardFiles = graveyardFolder.listFiles((dir, name) -> name.endsWith(".yml"));
+        return graveyardFiles != null && graveyardFiles.length > 0;
+    }
+
+    /**
+     * Gets the file a graveyard is stored in.
+     *
+     * @param graveyardName the name of the graveyard.
+     * @return the graveyard file, which may not exist.
+     */
+    private File getGraveyardFile(String graveyardName) {
+        return new File(graveyardFolder, graveyardName + ".yml");
+    }
+}
@@ -27,29 +27,25 @@ public class GraveyardInfoTabCompleter implements TabCompleter {
 
     /**
      * Handles tab completion for graveyard information commands, suggesting
-     * graveyard names based on the user's input.
+     * graveyard names and then the grave site keys to continue paging after.
+     * Both are served from the cache's prefix indexes.
      *
      * @param sender the command sender, typically a {@link Player}.
      * @param command the command being executed.
      * @param alias the alias of the command.
      * @param args the arguments provided so far.
      * @return a list of suggested completions based on the graveyard names
-     *         that start with the given input.
+     *         or grave site keys that start with the given input.
      */
     @Override
     public List<String> onTabComplete(CommandSender sender, org.bukkit.command.Command command, String alias, String[] args) {
-        List<String> completions = new ArrayList<>();
-
         if (sender instanceof Player && args.length == 1) {
-            String partialInput = args[0].toLowerCase();
-
-            for (String graveyardName : plugin.getCacheManager().getAllGraveyards().keySet()) {
-                if (graveyardName.toLowerCase().startsWith(partialInput)) {
-                    completions.add(graveyardName);
-                }
-            }
+            return plugin.getCacheManager().completeGraveyardName(args[0]);
+        }
+        if (sender instanceof Player && args.length == 2) {
+            return plugin.getCacheManager().completeGraveSiteId(args[0], args[1]);
         }
 
-        return completions;
+        return new ArrayList<>();
     }
 }
\ No newline at end of file
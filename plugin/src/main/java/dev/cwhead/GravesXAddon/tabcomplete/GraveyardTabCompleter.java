@@ -0,0 +1,69 @@
+package dev.cwhead.GravesXAddon.tabcomplete;
+
+import dev.cwhead.GravesXAddon.Graveyards;
+import dev.cwhead.GravesXAddon.util.PrefixIndex;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Provides tab completion for graveyard-related commands, supporting operations
+ * like creating, deleting, and managing graveyard sites.
+ * Graveyard names and grave site keys are served from the cache's prefix indexes,
+ * so completing never touches the disk.
+ */
+public class GraveyardTabCompleter implements TabCompleter {
+
+    private static final PrefixIndex SUBCOMMANDS = PrefixIndex.of(Arrays.asList(
+            "pos1", "pos2", "create", "addsite", "fill", "delete", "removesite", "profile"));
+    private static final PrefixIndex PROFILE_ARGUMENTS = PrefixIndex.of(Collections.singletonList("reset"));
+
+    private final Graveyards plugin;
+
+    /**
+     * Constructs a GraveyardTabCompleter for a given plugin instance.
+     *
+     * @param plugin the main plugin class instance, used to access the cache manager.
+     */
+    public GraveyardTabCompleter(Graveyards plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Handles tab completion for graveyard commands, suggesting possible arguments
+     * based on the input length and command context. Only suggestions starting
+     * with the typed argument are returned.
+     *
+     * @param sender the command sender, typically a {@link Player}.
+     * @param command the command being executed.
+     * @param label the alias of the command.
+     * @param args the arguments provided so far.
+     * @return a list of suggested completions based on the command and argument context.
+     */
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command command, String label, String[] args) {
+        if (!(sender instanceof Player)) {
+            return new ArrayList<>();
+        }
+
+        if (args.length == 1) {
+            return SUBCOMMANDS.complete(args[0]);
+        } else if (args.length == 2) {
+            if ("profile".equalsIgnoreCase(args[0])) {
+                return PROFILE_ARGUMENTS.complete(args[1]);
+            } else if ("create".equalsIgnoreCase(args[0]) || "delete".equalsIgnoreCase(args[0]) || "fill".equalsIgnoreCase(args[0]) || "removesite".equalsIgnoreCase(args[0])) {
+                return plugin.getCacheManager().completeGraveyardName(args[1]);
+            }
+        } else if (args.length == 3 && "removesite".equalsIgnoreCase(args[0])) {
+            return plugin.getCacheManager().completeGraveSiteId(args[1], args[2]);
+        }
+
+        return new ArrayList<>();
+    }
+}
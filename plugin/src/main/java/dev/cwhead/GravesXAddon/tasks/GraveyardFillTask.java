@@ -0,0 +1,241 @@
+package dev.cwhead.GravesXAddon.tasks;
+
+import dev.cwhead.GravesXAddon.Graveyards;
+import dev.cwhead.GravesXAddon.scheduler.TaskScheduler;
+import dev.cwhead.GravesXAddon.type.Graveyard;
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+
+/**
+ * Generates grave sites over the area of a graveyard, one every few blocks wherever there is
+ * solid ground with two free blocks above it. The area is scanned column by column, and each
+ * run stops once it has used up its share of the tick and continues on the next tick, so even
+ * a large graveyard never stalls the server. Columns in unloaded chunks are skipped instead of
+ * loading them, and columns that already have a grave site are left alone.
+ * <p>
+ * The generated grave sites are kept in memory and stored with a single write once the whole
+ * area has been scanned.
+ */
+public class GraveyardFillTask {
+
+    /**
+     * The time a run may spend scanning before it yields to the rest of the tick, in nanoseconds.
+     */
+    public static final long TICK_BUDGET_NANOS = 5_000_000L;
+
+    private static final long PROGRESS_INTERVAL_NANOS = 5_000_000_000L;
+
+    private final Graveyards plugin;
+    private final TaskScheduler scheduler;
+    private final Player player;
+    private final String graveyardName;
+    private final World world;
+    private final int spacing;
+    private final int minX;
+    private final int maxX;
+    private final int minZ;
+    private final int maxZ;
+    private final int minGroundY;
+    private final int maxGroundY;
+    private final Set<Long> occupiedColumns = new HashSet<>();
+    private final List<Location> locations = new ArrayList<>();
+    private final Runnable onFinish;
+    private final long columnCount;
+    private int x;
+    private int z;
+    private long scannedColumns;
+    private long skippedColumns;
+    private long lastProgressNanos;
+
+    /**
+     * Constructs a GraveyardFillTask for the area of a graveyard. Nothing is scanned until {@link #start()} is called.
+     *
+     * @param plugin the main plugin class instance.
+     * @param player the player who started the fill and receives its progress.
+     * @param graveyard the graveyard whose area is filled; its corners must be set.
+     * @param world the world containing the area.
+     * @param spacing the distance in blocks between generated grave sites along both axes.
+     * @param onFinish called once the fill has finished or failed, on any thread.
+     */
+    public GraveyardFillTask(Graveyards plugin, Player player, Graveyard graveyard, World world, int spacing, Runnable onFinish) {
+        this.plugin = plugin;
+        this.scheduler = plugin.getTaskScheduler();
+        this.player = player;
+        this.graveyardName = graveyard.getName();
+        this.world = world;
+        this.spacing = spacing;
+        this.onFinish = onFinish;
+
+        Location pos1 = graveyard.getPos1();
+        Location pos2 = graveyard.getPos2();
+        this.minX = Math.min(pos1.getBlockX(), pos2.getBlockX());
+        this.maxX = Math.max(pos1.getBlockX(), pos2.getBlockX());
+        this.minZ = Math.min(pos1.getBlockZ(), pos2.getBlockZ());
+        this.maxZ = Math.max(pos1.getBlockZ(), pos2.getBlockZ());
+        // Corners and grave sites are stored two blocks above the ground they were set on
+        this.minGroundY = Math.max(Math.min(pos1.getBlockY(), pos2.getBlockY()) - 2, world.getMinHeight());
+        this.maxGroundY = Math.min(Math.max(pos1.getBlockY(), pos2.getBlockY()), world.getMaxHeight() - 3);
+        this.columnCount = (long) ((maxX - minX) / spacing + 1) * ((maxZ - minZ) / spacing + 1);
+        this.x = minX;
+        this.z = minZ;
+
+        for (GraveSite graveSite : plugin.getCacheManager().getGraveSites(graveyardName)) {
+            if (world.getName().equals(graveSite.getWorldName())) {
+                occupiedColumns.add(columnKey(graveSite.getBlockX(), graveSite.getBlockZ()));
+            }
+        }
+    }
+
+    /**
+     * Starts scanning on the thread owning the first column.
+     */
+    public void start() {
+        lastProgressNanos = System.nanoTime();
+        scheduler.runAtLocation(getColumnLocation(), this::run);
+    }
+
+    /**
+     * Gets the number of columns the area is scanned in.
+     *
+     * @return the number of columns.
+     */
+    public long getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * Scans columns until the area is done, the tick budget is used up or the next column
+     * belongs to another region thread, then schedules the next run where it has to happen.
+     */
+    private void run() {
+        long deadline = System.nanoTime() + TICK_BUDGET_NANOS;
+        try {
+            while (x <= maxX) {
+                Location column = getColumnLocation();
+                if (!scheduler.isOwnedByCurrentThread(column)) {
+                    scheduler.runAtLocation(column, this::run);
+                    return;
+                }
+                if (System.nanoTime() - deadline >= 0) {
+                    sendProgress();
+                    scheduler.runAtLocationLater(column, this::run, 1L);
+                    return;
+                }
+
+                scanColumn(x, z);
+                scannedColumns++;
+                z += spacing;
+                if (z > maxZ) {
+                    z = minZ;
+                    x += spacing;
+                }
+            }
+        } catch (RuntimeException e) {
+            onFinish.run();
+            plugin.getLogger().log(Level.SEVERE, "Failed to fill graveyard " + graveyardName, e);
+            sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Failed to fill graveyard " + ChatColor.GOLD + graveyardName + ChatColor.RED + ". Please check the server logs.");
+            return;
+        }
+
+        scheduler.runAsync(this::save);
+    }
+
+    /**
+     * Adds a grave site on the highest solid ground of a column that has two free blocks above it.
+     *
+     * @param blockX the x coordinate of the column.
+     * @param blockZ the z coordinate of the column.
+     */
+    private void scanColumn(int blockX, int blockZ) {
+        if (occupiedColumns.contains(columnKey(blockX, blockZ))) {
+            return;
+        }
+        if (!world.isChunkLoaded(blockX >> 4, blockZ >> 4)) {
+            skippedColumns++;
+            return;
+        }
+
+        for (int y = maxGroundY; y >= minGroundY; y--) {
+            Block ground = world.getBlockAt(blockX, y, blockZ);
+            if (!ground.getType().isSolid()) {
+                continue;
+            }
+            if (isFree(ground.getRelative(0, 1, 0)) && isFree(ground.getRelative(0, 2, 0))) {
+                locations.add(new Location(world, blockX, y + 2, blockZ));
+            }
+            return;
+        }
+    }
+
+    /**
+     * Stores all generated grave sites with one write and reports the result.
+     */
+    private void save() {
+        try {
+            if (locations.isEmpty()) {
+                sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "No free solid ground was found in graveyard " + ChatColor.GOLD + graveyardName + ChatColor.RED + "." + getSkippedNote());
+                return;
+            }
+            if (!plugin.getCacheManager().graveyardExists(graveyardName)) {
+                sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Graveyard " + ChatColor.GOLD + graveyardName + ChatColor.RED + " was deleted while it was being filled.");
+                return;
+            }
+
+            List<GraveSite> graveSites = plugin.getCacheManager().addGraveSites(graveyardName, locations);
+            if (graveSites != null) {
+                sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Added " + ChatColor.GOLD + graveSites.size() + ChatColor.RED + " grave sites to graveyard " + ChatColor.GOLD + graveyardName + ChatColor.RED + "." + getSkippedNote());
+            } else {
+                sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Failed to save grave sites. Check the server logs for details.");
+            }
+        } finally {
+            onFinish.run();
+        }
+    }
+
+    /**
+     * Tells the player how far the scan got, at most once every few seconds.
+     */
+    private void sendProgress() {
+        long now = System.nanoTime();
+        if (now - lastProgressNanos < PROGRESS_INTERVAL_NANOS) {
+            return;
+        }
+        lastProgressNanos = now;
+        sendMessage(ChatColor.GRAY + "☠ " + ChatColor.RED + "Filling graveyard " + ChatColor.GOLD + graveyardName + ChatColor.RED + ": "
+                + ChatColor.GOLD + (scannedColumns * 100 / columnCount) + "%" + ChatColor.RED + " scanned, "
+                + ChatColor.GOLD + locations.size() + ChatColor.RED + " grave sites found.");
+    }
+
+    private String getSkippedNote() {
+        if (skippedColumns == 0) {
+            return "";
+        }
+        return " " + ChatColor.GOLD + skippedColumns + ChatColor.RED + " columns in unloaded chunks were skipped.";
+    }
+
+    private void sendMessage(String message) {
+        scheduler.runForEntity(player, () -> player.sendMessage(message));
+    }
+
+    private Location getColumnLocation() {
+        return new Location(world, x, maxGroundY, z);
+    }
+
+    private static boolean isFree(Block block) {
+        return block.isPassable() && !block.isLiquid();
+    }
+
+    private static long columnKey(int blockX, int blockZ) {
+        return ((long) blockX << 32) | (blockZ & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,121 @@
+package dev.cwhead.GravesXAddon.type;
+
+import org.bukkit.Location;
+
+/**
+ * Represents a graveyard area defined by two corner positions.
+ * Each graveyard has a unique name and a defined area within two {@link Location} points.
+ * Deaths within the area, extended on every side by the graveyard's margin, belong to the graveyard.
+ */
+public class Graveyard {
+
+    /**
+     * The margin used for graveyards that do not configure one, in blocks.
+     */
+    public static final double DEFAULT_MARGIN = 5.0;
+
+    private final String name;
+    private final String worldName;
+    private final Location pos1;
+    private final Location pos2;
+    private final double margin;
+
+    /**
+     * Constructs a Graveyard with the specified name and corner positions and the default margin.
+     *
+     * @param name the unique name of the graveyard.
+     * @param pos1 the first corner {@link Location} of the graveyard.
+     * @param pos2 the second corner {@link Location} of the graveyard.
+     */
+    public Graveyard(String name, Location pos1, Location pos2) {
+        this(name, pos1, pos2, DEFAULT_MARGIN);
+    }
+
+    /**
+     * Constructs a Graveyard with the specified name, corner positions and margin.
+     *
+     * @param name the unique name of the graveyard.
+     * @param pos1 the first corner {@link Location} of the graveyard, or null if it is not set.
+     * @param pos2 the second corner {@link Location} of the graveyard, or null if it is not set.
+     * @param margin the distance in blocks the graveyard extends beyond its area and grave sites.
+     */
+    public Graveyard(String name, Location pos1, Location pos2, double margin) {
+        this(name, getSharedWorldName(pos1, pos2), pos1, pos2, margin);
+    }
+
+    /**
+     * Constructs a Graveyard in the named world, whose corner positions may not be bound to a world yet.
+     *
+     * @param name the unique name of the graveyard.
+     * @param worldName the name of the world containing both corners, or null if they are not in the same world.
+     * @param pos1 the first corner {@link Location} of the graveyard, or null if it is not set.
+     * @param pos2 the second corner {@link Location} of the graveyard, or null if it is not set.
+     * @param margin the distance in blocks the graveyard extends beyond its area and grave sites.
+     */
+    public Graveyard(String name, String worldName, Location pos1, Location pos2, double margin) {
+        this.name = name;
+        this.worldName = worldName;
+        this.pos1 = pos1;
+        this.pos2 = pos2;
+        this.margin = margin;
+    }
+
+    /**
+     * Gets the name of the graveyard.
+     *
+     * @return the name of the graveyard.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the name of the world containing the graveyard area.
+     *
+     * @return the world name, or null if the area is not set or its corners are in different worlds.
+     */
+    public String getWorldName() {
+        return worldName;
+    }
+
+    /**
+     * Gets the first corner location of the graveyard area.
+     *
+     * @return the first {@link Location} corner.
+     */
+    public Location getPos1() {
+        return pos1;
+    }
+
+    /**
+     * Gets the second corner location of the graveyard area.
+     *
+     * @return the second {@link Location} corner.
+     */
+    public Location getPos2() {
+        return pos2;
+    }
+
+    /**
+     * Gets the distance the graveyard extends beyond its area and grave sites.
+     *
+     * @return the margin in blocks.
+     */
+    public double getMargin() {
+        return margin;
+    }
+
+    /**
+     * Gets the name of the world both corner positions are in.
+     *
+     * @param pos1 the first corner, or null.
+     * @param pos2 the second corner, or null.
+     * @return the world name, or null if a corner is missing or the corners are in different worlds.
+     */
+    private static String getSharedWorldName(Location pos1, Location pos2) {
+        if (pos1 == null || pos2 == null || pos1.getWorld() == null || !pos1.getWorld().equals(pos2.getWorld())) {
+            return null;
+        }
+        return pos1.getWorld().getName();
+    }
+}
@@ -0,0 +1,318 @@
+package dev.cwhead.GravesXAddon.util;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents a single grave site within a graveyard.
+ * Provides location information and occupancy status of the grave site.
+ * <p>
+ * A grave site always knows the name of its world, but its location is only bound to the
+ * {@link World} while that world is loaded, so grave sites in unloaded worlds keep no
+ * reference to a world object.
+ * <p>
+ * A free grave site is claimed in two phases: it is first reserved with {@link #reserve(long)},
+ * and the reservation is then either committed once the grave exists or released.
+ * Every transition is a single compare-and-set, so two deaths can never claim the same
+ * grave site, and a reservation that is never committed expires on its own. A commit or
+ * release names the reservation by its stamp, so it never acts on a later reservation.
+ * <p>
+ * An occupied grave site remembers the UUID of the GravesX grave on it, so the grave site can be
+ * found from the grave without comparing locations. Grave sites occupied before the UUID was
+ * recorded do not know their grave.
+ */
+public class GraveSite {
+    private static final long FREE = 0L;
+    private static final long OCCUPIED = -1L;
+
+    private final String id;
+    private final String worldName;
+    private volatile Location location;
+    // FREE, OCCUPIED, or the time in milliseconds at which the current reservation expires
+    private final AtomicLong state;
+    private volatile UUID graveUUID;
+
+    /**
+     * Constructs a GraveSite at the specified location and occupancy status.
+     *
+     * @param location the {@link Location} of the grave site.
+     * @param occupied the occupancy status of the grave site.
+     */
+    public GraveSite(Location location, boolean occupied) {
+        this(null, location, occupied);
+    }
+
+    /**
+     * Constructs a GraveSite with the key it is stored under in the graveyard file.
+     *
+     * @param id the key of the grave site in the graveyard file, or null if it is not stored yet.
+     * @param location the {@link Location} of the grave site.
+     * @param occupied the occupancy status of the grave site.
+     */
+    public GraveSite(String id, Location location, boolean occupied) {
+        this(id, location.getWorld() != null ? location.getWorld().getName() : null, location, occupied);
+    }
+
+    /**
+     * Constructs a GraveSite in the named world, whose location may not be bound to a world yet.
+     *
+     * @param id the key of the grave site in the graveyard file, or null if it is not stored yet.
+     * @param worldName the name of the world the grave site is in.
+     * @param location the {@link Location} of the grave site.
+     * @param occupied the occupancy status of the grave site.
+     */
+    public GraveSite(String id, String worldName, Location location, boolean occupied) {
+        this.id = id;
+        this.worldName = worldName;
+        this.location = location;
+        this.state = new AtomicLong(occupied ? OCCUPIED : FREE);
+    }
+
+    /**
+     * Gets the key this grave site is stored under in the graveyard file.
+     *
+     * @return the grave site key, or null if the grave site is not stored yet.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the name of the world this grave site is in.
+     *
+     * @return the world name.
+     */
+    public String getWorldName() {
+        return worldName;
+    }
+
+    /**
+     * Gets the {@link Location} of this grave site.
+     * The world of the location is null while the grave site's world is not loaded.
+     *
+     * @return the location of the grave site.
+     */
+    public Location getLocation() {
+        return location;
+    }
+
+    /**
+     * Checks if the location of this grave site is bound to a loaded world.
+     *
+     * @return true if the grave site's world is bound; false otherwise.
+     */
+    public boolean isBound() {
+        return location.getWorld() != null;
+    }
+
+    /**
+     * Binds the location of this grave site to the specified world.
+     * A new location is published instead of modifying the current one, since it may
+     * already have been handed out.
+     *
+     * @param world the loaded world, which must be named like the grave site's world.
+     */
+    public void bind(World world) {
+        if (location.getWorld() != world) {
+            location = new Location(world, location.getX(), location.getY(), location.getZ(), location.getYaw(), location.getPitch());
+        }
+    }
+
+    /**
+     * Releases the world the location of this grave site is bound to, so an unloaded
+     * world is not kept in memory by the grave site.
+     */
+    public void unbind() {
+        bind(null);
+    }
+
+    /**
+     * Gets the {@link Block} at this grave site's location.
+     *
+     * @return the block at the grave site's location.
+     */
+    public Block getBlock() {
+        return location.getBlock();
+    }
+
+    /**
+     * Gets the X-coordinate of the block at this grave site's location.
+     *
+     * @return the block X-coordinate.
+     */
+    public int getBlockX() {
+        return location.getBlockX();
+    }
+
+    /**
+     * Gets the Y-coordinate of the block at this grave site's location.
+     *
+     * @return the block Y-coordinate.
+     */
+    public int getBlockY() {
+        return location.getBlockY();
+    }
+
+    /**
+     * Gets the Z-coordinate of the block at this grave site's location.
+     *
+     * @return the block Z-coordinate.
+     */
+    public int getBlockZ() {
+        return location.getBlockZ();
+    }
+
+    /**
+     * Gets the X-coordinate of this grave site's location in double precision.
+     *
+     * @return the X-coordinate in double precision.
+     * @deprecated Use {@link #getBlockX()} instead for block-level precision.
+     */
+    @Deprecated
+    public double getX() {
+        return location.getBlock().getX();
+    }
+
+    /**
+     * Gets the Y-coordinate of this grave site's location in double precision.
+     *
+     * @return the Y-coordinate in double precision.
+     * @deprecated Use {@link #getBlockY()} instead for block-level precision.
+     */
+    @Deprecated
+    public double getY() {
+        return location.getBlock().getY();
+    }
+
+    /**
+     * Gets the Z-coordinate of this grave site's location in double precision.
+     *
+     * @return the Z-coordinate in double precision.
+     * @deprecated Use {@link #getBlockZ()} instead for block-level precision.
+     */
+    @Deprecated
+    public double getZ() {
+        return location.getBlock().getZ();
+    }
+
+    /**
+     * Checks if the grave site is currently occupied.
+     * A reserved grave site is not occupied until its reservation is committed.
+     *
+     * @return true if the grave site is occupied; false otherwise.
+     */
+    public boolean isOccupied() {
+        return state.get() == OCCUPIED;
+    }
+
+    /**
+     * Checks if the grave site holds a reservation that has not expired yet.
+     *
+     * @return true if the grave site is reserved; false otherwise.
+     */
+    public boolean isReserved() {
+        long current = state.get();
+        return current > 0 && current > System.currentTimeMillis();
+    }
+
+    /**
+     * Checks if the grave site can be reserved, that is if it is free or its reservation has expired.
+     *
+     * @return true if the grave site is available; false otherwise.
+     */
+    public boolean isAvailable() {
+        long current = state.get();
+        return current == FREE || (current > 0 && current <= System.currentTimeMillis());
+    }
+
+    /**
+     * Gets the time at which the current reservation of the grave site expires.
+     *
+     * @return the expiry time in milliseconds, or 0 if the grave site is not reserved.
+     */
+    public long getReservationExpiry() {
+        long current = state.get();
+        return current > 0 ? current : 0L;
+    }
+
+    /**
+     * Reserves the grave site if it is available. An expired reservation is taken over.
+     * The returned stamp identifies this reservation, and is needed to commit or release it,
+     * so a reservation that expired and was taken over cannot be committed or released by its
+     * former holder.
+     *
+     * @param timeoutMillis the time in milliseconds after which the reservation expires if it is not committed.
+     * @return the stamp of the reservation, which is its expiry time; 0 if the grave site is occupied or reserved by someone else.
+     */
+    public long reserve(long timeoutMillis) {
+        while (true) {
+            long current = state.get();
+            long now = System.currentTimeMillis();
+            if (current == OCCUPIED || (current > 0 && current > now)) {
+                return 0L;
+            }
+            // Later than any expired reservation taken over, so stamps are never reused
+            long stamp = now + timeoutMillis;
+            if (state.compareAndSet(current, stamp)) {
+                return stamp;
+            }
+        }
+    }
+
+    /**
+     * Commits a reservation of the grave site, marking it as occupied.
+     * A reservation that expired but was not taken over yet can still be committed,
+     * since the grave it was reserved for exists.
+     *
+     * @param stamp the stamp returned by {@link #reserve(long)} when the reservation was made.
+     * @return true if the reservation was committed; false if the grave site no longer holds that reservation.
+     */
+    public boolean commitReservation(long stamp) {
+        return stamp > 0 && state.compareAndSet(stamp, OCCUPIED);
+    }
+
+    /**
+     * Releases a reservation of the grave site, making it available again.
+     *
+     * @param stamp the stamp returned by {@link #reserve(long)} when the reservation was made.
+     * @return true if the reservation was released; false if the grave site no longer holds that reservation.
+     */
+    public boolean releaseReservation(long stamp) {
+        return stamp > 0 && state.compareAndSet(stamp, FREE);
+    }
+
+    /**
+     * Sets the occupancy status of the grave site, replacing any reservation.
+     * Marking the site as unoccupied also forgets the grave that was on it.
+     *
+     * @param occupied true to mark the site as occupied; false to mark as unoccupied.
+     */
+    public void setOccupied(boolean occupied) {
+        if (!occupied) {
+            graveUUID = null;
+        }
+        state.set(occupied ? OCCUPIED : FREE);
+    }
+
+    /**
+     * Gets the UUID of the GravesX grave occupying this grave site.
+     *
+     * @return the grave UUID, or null if the grave site is free or its grave is not known.
+     */
+    public UUID getGraveUUID() {
+        return graveUUID;
+    }
+
+    /**
+     * Sets the UUID of the GravesX grave occupying this grave site.
+     *
+     * @param graveUUID the grave UUID, or null if the grave is not known.
+     */
+    public void setGraveUUID(UUID graveUUID) {
+        this.graveUUID = graveUUID;
+    }
+}
\ No newline at end of file
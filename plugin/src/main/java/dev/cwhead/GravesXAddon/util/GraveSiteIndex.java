@@ -0,0 +1,49 @@
+package dev.cwhead.GravesXAddon.util;
+
+import org.bukkit.Location;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A hash index of the grave sites of a single graveyard within a single world, keyed by
+ * the packed block coordinates of each site.
+ * Lookups compare block positions only, so sub-block offsets, yaw and pitch never
+ * prevent a location from resolving to its grave site.
+ */
+public class GraveSiteIndex {
+
+    private final Map<Long, GraveSite> graveSites = new HashMap<>();
+
+    /**
+     * Registers a grave site under its block coordinates.
+     *
+     * @param graveSite the {@link GraveSite} to register.
+     */
+    public void put(GraveSite graveSite) {
+        graveSites.put(pack(graveSite.getBlockX(), graveSite.getBlockY(), graveSite.getBlockZ()), graveSite);
+    }
+
+    /**
+     * Retrieves the grave site occupying the block at the specified location.
+     * The world of the location is not checked.
+     *
+     * @param location the location to look up.
+     * @return the {@link GraveSite} at the location's block, or null if there is none.
+     */
+    public GraveSite get(Location location) {
+        return graveSites.get(pack(location.getBlockX(), location.getBlockY(), location.getBlockZ()));
+    }
+
+    /**
+     * Packs block coordinates into a single long, using 26 bits for X and Z and 12 bits for Y.
+     *
+     * @param x the block X-coordinate.
+     * @param y the block Y-coordinate.
+     * @param z the block Z-coordinate.
+     * @return the packed block key.
+     */
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+}
@@ -0,0 +1,60 @@
+package dev.cwhead.GravesXAddon.util;
+
+/**
+ * A reservation of a {@link GraveSite}, holding the stamp the reservation was made with.
+ * The reservation is committed or released through the stamp, so it only ever acts on the
+ * reservation it was made for, even after that reservation expired and the grave site was
+ * reserved again.
+ */
+public final class GraveSiteReservation {
+
+    private final GraveSite graveSite;
+    private final long stamp;
+
+    /**
+     * Constructs a reservation of a grave site.
+     *
+     * @param graveSite the reserved grave site.
+     * @param stamp the stamp returned by {@link GraveSite#reserve(long)}.
+     */
+    public GraveSiteReservation(GraveSite graveSite, long stamp) {
+        this.graveSite = graveSite;
+        this.stamp = stamp;
+    }
+
+    /**
+     * Gets the reserved grave site.
+     *
+     * @return the {@link GraveSite}.
+     */
+    public GraveSite getGraveSite() {
+        return graveSite;
+    }
+
+    /**
+     * Gets the stamp of the reservation, which is also the time in milliseconds at which it expires.
+     *
+     * @return the reservation stamp.
+     */
+    public long getStamp() {
+        return stamp;
+    }
+
+    /**
+     * Commits the reservation, marking the grave site as occupied.
+     *
+     * @return true if the reservation was committed; false if the grave site no longer holds it.
+     */
+    public boolean commit() {
+        return graveSite.commitReservation(stamp);
+    }
+
+    /**
+     * Releases the reservation, making the grave site available again.
+     *
+     * @return true if the reservation was released; false if the grave site no longer holds it.
+     */
+    public boolean release() {
+        return graveSite.releaseReservation(stamp);
+    }
+}
@@ -0,0 +1,184 @@
+package dev.cwhead.GravesXAddon.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntPredicate;
+
+/**
+ * A static, balanced k-d tree over points in three dimensions, laid out in an array, that
+ * finds the nearest point currently marked as available.
+ * Every node counts the available points below it, so a search skips every subtree without
+ * available points and every subtree farther away than the best match so far, and marking
+ * a point only updates the counts on its path to the root.
+ * <p>
+ * The node of a range [low, high) of the node array is at its middle, its left subtree covers
+ * [low, mid) and its right subtree covers (mid, high). Nodes split on x, y and z in turn.
+ * The tree is not thread-safe.
+ */
+public class KdTree {
+
+    private final int[] nodes;
+    private final int[] positions;
+    private final boolean[] available;
+    private final int[] availableCounts;
+    private final double[][] coordinates;
+
+    /**
+     * Builds a tree over the specified points. No point is available yet.
+     *
+     * @param points the x, y and z coordinates of each point.
+     */
+    public KdTree(double[][] points) {
+        this.nodes = new int[points.length];
+        this.positions = new int[points.length];
+        this.available = new boolean[points.length];
+        this.availableCounts = new int[points.length];
+        this.coordinates = new double[points.length][];
+
+        Integer[] sorted = new Integer[points.length];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = i;
+        }
+        build(points, sorted, 0, sorted.length, 0);
+        for (int node = 0; node < sorted.length; node++) {
+            nodes[node] = sorted[node];
+            positions[sorted[node]] = node;
+            coordinates[node] = points[sorted[node]];
+        }
+    }
+
+    /**
+     * Orders a range of points so its middle element splits it on the axis of the depth.
+     */
+    private static void build(double[][] points, Integer[] indexes, int low, int high, int depth) {
+        if (high - low <= 1) {
+            return;
+        }
+        int axis = depth % 3;
+        Arrays.sort(indexes, low, high, Comparator.comparingDouble(index -> points[index][axis]));
+        int mid = (low + high) >>> 1;
+        build(points, indexes, low, mid, depth + 1);
+        build(points, indexes, mid + 1, high, depth + 1);
+    }
+
+    /**
+     * Gets the number of points in the tree.
+     *
+     * @return the number of points.
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Checks if any point is available.
+     *
+     * @return true if at least one point is available, false otherwise.
+     */
+    public boolean hasAvailable() {
+        return nodes.length > 0 && availableCounts[nodes.length >>> 1] > 0;
+    }
+
+    /**
+     * Marks a point as available or unavailable, updating the counts from the root down to its node.
+     * Marking a point with the state it already has changes nothing.
+     *
+     * @param point the index of the point, as passed to the constructor.
+     * @param isAvailable true to mark the point as available, false otherwise.
+     */
+    public void setAvailable(int point, boolean isAvailable) {
+        int position = positions[point];
+        if (available[position] == isAvailable) {
+            return;
+        }
+        available[position] = isAvailable;
+        int delta = isAvailable ? 1 : -1;
+        int low = 0;
+        int high = nodes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            availableCounts[mid] += delta;
+            if (position == mid) {
+                return;
+            }
+            if (position < mid) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+    }
+
+    /**
+     * Finds the available point closest to a location.
+     *
+     * @param x the x coordinate of the location.
+     * @param y the y coordinate of the location.
+     * @param z the z coordinate of the location.
+     * @return the index of the point, or -1 if no point is available.
+     */
+    public int nearest(double x, double y, double z) {
+        return nearest(x, y, z, point -> true);
+    }
+
+    /**
+     * Finds the available point closest to a location among the points accepted by a filter.
+     *
+     * @param x the x coordinate of the location.
+     * @param y the y coordinate of the location.
+     * @param z the z coordinate of the location.
+     * @param filter accepts the indexes of the points that may be returned.
+     * @return the index of the point, or -1 if no accepted point is available.
+     */
+    public int nearest(double x, double y, double z, IntPredicate filter) {
+        Search search = new Search(new double[] {x, y, z}, filter);
+        nearest(search, 0, nodes.length, 0);
+        return search.best >= 0 ? nodes[search.best] : -1;
+    }
+
+    private void nearest(Search search, int low, int high, int depth) {
+        if (low >= high) {
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        if (availableCounts[mid] == 0) {
+            return;
+        }
+
+        double[] point = coordinates[mid];
+        if (available[mid]) {
+            double dx = point[0] - search.target[0];
+            double dy = point[1] - search.target[1];
+            double dz = point[2] - search.target[2];
+            double distance = dx * dx + dy * dy + dz * dz;
+            if (distance < search.bestDistance && search.filter.test(nodes[mid])) {
+                search.bestDistance = distance;
+                search.best = mid;
+            }
+        }
+
+        int axis = depth % 3;
+        double split = search.target[axis] - point[axis];
+        boolean leftFirst = split < 0;
+        nearest(search, leftFirst ? low : mid + 1, leftFirst ? mid : high, depth + 1);
+        if (split * split < search.bestDistance) {
+            nearest(search, leftFirst ? mid + 1 : low, leftFirst ? high : mid, depth + 1);
+        }
+    }
+
+    /**
+     * The state of a nearest-neighbour search.
+     */
+    private static final class Search {
+
+        private final double[] target;
+        private final IntPredicate filter;
+        private int best = -1;
+        private double bestDistance = Double.MAX_VALUE;
+
+        private Search(double[] target, IntPredicate filter) {
+            this.target = target;
+            this.filter = filter;
+        }
+    }
+}
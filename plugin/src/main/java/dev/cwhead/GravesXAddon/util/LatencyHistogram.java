@@ -0,0 +1,217 @@
+package dev.cwhead.GravesXAddon.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency histogram over rolling time windows.
+ * Samples are counted in log-linear buckets with eight sub-buckets per power of two,
+ * which keeps reported percentiles within 12.5% of the recorded value while recording
+ * costs only a few atomic increments. Samples are counted in nanoseconds, so even
+ * the sub-microsecond calls of the hot paths keep their resolution.
+ * <p>
+ * Time is divided into windows of a fixed length and the most recent windows are kept
+ * in a ring, so statistics can be reported for the last window or for every kept window.
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + (MAX_EXPONENT - 4 + 1) * SUB_BUCKETS;
+
+    private final long windowMillis;
+    private final Window[] windows;
+
+    /**
+     * Constructs a LatencyHistogram keeping the specified number of windows.
+     *
+     * @param windowMillis the length of each window, in milliseconds.
+     * @param windowCount the number of windows kept.
+     */
+    public LatencyHistogram(long windowMillis, int windowCount) {
+        this.windowMillis = windowMillis;
+        this.windows = new Window[windowCount];
+        for (int i = 0; i < windowCount; i++) {
+            windows[i] = new Window();
+        }
+    }
+
+    /**
+     * Records a latency sample.
+     *
+     * @param nanos the latency, in nanoseconds.
+     */
+    public void record(long nanos) {
+        long sample = Math.max(0L, nanos);
+        long epoch = System.currentTimeMillis() / windowMillis;
+        Window window = windows[(int) (epoch % windows.length)];
+        window.roll(epoch);
+        window.buckets.incrementAndGet(bucketOf(sample));
+        window.count.incrementAndGet();
+        window.max.accumulateAndGet(sample, Math::max);
+    }
+
+    /**
+     * Summarizes the samples recorded in the most recent windows.
+     *
+     * @param windowCount the number of most recent windows to include, including the current one.
+     * @return the {@link Summary} of the included samples.
+     */
+    public Summary summarize(int windowCount) {
+        long epoch = System.currentTimeMillis() / windowMillis;
+        long[] buckets = new long[BUCKET_COUNT];
+        long count = 0;
+        long max = 0;
+
+        for (int i = 0; i < Math.min(windowCount, windows.length); i++) {
+            Window window = windows[(int) ((epoch - i) % windows.length)];
+            if (window.epoch.get() != epoch - i) {
+                continue;
+            }
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                buckets[bucket] += window.buckets.get(bucket);
+            }
+            count += window.count.get();
+            max = Math.max(max, window.max.get());
+        }
+        return new Summary(count, Math.min(percentile(buckets, count, 0.50), max), Math.min(percentile(buckets, count, 0.99), max), max);
+    }
+
+    /**
+     * Discards every recorded sample.
+     */
+    public void reset() {
+        for (Window window : windows) {
+            window.epoch.set(-1L);
+            window.clear();
+        }
+    }
+
+    /**
+     * Finds the upper bound of the bucket containing the specified percentile.
+     */
+    private static long percentile(long[] buckets, long count, double percentile) {
+        if (count == 0) {
+            return 0L;
+        }
+
+        long target = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += buckets[bucket];
+            if (seen >= target) {
+                return upperBoundOf(bucket);
+            }
+        }
+        return upperBoundOf(BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Gets the bucket a value in nanoseconds is counted in.
+     */
+    private static int bucketOf(long nanos) {
+        if (nanos < LINEAR_BUCKETS) {
+            return (int) nanos;
+        }
+
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(nanos), MAX_EXPONENT);
+        int subBucket = (int) ((nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return Math.min(LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + subBucket, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Gets the largest value in nanoseconds counted in a bucket.
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+        int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * A single time window of the histogram.
+     */
+    private static final class Window {
+        private final AtomicLong epoch = new AtomicLong(-1L);
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        /**
+         * Moves this window to the specified epoch, clearing the samples of the epoch it held before.
+         */
+        private void roll(long currentEpoch) {
+            long windowEpoch = epoch.get();
+            if (windowEpoch != currentEpoch && epoch.compareAndSet(windowEpoch, currentEpoch)) {
+                clear();
+            }
+        }
+
+        private void clear() {
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                buckets.set(bucket, 0L);
+            }
+            count.set(0L);
+            max.set(0L);
+        }
+    }
+
+    /**
+     * Statistics of the samples recorded over one or more windows. Latencies are in nanoseconds.
+     */
+    public static final class Summary {
+        private final long count;
+        private final long p50;
+        private final long p99;
+        private final long max;
+
+        private Summary(long count, long p50, long p99, long max) {
+            this.count = count;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        /**
+         * Gets the number of samples.
+         *
+         * @return the sample count.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the median latency.
+         *
+         * @return the 50th percentile, in nanoseconds.
+         */
+        public long getP50() {
+            return p50;
+        }
+
+        /**
+         * Gets the 99th percentile latency.
+         *
+         * @return the 99th percentile, in nanoseconds.
+         */
+        public long getP99() {
+            return p99;
+        }
+
+        /**
+         * Gets the largest recorded latency.
+         *
+         * @return the maximum, in nanoseconds.
+         */
+        public long getMax() {
+            return max;
+        }
+    }
+}
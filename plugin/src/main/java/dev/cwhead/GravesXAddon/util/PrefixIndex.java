@@ -0,0 +1,105 @@
+package dev.cwhead.GravesXAddon.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An immutable, case-insensitive prefix index of strings, used to serve tab completions.
+ * The strings are kept sorted by their lowercase form, so every string starting with a prefix
+ * lies in one contiguous run that is found with a binary search. A completion costs
+ * O(log n + k) for k matches, and no indexed string is lowercased while completing.
+ */
+public final class PrefixIndex {
+
+    private static final PrefixIndex EMPTY = new PrefixIndex(new String[0], new String[0]);
+
+    private final String[] keys;
+    private final String[] values;
+
+    private PrefixIndex(String[] keys, String[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Builds a prefix index of the specified strings.
+     *
+     * @param values the strings to index.
+     * @return the new {@link PrefixIndex}.
+     */
+    public static PrefixIndex of(Collection<String> values) {
+        if (values.isEmpty()) {
+            return EMPTY;
+        }
+
+        String[] sorted = values.toArray(new String[0]);
+        Arrays.sort(sorted, Comparator.comparing(value -> value.toLowerCase(Locale.ROOT)));
+        String[] keys = new String[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            keys[i] = sorted[i].toLowerCase(Locale.ROOT);
+        }
+        return new PrefixIndex(keys, sorted);
+    }
+
+    /**
+     * Gets an empty prefix index.
+     *
+     * @return the empty {@link PrefixIndex}.
+     */
+    public static PrefixIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Gets every indexed string starting with the specified prefix, ignoring case.
+     *
+     * @param prefix the typed prefix.
+     * @return a new list of the matching strings, in lowercase order.
+     */
+    public List<String> complete(String prefix) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        if (low == keys.length || !keys[low].startsWith(key)) {
+            return new ArrayList<>();
+        }
+
+        List<String> completions = new ArrayList<>();
+        for (int i = low; i < keys.length && keys[i].startsWith(key); i++) {
+            completions.add(values[i]);
+        }
+        return completions;
+    }
+
+    /**
+     * Gets every indexed string.
+     *
+     * @return an unmodifiable list of the strings, in lowercase order.
+     */
+    public List<String> values() {
+        return Collections.unmodifiableList(Arrays.asList(values));
+    }
+
+    /**
+     * Gets the number of indexed strings.
+     *
+     * @return the number of strings.
+     */
+    public int size() {
+        return values.length;
+    }
+}
@@ -0,0 +1,120 @@
+package dev.cwhead.GravesXAddon.util;
+
+import org.bukkit.Location;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A spatial index of the graveyard regions within a single world, keyed by chunk-sized grid cells.
+ * Each region is an axis-aligned box registered in every cell its X and Z intervals
+ * overlap, so answering "which graveyard covers this point" only needs the single cell
+ * the point falls in and one box comparison per region registered there.
+ */
+public class SpatialIndex {
+
+    private static final int CELL_SHIFT = 4;
+
+    private final Map<Long, List<Region>> cells = new HashMap<>();
+
+    /**
+     * Registers the region of a graveyard in every cell it overlaps.
+     * The bounds are inclusive on the minimum side and exclusive on the maximum side.
+     *
+     * @param graveyardName the name of the graveyard the region belongs to.
+     * @param minX the minimum X-coordinate of the region.
+     * @param minY the minimum Y-coordinate of the region.
+     * @param minZ the minimum Z-coordinate of the region.
+     * @param maxX the maximum X-coordinate of the region.
+     * @param maxY the maximum Y-coordinate of the region.
+     * @param maxZ the maximum Z-coordinate of the region.
+     */
+    public void add(String graveyardName, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        Region region = new Region(graveyardName, minX, minY, minZ, maxX, maxY, maxZ);
+
+        int minCellX = toCell(minX);
+        int maxCellX = toCell(maxX);
+        int minCellZ = toCell(minZ);
+        int maxCellZ = toCell(maxZ);
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                cells.computeIfAbsent(cellKey(cellX, cellZ), k -> new ArrayList<>(1)).add(region);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the name of the graveyard whose region contains the specified location.
+     * Locations in a cell without any registered region are rejected without scanning.
+     * The world of the location is not checked.
+     *
+     * @param location the location to check.
+     * @return the name of the graveyard, or null if no graveyard covers the location.
+     */
+    public String getGraveyardName(Location location) {
+        double x = location.getX();
+        double y = location.getY();
+        double z = location.getZ();
+        List<Region> regions = cells.get(cellKey(toCell(x), toCell(z)));
+        if (regions == null) {
+            return null;
+        }
+
+        for (Region region : regions) {
+            if (region.contains(x, y, z)) {
+                return region.graveyardName;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Converts a coordinate into the coordinate of the grid cell containing it.
+     *
+     * @param coordinate the coordinate.
+     * @return the grid cell coordinate.
+     */
+    private static int toCell(double coordinate) {
+        return ((int) Math.floor(coordinate)) >> CELL_SHIFT;
+    }
+
+    /**
+     * Packs the X and Z coordinates of a grid cell into a single key.
+     *
+     * @param cellX the grid cell X-coordinate.
+     * @param cellZ the grid cell Z-coordinate.
+     * @return the packed cell key.
+     */
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The box covered by a graveyard.
+     */
+    private static final class Region {
+        private final String graveyardName;
+        private final double minX;
+        private final double minY;
+        private final double minZ;
+        private final double maxX;
+        private final double maxY;
+        private final double maxZ;
+
+        private Region(String graveyardName, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+            this.graveyardName = graveyardName;
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+        }
+
+        private boolean contains(double x, double y, double z) {
+            return x >= minX && x < maxX && y >= minY && y < maxY && z >= minZ && z < maxZ;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package dev.cwhead.GravesXAddon.selection;
+
+import dev.cwhead.GravesXAddon.util.GraveSite;
+import dev.cwhead.GravesXAddon.util.GraveSiteReservation;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraveSiteAllocatorTest {
+
+    private static final long TIMEOUT_MILLIS = 60_000L;
+    private static final Set<String> WORLDS = Collections.singleton("world");
+
+    @Test
+    void randomReservesEveryFreeGraveSiteOnce() {
+        List<GraveSite> graveSites = graveSites("world", 100);
+        GraveSiteAllocator allocator = new RandomAllocator(graveSites, WORLDS);
+        Random random = new Random(42L);
+
+        Set<GraveSite> reserved = new HashSet<>();
+        for (int i = 0; i < graveSites.size(); i++) {
+            assertEquals(graveSites.size() - i, allocator.getFreeCount());
+            GraveSiteReservation reservation = allocator.reserve(null, random, TIMEOUT_MILLIS);
+            assertNotNull(reservation);
+            assertTrue(reserved.add(reservation.getGraveSite()), "grave site reserved twice");
+        }
+        assertEquals(0, allocator.getFreeCount());
+        assertNull(allocator.reserve(null, random, TIMEOUT_MILLIS));
+    }
+
+    @Test
+    void randomChoosesGraveSitesFreedThroughUpdate() {
+        List<GraveSite> graveSites = graveSites("world", 3);
+        GraveSiteAllocator allocator = new RandomAllocator(graveSites, WORLDS);
+        Random random = new Random(7L);
+        List<GraveSiteReservation> reservations = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            GraveSiteReservation reservation = allocator.reserve(null, random, TIMEOUT_MILLIS);
+            assertTrue(reservation.commit());
+            reservations.add(reservation);
+        }
+
+        GraveSite freed = reservations.get(1).getGraveSite();
+        freed.setOccupied(false);
+        allocator.update(freed);
+        assertEquals(1, allocator.getFreeCount());
+        assertSame(freed, allocator.reserve(null, random, TIMEOUT_MILLIS).getGraveSite());
+        assertEquals(0, allocator.getFreeCount());
+    }
+
+    @Test
+    void skipsGraveSitesClaimedWithoutTheAllocator() {
+        List<GraveSite> graveSites = graveSites("world", 3);
+        GraveSiteAllocator allocator = new OrderedAllocator(graveSites, WORLDS, false);
+        assertEquals(3, allocator.getFreeCount());
+
+        // Reserved through an older cache version the allocator was not told about
+        assertTrue(graveSites.get(0).reserve(TIMEOUT_MILLIS) != 0L);
+        assertSame(graveSites.get(1), allocator.reserve(null, new Random(), TIMEOUT_MILLIS).getGraveSite());
+        assertEquals(1, allocator.getFreeCount());
+    }
+
+    @Test
+    void neverChoosesGraveSitesInUnloadedWorlds() {
+        List<GraveSite> graveSites = new ArrayList<>(graveSites("unloaded", 2));
+        graveSites.addAll(graveSites("world", 1));
+        GraveSiteAllocator allocator = new OrderedAllocator(graveSites, WORLDS, false);
+
+        assertEquals(1, allocator.getFreeCount());
+        assertSame(graveSites.get(2), allocator.reserve(null, new Random(), TIMEOUT_MILLIS).getGraveSite());
+        assertNull(allocator.reserve(null, new Random(), TIMEOUT_MILLIS));
+    }
+
+    @Test
+    void fillInOrderAlwaysChoosesTheFirstFreeGraveSite() {
+        List<GraveSite> graveSites = graveSites("world", 130);
+        GraveSiteAllocator allocator = new OrderedAllocator(graveSites, WORLDS, false);
+        for (int i = 0; i < 130; i++) {
+            assertTrue(allocator.reserve(null, new Random(), TIMEOUT_MILLIS).commit());
+        }
+
+        // Across a word boundary of the bit set
+        free(allocator, graveSites.get(129));
+        free(allocator, graveSites.get(70));
+        free(allocator, graveSites.get(3));
+        assertSame(graveSites.get(3), allocator.reserve(null, new Random(), TIMEOUT_MILLIS).getGraveSite());
+        assertSame(graveSites.get(70), allocator.reserve(null, new Random(), TIMEOUT_MILLIS).getGraveSite());
+        assertSame(graveSites.get(129), allocator.reserve(null, new Random(), TIMEOUT_MILLIS).getGraveSite());
+        assertNull(allocator.reserve(null, new Random(), TIMEOUT_MILLIS));
+    }
+
+    @Test
+    void roundRobinContinuesAfterTheLastChoiceAndWraps() {
+        List<GraveSite> graveSites = graveSites("world", 4);
+        GraveSiteAllocator allocator = new OrderedAllocator(graveSites, WORLDS, true);
+        GraveSiteReservation first = allocator.reserve(null, new Random(), TIMEOUT_MILLIS);
+        assertSame(graveSites.get(0), first.getGraveSite());
+        assertTrue(first.release());
+        allocator.update(first.getGraveSite());
+
+        assertSame(graveSites.get(1), allocator.reserve(null, new Random(), TIMEOUT_MILLIS).getGraveSite());
+        assertSame(graveSites.get(2), allocator.reserve(null, new Random(), TIMEOUT_MILLIS).getGraveSite());
+        assertSame(graveSites.get(3), allocator.reserve(null, new Random(), TIMEOUT_MILLIS).getGraveSite());
+        assertSame(graveSites.get(0), allocator.reserve(null, new Random(), TIMEOUT_MILLIS).getGraveSite());
+        assertNull(allocator.reserve(null, new Random(), TIMEOUT_MILLIS));
+    }
+
+    @Test
+    void leastRecentlyUsedChoosesTheGraveSiteFreeTheLongest() {
+        List<GraveSite> graveSites = graveSites("world", 4);
+        GraveSiteAllocator allocator = new LeastRecentlyUsedAllocator(graveSites, WORLDS);
+        for (int i = 0; i < 3; i++) {
+            assertSame(graveSites.get(i), allocator.reserve(null, new Random(), TIMEOUT_MILLIS).getGraveSite());
+        }
+
+        graveSites.get(1).setOccupied(false);
+        allocator.update(graveSites.get(1));
+        graveSites.get(0).setOccupied(false);
+        allocator.update(graveSites.get(0));
+        // Freeing a grave site twice keeps its place in the queue
+        allocator.update(graveSites.get(1));
+
+        assertSame(graveSites.get(3), allocator.reserve(null, new Random(), TIMEOUT_MILLIS).getGraveSite());
+        assertSame(graveSites.get(1), allocator.reserve(null, new Random(), TIMEOUT_MILLIS).getGraveSite());
+        assertSame(graveSites.get(0), allocator.reserve(null, new Random(), TIMEOUT_MILLIS).getGraveSite());
+        assertNull(allocator.reserve(null, new Random(), TIMEOUT_MILLIS));
+    }
+
+    @Test
+    void leastRecentlyUsedUnlinksGraveSitesTakenFromTheMiddle() {
+        List<GraveSite> graveSites = graveSites("world", 3);
+        GraveSiteAllocator allocator = new LeastRecentlyUsedAllocator(graveSites, WORLDS);
+        assertEquals(3, allocator.getFreeCount());
+
+        graveSites.get(1).setOccupied(true);
+        allocator.update(graveSites.get(1));
+        assertEquals(2, allocator.getFreeCount());
+        assertSame(graveSites.get(0), allocator.reserve(null, new Random(), TIMEOUT_MILLIS).getGraveSite());
+        assertSame(graveSites.get(2), allocator.reserve(null, new Random(), TIMEOUT_MILLIS).getGraveSite());
+        assertNull(allocator.reserve(null, new Random(), TIMEOUT_MILLIS));
+    }
+
+    @Test
+    void expiredReservationsAreReturnedToTheFreeStructure() {
+        List<GraveSite> graveSites = graveSites("world", 1);
+        GraveSiteAllocator allocator = new OrderedAllocator(graveSites, WORLDS, false);
+        GraveSiteReservation expired = allocator.reserve(null, new Random(), 0L);
+        assertNotNull(expired);
+
+        GraveSiteReservation reservation = allocator.reserve(null, new Random(), TIMEOUT_MILLIS);
+        assertNotNull(reservation);
+        assertSame(expired.getGraveSite(), reservation.getGraveSite());
+        assertFalse(expired.commit());
+        assertTrue(reservation.commit());
+        assertEquals(0, allocator.getFreeCount());
+    }
+
+    @Test
+    void reserveAllReservesDistinctGraveSitesUntilNoneIsFree() {
+        List<GraveSite> graveSites = graveSites("world", 3);
+        GraveSiteAllocator allocator = new RandomAllocator(graveSites, WORLDS);
+        List<GraveSiteReservation> reservations = allocator.reserveAll(Arrays.asList(null, null, null, null), new Random(1L), TIMEOUT_MILLIS);
+
+        assertEquals(4, reservations.size());
+        assertNull(reservations.get(3));
+        Set<GraveSite> reserved = new HashSet<>();
+        for (GraveSiteReservation reservation : reservations.subList(0, 3)) {
+            assertTrue(reserved.add(reservation.getGraveSite()));
+        }
+    }
+
+    @Test
+    void nearestChoosesTheClosestFreeGraveSite() {
+        List<GraveSite> graveSites = graveSites("world", 10);
+        GraveSiteAllocator allocator = new NearestAllocator(graveSites, WORLDS);
+        World world = world("world");
+
+        assertSame(graveSites.get(6), allocator.reserve(new Location(world, 6.2, 64, 0.5), new Random(), TIMEOUT_MILLIS).getGraveSite());
+        assertSame(graveSites.get(5), allocator.reserve(new Location(world, 6.2, 64, 0.5), new Random(), TIMEOUT_MILLIS).getGraveSite());
+        assertSame(graveSites.get(7), allocator.reserve(new Location(world, 6.2, 64, 0.5), new Random(), TIMEOUT_MILLIS).getGraveSite());
+    }
+
+    @Test
+    void nearestPrefersTheWorldOfTheLocation() {
+        List<GraveSite> graveSites = new ArrayList<>(graveSites("world", 2));
+        graveSites.addAll(graveSites("nether", 2, 1000));
+        GraveSiteAllocator allocator = new NearestAllocator(graveSites, new HashSet<>(Arrays.asList("world", "nether")));
+
+        Location near = new Location(world("nether"), 0, 64, 0);
+        assertSame(graveSites.get(2), allocator.reserve(near, new Random(), TIMEOUT_MILLIS).getGraveSite());
+        assertSame(graveSites.get(3), allocator.reserve(near, new Random(), TIMEOUT_MILLIS).getGraveSite());
+        // Falls back to the other world once the world of the location is full
+        assertSame(graveSites.get(0), allocator.reserve(near, new Random(), TIMEOUT_MILLIS).getGraveSite());
+    }
+
+    private static void free(GraveSiteAllocator allocator, GraveSite graveSite) {
+        graveSite.setOccupied(false);
+        allocator.update(graveSite);
+    }
+
+    private static List<GraveSite> graveSites(String worldName, int count) {
+        return graveSites(worldName, count, 0);
+    }
+
+    private static List<GraveSite> graveSites(String worldName, int count, int firstX) {
+        List<GraveSite> graveSites = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            graveSites.add(new GraveSite(String.valueOf(i + 1), worldName, new Location(null, firstX + i, 64, 0), false));
+        }
+        return graveSites;
+    }
+
+    private static World world(String name) {
+        return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[] {World.class},
+                (proxy, method, args) -> "getName".equals(method.getName()) ? name : null);
+    }
+}
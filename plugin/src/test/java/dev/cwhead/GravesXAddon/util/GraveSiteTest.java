@@ -0,0 +1,128 @@
+package dev.cwhead.GravesXAddon.util;
+
+import org.bukkit.Location;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraveSiteTest {
+
+    private static final long TIMEOUT_MILLIS = 60_000L;
+
+    @Test
+    void reservedGraveSiteCannotBeReservedAgain() {
+        GraveSite graveSite = graveSite(false);
+        long stamp = graveSite.reserve(TIMEOUT_MILLIS);
+
+        assertTrue(stamp > 0L);
+        assertTrue(graveSite.isReserved());
+        assertFalse(graveSite.isAvailable());
+        assertFalse(graveSite.isOccupied());
+        assertEquals(stamp, graveSite.getReservationExpiry());
+        assertEquals(0L, graveSite.reserve(TIMEOUT_MILLIS));
+    }
+
+    @Test
+    void commitOccupiesTheGraveSite() {
+        GraveSite graveSite = graveSite(false);
+        long stamp = graveSite.reserve(TIMEOUT_MILLIS);
+
+        assertTrue(graveSite.commitReservation(stamp));
+        assertTrue(graveSite.isOccupied());
+        assertFalse(graveSite.isReserved());
+        assertEquals(0L, graveSite.getReservationExpiry());
+        assertFalse(graveSite.commitReservation(stamp));
+        assertFalse(graveSite.releaseReservation(stamp));
+        assertEquals(0L, graveSite.reserve(TIMEOUT_MILLIS));
+    }
+
+    @Test
+    void releaseMakesTheGraveSiteAvailable() {
+        GraveSite graveSite = graveSite(false);
+        long stamp = graveSite.reserve(TIMEOUT_MILLIS);
+
+        assertTrue(graveSite.releaseReservation(stamp));
+        assertTrue(graveSite.isAvailable());
+        assertFalse(graveSite.releaseReservation(stamp));
+        assertFalse(graveSite.commitReservation(stamp));
+        assertTrue(graveSite.reserve(TIMEOUT_MILLIS) > 0L);
+    }
+
+    @Test
+    void occupiedGraveSiteCannotBeReserved() {
+        GraveSite graveSite = graveSite(true);
+        assertFalse(graveSite.isAvailable());
+        assertEquals(0L, graveSite.reserve(TIMEOUT_MILLIS));
+    }
+
+    @Test
+    void expiredReservationIsTakenOverWithANewStamp() {
+        GraveSite graveSite = graveSite(false);
+        long staleStamp = graveSite.reserve(0L);
+        assertTrue(graveSite.isAvailable());
+        assertFalse(graveSite.isReserved());
+
+        long stamp = graveSite.reserve(TIMEOUT_MILLIS);
+        assertTrue(stamp > staleStamp);
+        // The former holder can neither commit nor release the reservation that replaced its own
+        assertFalse(graveSite.commitReservation(staleStamp));
+        assertFalse(graveSite.releaseReservation(staleStamp));
+        assertTrue(graveSite.isReserved());
+        assertTrue(graveSite.commitReservation(stamp));
+        assertTrue(graveSite.isOccupied());
+    }
+
+    @Test
+    void expiredReservationCanStillBeCommittedUntilTakenOver() {
+        GraveSite graveSite = graveSite(false);
+        long stamp = graveSite.reserve(0L);
+        assertTrue(graveSite.isAvailable());
+
+        assertTrue(graveSite.commitReservation(stamp));
+        assertTrue(graveSite.isOccupied());
+    }
+
+    @Test
+    void reservationStampsAreNotReusedAfterRelease() {
+        GraveSite graveSite = graveSite(false);
+        long first = graveSite.reserve(TIMEOUT_MILLIS);
+        assertTrue(graveSite.releaseReservation(first));
+        long second = graveSite.reserve(TIMEOUT_MILLIS + 1);
+
+        assertNotEquals(first, second);
+        assertFalse(graveSite.releaseReservation(first));
+        assertTrue(graveSite.isReserved());
+    }
+
+    @Test
+    void invalidStampsNeverMatch() {
+        GraveSite graveSite = graveSite(false);
+        assertFalse(graveSite.commitReservation(0L));
+        assertFalse(graveSite.releaseReservation(0L));
+        assertFalse(graveSite.commitReservation(-1L));
+        assertTrue(graveSite.isAvailable());
+    }
+
+    @Test
+    void settingOccupancyReplacesTheReservationAndForgetsTheGrave() {
+        GraveSite graveSite = graveSite(false);
+        long stamp = graveSite.reserve(TIMEOUT_MILLIS);
+        graveSite.setOccupied(true);
+        graveSite.setGraveUUID(UUID.randomUUID());
+        assertFalse(graveSite.commitReservation(stamp));
+
+        graveSite.setOccupied(false);
+        assertTrue(graveSite.isAvailable());
+        assertNull(graveSite.getGraveUUID());
+    }
+
+    private static GraveSite graveSite(boolean occupied) {
+        return new GraveSite("1", "world", new Location(null, 0, 64, 0), occupied);
+    }
+}
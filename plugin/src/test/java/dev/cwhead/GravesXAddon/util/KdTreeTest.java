@@ -0,0 +1,98 @@
+package dev.cwhead.GravesXAddon.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KdTreeTest {
+
+    @Test
+    void findsNothingWhileNoPointIsAvailable() {
+        KdTree tree = new KdTree(new double[][] {{0, 0, 0}, {1, 1, 1}});
+        assertFalse(tree.hasAvailable());
+        assertEquals(-1, tree.nearest(0, 0, 0));
+        assertEquals(-1, new KdTree(new double[0][]).nearest(0, 0, 0));
+    }
+
+    @Test
+    void findsTheNearestAvailablePoint() {
+        KdTree tree = new KdTree(new double[][] {{0, 0, 0}, {10, 0, 0}, {0, 10, 0}, {0, 0, 10}, {5, 5, 5}});
+        for (int point = 0; point < tree.size(); point++) {
+            tree.setAvailable(point, true);
+        }
+        assertEquals(4, tree.nearest(6, 6, 6));
+        assertEquals(1, tree.nearest(9, 1, 0));
+
+        tree.setAvailable(4, false);
+        assertEquals(0, tree.nearest(4, 4, 4));
+        tree.setAvailable(0, false);
+        assertEquals(3, tree.nearest(1, 1, 4));
+    }
+
+    @Test
+    void markingAPointTwiceCountsItOnce() {
+        KdTree tree = new KdTree(new double[][] {{0, 0, 0}, {1, 0, 0}, {2, 0, 0}});
+        tree.setAvailable(2, true);
+        tree.setAvailable(2, true);
+        assertTrue(tree.hasAvailable());
+        tree.setAvailable(2, false);
+        assertFalse(tree.hasAvailable());
+        assertEquals(-1, tree.nearest(2, 0, 0));
+    }
+
+    @Test
+    void skipsPointsRejectedByTheFilter() {
+        KdTree tree = new KdTree(new double[][] {{0, 0, 0}, {1, 0, 0}, {2, 0, 0}});
+        for (int point = 0; point < tree.size(); point++) {
+            tree.setAvailable(point, true);
+        }
+        assertEquals(2, tree.nearest(0, 0, 0, point -> point == 2));
+        assertEquals(-1, tree.nearest(0, 0, 0, point -> false));
+    }
+
+    @Test
+    void matchesALinearScanOfTheAvailablePoints() {
+        Random random = new Random(1234L);
+        double[][] points = new double[500][];
+        for (int i = 0; i < points.length; i++) {
+            // Block coordinates, so many points share an axis value
+            points[i] = new double[] {random.nextInt(40) + 0.5, random.nextInt(8), random.nextInt(40) + 0.5};
+        }
+        KdTree tree = new KdTree(points);
+        boolean[] available = new boolean[points.length];
+
+        for (int round = 0; round < 2000; round++) {
+            int point = random.nextInt(points.length);
+            available[point] = random.nextInt(3) != 0;
+            tree.setAvailable(point, available[point]);
+
+            double x = random.nextDouble() * 50 - 5;
+            double y = random.nextDouble() * 10;
+            double z = random.nextDouble() * 50 - 5;
+            int nearest = tree.nearest(x, y, z);
+            double expected = Double.MAX_VALUE;
+            for (int i = 0; i < points.length; i++) {
+                if (available[i]) {
+                    expected = Math.min(expected, distance(points[i], x, y, z));
+                }
+            }
+            if (expected == Double.MAX_VALUE) {
+                assertEquals(-1, nearest);
+            } else {
+                assertTrue(available[nearest]);
+                assertEquals(expected, distance(points[nearest], x, y, z), 1e-9);
+            }
+        }
+    }
+
+    private static double distance(double[] point, double x, double y, double z) {
+        double dx = point[0] - x;
+        double dy = point[1] - y;
+        double dz = point[2] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}